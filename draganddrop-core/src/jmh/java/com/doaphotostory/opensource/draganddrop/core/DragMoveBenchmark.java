@@ -0,0 +1,208 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single drag move (hit-test plus hover state transitions)
+ * against synthetic droppables laid out as a grid of slots, like a photo story editor.
+ * Run it with ./gradlew :draganddrop-core:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragMoveBenchmark {
+
+    // Size of a slot and the gap in between, in px
+    private static final int SLOT = 120;
+    private static final int GAP = 16;
+    private static final int COLUMNS = 8;
+    // Number of precomputed touch samples the drag cycles through
+    private static final int SAMPLES = 4096;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int droppables;
+
+    private DropTargetRegistry<SyntheticTarget> mRegistry;
+    private BenchmarkStateMachine mMachine;
+    private float[] mX, mY;
+    private int mSample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mRegistry = new DropTargetRegistry<>();
+        for (int i = 0; i < droppables; i++) {
+            float left = (i % COLUMNS) * (SLOT + GAP);
+            float top = (i / COLUMNS) * (SLOT + GAP);
+            mRegistry.add(new SyntheticTarget(left, top, left + SLOT, top + SLOT));
+        }
+        // A random walk over the whole grid, so the drag enters and exits slots
+        int rows = (droppables + COLUMNS - 1) / COLUMNS;
+        float width = COLUMNS * (SLOT + GAP), height = rows * (SLOT + GAP);
+        Random random = new Random(42);
+        mX = new float[SAMPLES];
+        mY = new float[SAMPLES];
+        float x = width / 2, y = height / 2;
+        for (int i = 0; i < SAMPLES; i++) {
+            x = Math.max(0, Math.min(width, x + random.nextFloat() * 40 - 20));
+            y = Math.max(0, Math.min(height, y + random.nextFloat() * 40 - 20));
+            mX[i] = x;
+            mY[i] = y;
+        }
+        mMachine = new BenchmarkStateMachine();
+        mMachine.start(mRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mMachine.cancel();
+    }
+
+    @Benchmark
+    public void move(Blackhole blackhole) {
+        int sample = mSample++ & (SAMPLES - 1);
+        mMachine.move(mX[sample], mY[sample]);
+        blackhole.consume(mMachine.getEnteredTarget());
+    }
+
+    @Benchmark
+    public SyntheticTarget linearScan() {
+        // Baseline: the hit-test as a scan over all droppables
+        int sample = mSample++ & (SAMPLES - 1);
+        for (int i = 0; i < mRegistry.size(); i++) {
+            SyntheticTarget target = mRegistry.get(i);
+            if (target.getBounds().contains(mX[sample], mY[sample]))
+                return target;
+        }
+        return null;
+    }
+
+    /**
+     * A drop target with fixed bounds
+     */
+    public static class SyntheticTarget implements DropTarget {
+        private final Bounds mBounds;
+
+        SyntheticTarget(float left, float top, float right, float bottom) {
+            mBounds = new Bounds(left, top, right, bottom);
+        }
+
+        @Override
+        public Bounds getBounds() {
+            return mBounds;
+        }
+
+        @Override
+        public boolean hasValidBounds() {
+            return true;
+        }
+
+        @Override
+        public void updateBounds() {
+        }
+
+        @Override
+        public void invalidateBounds() {
+        }
+
+        @Override
+        public void offsetBounds(float dx, float dy) {
+            mBounds.offset(dx, dy);
+        }
+
+        @Override
+        public boolean subscribesTo(int action) {
+            return true;
+        }
+
+        @Override
+        public boolean hasRegions() {
+            return false;
+        }
+
+        @Override
+        public int findRegion(float x, float y) {
+            return NO_REGION;
+        }
+
+        @Override
+        public boolean hasShape() {
+            return false;
+        }
+
+        @Override
+        public boolean shapeContains(float x, float y) {
+            return true;
+        }
+    }
+
+    /**
+     * A state machine that counts the events it would dispatch
+     */
+    private static class BenchmarkStateMachine extends DragStateMachine<SyntheticTarget> {
+        private long mEvents = 0;
+
+        @Override
+        protected void onDragStarted() {
+            mEvents++;
+        }
+
+        @Override
+        protected void onDragEntered(SyntheticTarget target, int region) {
+            mEvents++;
+        }
+
+        @Override
+        protected void onDragExited(SyntheticTarget target, int region) {
+            mEvents++;
+        }
+
+        @Override
+        protected void onDragLocation() {
+            mEvents++;
+        }
+
+        @Override
+        protected void onDrop(SyntheticTarget target, int region) {
+            mEvents++;
+        }
+
+        @Override
+        protected void onDragEnded() {
+            mEvents++;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * AlphaMask is a downsampled bitmask of the opaque pixels of an image, used to hit-test
+ * shaped drop targets (i.e. round avatars or icons with transparent padding) by their shape
+ * instead of their bounds. One bit per cell, so a 64x64 mask takes 512 bytes.
+ */
+public class AlphaMask {
+
+    // Pixels with at least this alpha are part of the shape by default
+    public static final int DEFAULT_ALPHA_THRESHOLD = 0x20;
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_ILLEGAL_ARGUMENT_SIZE = "Masks need a positive width and height";
+    public static final String EXCEPTION_ILLEGAL_ARGUMENT_PIXELS = "Not enough pixels for the size of the mask";
+
+    private final int mWidth, mHeight;
+    // The cells row by row, 64 per long
+    private final long[] mBits;
+
+    /**
+     * Constructs an empty mask
+     * @param width the number of cells per row
+     * @param height the number of rows
+     * @throws IllegalArgumentException if the size isn't positive
+     */
+    public AlphaMask(int width, int height) throws IllegalArgumentException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException(EXCEPTION_ILLEGAL_ARGUMENT_SIZE);
+        mWidth = width;
+        mHeight = height;
+        mBits = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Creates a mask from ARGB pixels (like Android's Bitmap#getPixels returns them)
+     * @param pixels the pixels row by row
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param alphaThreshold the minimum alpha (0 - 255) of a pixel that's part of the shape
+     * @return the mask, one cell per pixel
+     * @throws IllegalArgumentException if the size isn't positive or there are too few pixels
+     */
+    public static AlphaMask fromArgb(int[] pixels, int width, int height, int alphaThreshold) throws IllegalArgumentException {
+        AlphaMask mask = new AlphaMask(width, height);
+        if (pixels.length < width * height)
+            throw new IllegalArgumentException(EXCEPTION_ILLEGAL_ARGUMENT_PIXELS);
+        for (int i = 0; i < width * height; i++) {
+            if (pixels[i] >>> 24 >= alphaThreshold)
+                mask.mBits[i >>> 6] |= 1L << (i & 63);
+        }
+        return mask;
+    }
+
+    /**
+     * Adds a cell to the shape or removes it
+     * @param x the column
+     * @param y the row
+     * @param opaque wether the cell is part of the shape
+     */
+    public void set(int x, int y, boolean opaque) {
+        int i = y * mWidth + x;
+        if (opaque)
+            mBits[i >>> 6] |= 1L << (i & 63);
+        else
+            mBits[i >>> 6] &= ~(1L << (i & 63));
+    }
+
+    /**
+     * Is a cell part of the shape
+     * @param x the column
+     * @param y the row
+     * @return wether the cell is opaque
+     */
+    public boolean get(int x, int y) {
+        int i = y * mWidth + x;
+        return (mBits[i >>> 6] & (1L << (i & 63))) != 0;
+    }
+
+    /**
+     * Is a point in mask coordinates (one unit per cell) part of the shape.
+     * Points outside of the mask aren't.
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return wether the point hits the shape
+     */
+    public boolean contains(float x, float y) {
+        // Compared as floats, so points slightly left of or above the mask don't round into it
+        if (!(x >= 0 && y >= 0 && x < mWidth && y < mHeight))
+            return false;
+        return get((int) x, (int) y);
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of cells per row
+     * @return the width
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Get the number of rows
+     * @return the height
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Get the memory held by the cells
+     * @return the size in bytes
+     */
+    public int getByteCount() {
+        return mBits.length * 8;
+    }
+}
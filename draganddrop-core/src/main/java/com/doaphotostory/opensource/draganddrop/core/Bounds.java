@@ -0,0 +1,106 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * Bounds is a plain rectangle of float coordinates, the platform independent
+ * counterpart of Android's RectF
+ */
+public class Bounds {
+
+    public float left, top, right, bottom;
+
+    /**
+     * Constructs empty bounds
+     */
+    public Bounds() {
+    }
+
+    /**
+     * Constructs bounds with the given coordinates
+     * @param left left bound
+     * @param top top bound
+     * @param right right bound
+     * @param bottom bottom bound
+     */
+    public Bounds(float left, float top, float right, float bottom) {
+        set(left, top, right, bottom);
+    }
+
+    /**
+     * Set the coordinates
+     * @param left left bound
+     * @param top top bound
+     * @param right right bound
+     * @param bottom bottom bound
+     */
+    public void set(float left, float top, float right, float bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Moves the bounds
+     * @param dx horizontal offset
+     * @param dy vertical offset
+     */
+    public void offset(float dx, float dy) {
+        left += dx;
+        right += dx;
+        top += dy;
+        bottom += dy;
+    }
+
+    /**
+     * Are the bounds empty
+     * @return wether the bounds have no area
+     */
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    /**
+     * Do the bounds contain a point. Left and top are inclusive while right and bottom are exclusive.
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return wether the point is inside
+     */
+    public boolean contains(float x, float y) {
+        return !isEmpty() && x >= left && x < right && y >= top && y < bottom;
+    }
+
+    /**
+     * GETTERS
+     */
+    public float width() {
+        return right - left;
+    }
+
+    public float height() {
+        return bottom - top;
+    }
+
+    /**
+     * Overrides the toString method for debugging purposes
+     * @return descriptive string for this object
+     */
+    @Override
+    public String toString() {
+        return "Bounds(" + left + ", " + top + ", " + right + ", " + bottom + ")";
+    }
+}
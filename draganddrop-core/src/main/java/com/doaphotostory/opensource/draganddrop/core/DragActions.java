@@ -0,0 +1,49 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * DragActions holds the drag actions and their bitmasks, see DragAndDropEvent
+ * for their meaning
+ */
+public final class DragActions {
+
+    // DRAG ACTIONS
+    public static final int ACTION_DRAG_STARTED = 0;
+    public static final int ACTION_DRAG_LOCATION = 1;
+    public static final int ACTION_DRAG_ENTERED = 2;
+    public static final int ACTION_DRAG_EXITED = 3;
+    public static final int ACTION_DROP = 4;
+    public static final int ACTION_DRAG_ENDED = 5;
+
+    // ACTION MASKS
+    // Targets subscribe to the actions they want to receive with a bitmask of maskOf(action)
+    public static final int ACTION_COUNT = 6;
+    public static final int MASK_NONE = 0;
+    public static final int MASK_ALL = (1 << ACTION_COUNT) - 1;
+
+    private DragActions() {
+    }
+
+    /**
+     * Get the bitmask for a drag action
+     * @param action the drag action
+     * @return the mask with only the bit of the action set
+     */
+    public static int maskOf(int action) {
+        return 1 << action;
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * DragMetrics collects the performance numbers of one drag: moves, hit-test times,
+ * listener dispatch times, enter and exit transitions and the latency of the drop.
+ * Hit-test times are kept in a histogram of power of two buckets, so recording a sample
+ * doesn't allocate. An instance is reset and reused for every drag it's attached to.
+ *
+ * @param <T> the type of the drop targets whose listeners are timed
+ */
+public class DragMetrics<T> {
+
+    // Number of hit-test histogram buckets, the last one is open ended
+    public static final int HISTOGRAM_BUCKETS = 16;
+    // Upper bound of the first bucket in nanoseconds, each following bucket doubles it
+    public static final long HISTOGRAM_FIRST_BUCKET_NANOS = 1000;
+
+    private int mMoveCount;
+    private final long[] mHitTestHistogram = new long[HISTOGRAM_BUCKETS];
+    private long mHitTestNanos;
+    private long mMaxHitTestNanos;
+    private int mEventCount;
+    private long mDispatchNanos;
+    private long mSlowestDispatchNanos;
+    private T mSlowestListener;
+    private int mEnterCount;
+    private int mExitCount;
+    private int mSuppressedLocationCount;
+    private long mDropLatencyMillis = -1;
+
+    /**
+     * Clears all numbers for the next drag
+     */
+    public void reset() {
+        mMoveCount = 0;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            mHitTestHistogram[i] = 0;
+        }
+        mHitTestNanos = 0;
+        mMaxHitTestNanos = 0;
+        mEventCount = 0;
+        mDispatchNanos = 0;
+        mSlowestDispatchNanos = 0;
+        mSlowestListener = null;
+        mEnterCount = 0;
+        mExitCount = 0;
+        mSuppressedLocationCount = 0;
+        mDropLatencyMillis = -1;
+    }
+
+    /**
+     * Records a move of the drag and the time its hit-test took
+     * @param hitTestNanos the hit-test time in nanoseconds
+     */
+    public void onMove(long hitTestNanos) {
+        mMoveCount++;
+        mHitTestNanos += hitTestNanos;
+        if (hitTestNanos > mMaxHitTestNanos)
+            mMaxHitTestNanos = hitTestNanos;
+        mHitTestHistogram[bucketOf(hitTestNanos)]++;
+    }
+
+    /**
+     * Records an event that has been delivered to the listener of a target
+     * @param target the target whose listener has been called
+     * @param nanos the time the listener took in nanoseconds
+     */
+    public void onDispatch(T target, long nanos) {
+        mEventCount++;
+        mDispatchNanos += nanos;
+        if (mEventCount == 1 || nanos > mSlowestDispatchNanos) {
+            mSlowestDispatchNanos = nanos;
+            mSlowestListener = target;
+        }
+    }
+
+    /**
+     * Records that the drag has entered a target
+     */
+    public void onEnter() {
+        mEnterCount++;
+    }
+
+    /**
+     * Records that the drag has exited a target
+     */
+    public void onExit() {
+        mExitCount++;
+    }
+
+    /**
+     * Records a location that hasn't been delivered to a target because of its {@link LocationThrottle}
+     */
+    public void onLocationSuppressed() {
+        mSuppressedLocationCount++;
+    }
+
+    /**
+     * Records the time from the touch event that released the drag to the end of the drop handling
+     * @param millis the latency in milliseconds
+     */
+    public void setDropLatencyMillis(long millis) {
+        mDropLatencyMillis = millis;
+    }
+
+    /**
+     * Drops the reference to the slowest listener's target once the metrics have been reported,
+     * so a reused instance doesn't keep it (and i.e. its view) alive until the next drag.
+     * The numbers stay as they are.
+     */
+    public void releaseTargets() {
+        mSlowestListener = null;
+    }
+
+    /**
+     * Get the histogram bucket of a hit-test time
+     * @param nanos the time in nanoseconds
+     * @return the bucket index
+     */
+    public static int bucketOf(long nanos) {
+        int bucket = 0;
+        long bound = HISTOGRAM_FIRST_BUCKET_NANOS;
+        while (nanos >= bound && bucket < HISTOGRAM_BUCKETS - 1) {
+            bound <<= 1;
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Get the exclusive upper bound of a histogram bucket
+     * @param bucket the bucket index
+     * @return the upper bound in nanoseconds, Long.MAX_VALUE for the last bucket
+     */
+    public static long getBucketUpperBoundNanos(int bucket) {
+        if (bucket >= HISTOGRAM_BUCKETS - 1)
+            return Long.MAX_VALUE;
+        return HISTOGRAM_FIRST_BUCKET_NANOS << bucket;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of moves of the drag
+     * @return the move count
+     */
+    public int getMoveCount() {
+        return mMoveCount;
+    }
+
+    /**
+     * Get the number of hit-tests that fell into a histogram bucket
+     * @param bucket the bucket index, see {@link #getBucketUpperBoundNanos(int)}
+     * @return the number of hit-tests
+     */
+    public long getHitTestCount(int bucket) {
+        return mHitTestHistogram[bucket];
+    }
+
+    /**
+     * Get the total time of all hit-tests
+     * @return the time in nanoseconds
+     */
+    public long getHitTestNanos() {
+        return mHitTestNanos;
+    }
+
+    /**
+     * Get the time of the slowest hit-test
+     * @return the time in nanoseconds
+     */
+    public long getMaxHitTestNanos() {
+        return mMaxHitTestNanos;
+    }
+
+    /**
+     * Get the number of events delivered to listeners
+     * @return the event count
+     */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * Get the total time the listeners took
+     * @return the time in nanoseconds
+     */
+    public long getDispatchNanos() {
+        return mDispatchNanos;
+    }
+
+    /**
+     * Get the time of the slowest single listener call
+     * @return the time in nanoseconds
+     */
+    public long getSlowestDispatchNanos() {
+        return mSlowestDispatchNanos;
+    }
+
+    /**
+     * Get the target whose listener took the longest for a single event
+     * @return the target or null if no event has been delivered or the targets have been released
+     */
+    public T getSlowestListener() {
+        return mSlowestListener;
+    }
+
+    /**
+     * Get the number of targets the drag has entered
+     * @return the enter count
+     */
+    public int getEnterCount() {
+        return mEnterCount;
+    }
+
+    /**
+     * Get the number of targets the drag has exited (a drop doesn't count as exit)
+     * @return the exit count
+     */
+    public int getExitCount() {
+        return mExitCount;
+    }
+
+    /**
+     * Get the number of locations the throttles of the targets have suppressed
+     * @return the suppressed location count
+     */
+    public int getSuppressedLocationCount() {
+        return mSuppressedLocationCount;
+    }
+
+    /**
+     * Get the time from the touch event that released the drag to the end of the drop handling
+     * @return the latency in milliseconds or -1 if the drag hasn't been dropped
+     */
+    public long getDropLatencyMillis() {
+        return mDropLatencyMillis;
+    }
+
+    /**
+     * Overrides the toString method for debugging purposes
+     * @return descriptive string for this object
+     */
+    @Override
+    public String toString() {
+        return "moves " + mMoveCount + " / hitTest " + mHitTestNanos + "ns (max " + mMaxHitTestNanos
+                + "ns) / events " + mEventCount + " / dispatch " + mDispatchNanos + "ns (slowest "
+                + mSlowestListener + " " + mSlowestDispatchNanos + "ns) / enters " + mEnterCount
+                + " / exits " + mExitCount + " / suppressedLocations " + mSuppressedLocationCount
+                + " / dropLatency " + mDropLatencyMillis + "ms";
+    }
+}
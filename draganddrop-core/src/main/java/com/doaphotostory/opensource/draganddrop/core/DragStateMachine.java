@@ -0,0 +1,419 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * DragStateMachine tracks the state of one drag: the registry it's hit-tested against and
+ * the target it currently hovers. For every sample it looks up the hovered target once and
+ * reports the resulting transitions to its subclass, which dispatches them on the platform:
+ * <pre>
+ * IDLE --start--> DRAGGING --enter--> HOVERING --exit--> DRAGGING --drop/cancel--> IDLE
+ * </pre>
+ * ENTERED and EXITED are only reported on real transitions, LOCATION after every sample that
+ * moved the drag (also while hovering).
+ * When the drag starts every target is asked once wether it {@link #accepts(DropTarget)} the
+ * dragged object. The ones that accept it are the candidates of the drag, only they are
+ * hit-tested and notified, so the work per sample depends on the candidates, not on the registry.
+ * Shaped targets are hovered where their shape is, a target below one may be hovered through
+ * its transparent parts.
+ *
+ * @param <T> the type of the drop targets
+ */
+public abstract class DragStateMachine<T extends DropTarget> {
+
+    // STATES
+    // No drag is running
+    public static final int STATE_IDLE = 0;
+    // A drag is running and no target is hovered
+    public static final int STATE_DRAGGING = 1;
+    // A drag is running and hovers a target
+    public static final int STATE_HOVERING = 2;
+
+    // The registry of the running drag and the hovered target (if any)
+    private DropTargetRegistry<T> mRegistry;
+    private T mEnteredTarget;
+    private int mEnteredRegion = DropTarget.NO_REGION;
+    private int mState = STATE_IDLE;
+    // The point of the previous sample
+    private float mLastX = Float.NaN, mLastY = Float.NaN;
+    // Optional metrics of the running drag, null if they aren't collected
+    private DragMetrics<T> mMetrics;
+    // The candidates of the running drag in registration order, all of them and per action they
+    // subscribed to. Built when the drag starts and again if the registry is modified during the drag,
+    // the lists are kept for the following drags.
+    private final ArrayList<T> mCandidates = new ArrayList<>();
+    private final ArrayList<ArrayList<T>> mCandidateSubscribers = new ArrayList<>();
+    // Every target's verdict on accepting the dragged object, so targets are only asked once per drag
+    private final IdentityHashMap<T, Boolean> mVerdicts = new IdentityHashMap<>();
+    // The modification count of the registry the candidates have been built for
+    private int mCandidatesModCount;
+    // The point that's being hit-tested
+    private float mHitX, mHitY;
+    // The region of the target the hit-test accepted
+    private int mHitRegion = DropTarget.NO_REGION;
+    // Shaped targets are only hit where their shape is and targets with regions only on one of
+    // their regions, elsewhere the targets below are hit
+    private final DroppableIndex.Filter<T> mHitFilter = new DroppableIndex.Filter<T>() {
+        @Override
+        public boolean accept(T target) {
+            if (target.hasShape() && !target.shapeContains(mHitX, mHitY))
+                return false;
+            if (!target.hasRegions())
+                return true;
+            mHitRegion = target.findRegion(mHitX, mHitY);
+            return mHitRegion != DropTarget.NO_REGION;
+        }
+    };
+
+    /**
+     * Constructs an idle state machine
+     */
+    public DragStateMachine() {
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mCandidateSubscribers.add(new ArrayList<T>());
+        }
+    }
+
+    /**
+     * Starts a drag against the targets of a registry
+     * @param registry the registry to hit-test against
+     */
+    public void start(DropTargetRegistry<T> registry) {
+        mRegistry = registry;
+        mEnteredTarget = null;
+        mEnteredRegion = DropTarget.NO_REGION;
+        mLastX = mLastY = Float.NaN;
+        mState = STATE_DRAGGING;
+        registry.onSessionStarted();
+        mVerdicts.clear();
+        buildCandidates();
+        onDragStarted();
+    }
+
+    /**
+     * Collects the targets of the registry that accept the dragged object, targets that haven't
+     * been asked during this drag yet are asked once
+     */
+    private void buildCandidates() {
+        mCandidatesModCount = mRegistry.getModCount();
+        mCandidates.clear();
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mCandidateSubscribers.get(action).clear();
+        }
+        for (int i = 0; i < mRegistry.size(); i++) {
+            T target = mRegistry.get(i);
+            Boolean accepted = mVerdicts.get(target);
+            if (accepted == null) {
+                accepted = accepts(target);
+                mVerdicts.put(target, accepted);
+            }
+            if (!accepted)
+                continue;
+            mCandidates.add(target);
+            for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+                if (target.subscribesTo(action))
+                    mCandidateSubscribers.get(action).add(target);
+            }
+        }
+    }
+
+    /**
+     * Builds the candidates again if targets have been added, removed or changed their
+     * subscriptions since they have been built
+     */
+    private void updateCandidates() {
+        if (mRegistry != null && mRegistry.getModCount() != mCandidatesModCount)
+            buildCandidates();
+    }
+
+    /**
+     * Is a target a candidate of the running drag
+     * @param target the target
+     * @return wether the target is part of the registry and accepts the dragged object
+     */
+    public boolean isCandidate(T target) {
+        updateCandidates();
+        return mCandidates.contains(target);
+    }
+
+    /**
+     * Get the candidates of the running drag that subscribed to an action
+     * @param action the drag action
+     * @return the candidates in registration order, must not be modified
+     */
+    public List<T> getCandidates(int action) {
+        updateCandidates();
+        return mCandidateSubscribers.get(action);
+    }
+
+    /**
+     * Find the first candidate that's hit at a point. If every target is a candidate the
+     * spatial index of the registry is used, otherwise only the candidates are scanned.
+     */
+    private T findCandidate(float x, float y) {
+        updateCandidates();
+        if (mCandidates.size() == mRegistry.size())
+            return mRegistry.find(x, y, mHitFilter);
+        // The bounds are measured again by the registry, so its index stays up to date
+        mRegistry.updateInvalidatedBounds();
+        for (int i = 0; i < mCandidates.size(); i++) {
+            T target = mCandidates.get(i);
+            if (target.getBounds().contains(x, y) && mHitFilter.accept(target))
+                return target;
+        }
+        return null;
+    }
+
+    /**
+     * Moves the drag to a new point
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     */
+    public void move(float x, float y) {
+        DragMetrics<T> metrics = mMetrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        // The bounds are the pre-filter, the filter only runs for targets whose bounds contain the point
+        mHitX = x;
+        mHitY = y;
+        mHitRegion = DropTarget.NO_REGION;
+        T hovered = findCandidate(x, y);
+        int region = hovered != null && hovered.hasRegions() ? mHitRegion : DropTarget.NO_REGION;
+        if (metrics != null)
+            metrics.onMove(System.nanoTime() - start);
+        if (hovered != mEnteredTarget || region != mEnteredRegion) {
+            // Another region of the same target, the target itself stays hovered
+            if (hovered != null && hovered == mEnteredTarget) {
+                changeRegion(region);
+            } else {
+                if (mEnteredTarget != null)
+                    exit();
+                if (hovered != null)
+                    enter(hovered, region);
+            }
+        } else if (x == mLastX && y == mLastY) {
+            // Nothing changed (i.e. a repeated sample)
+            return;
+        }
+        mLastX = x;
+        mLastY = y;
+        onDragLocation();
+    }
+
+    /**
+     * Drops on the hovered target (if any) and ends the drag
+     */
+    public void drop() {
+        if (mEnteredTarget != null) {
+            T dropped = mEnteredTarget;
+            int region = mEnteredRegion;
+            mEnteredTarget = null;
+            mEnteredRegion = DropTarget.NO_REGION;
+            mState = STATE_DRAGGING;
+            onDrop(dropped, region);
+        }
+        end();
+    }
+
+    /**
+     * Exits the hovered target (if any) and ends the drag without a drop
+     */
+    public void cancel() {
+        if (mEnteredTarget != null)
+            exit();
+        end();
+    }
+
+    /**
+     * Enters a target: DRAGGING -> HOVERING
+     */
+    private void enter(T target, int region) {
+        mEnteredTarget = target;
+        mEnteredRegion = region;
+        mState = STATE_HOVERING;
+        if (mMetrics != null)
+            mMetrics.onEnter();
+        onDragEntered(target, region);
+    }
+
+    /**
+     * Exits the hovered target: HOVERING -> DRAGGING
+     */
+    private void exit() {
+        T exited = mEnteredTarget;
+        int region = mEnteredRegion;
+        mEnteredTarget = null;
+        mEnteredRegion = DropTarget.NO_REGION;
+        mState = STATE_DRAGGING;
+        if (mMetrics != null)
+            mMetrics.onExit();
+        onDragExited(exited, region);
+    }
+
+    /**
+     * Moves from one region of the hovered target to another: HOVERING -> HOVERING
+     */
+    private void changeRegion(int region) {
+        int exitedRegion = mEnteredRegion;
+        mEnteredRegion = region;
+        if (mMetrics != null) {
+            mMetrics.onExit();
+            mMetrics.onEnter();
+        }
+        onDragRegionChanged(mEnteredTarget, exitedRegion, region);
+    }
+
+    /**
+     * Ends the drag
+     */
+    private void end() {
+        onDragEnded();
+        mRegistry.onSessionEnded();
+        mRegistry = null;
+        mState = STATE_IDLE;
+        mVerdicts.clear();
+        mCandidates.clear();
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mCandidateSubscribers.get(action).clear();
+        }
+    }
+
+    /**
+     * CALLBACKS
+     */
+    /**
+     * Called once per target when the drag starts (or when a target that has been added during
+     * the drag is first met) to decide if the target takes part in the drag
+     * @param target the target
+     * @return wether the target accepts the dragged object, true by default
+     */
+    protected boolean accepts(T target) {
+        return true;
+    }
+
+    /**
+     * Called when the drag has been started
+     */
+    protected abstract void onDragStarted();
+
+    /**
+     * Called when the drag has entered the bounds of a target or one of its regions
+     * @param target the entered target
+     * @param region the entered region or {@link DropTarget#NO_REGION}
+     */
+    protected abstract void onDragEntered(T target, int region);
+
+    /**
+     * Called when the drag has exited the bounds of a target or one of its regions
+     * @param target the exited target
+     * @param region the exited region or {@link DropTarget#NO_REGION}
+     */
+    protected abstract void onDragExited(T target, int region);
+
+    /**
+     * Called when the drag has moved from one region of the hovered target to another. By default
+     * the old region is exited and the new one entered, the target stays hovered meanwhile.
+     * @param target the hovered target
+     * @param exitedRegion the exited region
+     * @param enteredRegion the entered region
+     */
+    protected void onDragRegionChanged(T target, int exitedRegion, int enteredRegion) {
+        onDragExited(target, exitedRegion);
+        onDragEntered(target, enteredRegion);
+    }
+
+    /**
+     * Called after every sample that moved the drag, after the transitions it caused
+     */
+    protected abstract void onDragLocation();
+
+    /**
+     * Called when the drag has been dropped on a target or one of its regions
+     * @param target the target
+     * @param region the region or {@link DropTarget#NO_REGION}
+     */
+    protected abstract void onDrop(T target, int region);
+
+    /**
+     * Called when the drag has ended, after a possible drop
+     */
+    protected abstract void onDragEnded();
+
+    /**
+     * SETTERS
+     */
+    /**
+     * Collects the performance numbers of the following drags. The metrics aren't reset.
+     * @param metrics the metrics to record into or null to stop collecting them
+     */
+    public void setMetrics(DragMetrics<T> metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the metrics the drag records into
+     * @return the metrics or null if they aren't collected
+     */
+    public DragMetrics<T> getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Get the registry of the running drag
+     * @return the registry or null if no drag is running
+     */
+    public DropTargetRegistry<T> getRegistry() {
+        return mRegistry;
+    }
+
+    /**
+     * Get the target that's currently hovered
+     * @return the hovered target or null if none is hovered
+     */
+    public T getEnteredTarget() {
+        return mEnteredTarget;
+    }
+
+    /**
+     * Get the region of the hovered target that's currently hovered
+     * @return the hovered region or {@link DropTarget#NO_REGION}
+     */
+    public int getEnteredRegion() {
+        return mEnteredRegion;
+    }
+
+    /**
+     * Get the state of the drag
+     * @return {@link #STATE_IDLE}, {@link #STATE_DRAGGING} or {@link #STATE_HOVERING}
+     */
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * Is a drag running
+     * @return wether the drag has been started and not ended yet
+     */
+    public boolean isActive() {
+        return mRegistry != null;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * DragTrace holds the constants of the binary drag trace format written by
+ * {@link DragTraceWriter} and read by {@link DragTraceReader}.
+ *
+ * A trace starts with the magic number and the format version, followed by records.
+ * Every record starts with its type and action packed into one number. Numbers are varints
+ * (signed ones zigzag encoded), target ids, times and coordinates are deltas to the previous
+ * record, coordinates are fixed point with {@link #COORDINATE_SCALE} steps per pixel.
+ * A move of a few pixels takes about 9 bytes.
+ *
+ * Motion record: type and action, pointer id, target id, history size, offset x, offset y
+ * (raw minus view relative coordinates) and history size + 1 samples of time, raw x and raw y,
+ * oldest first. Dispatch record: type and action, target id, region id + 1 and time.
+ */
+public final class DragTrace {
+
+    // "DDTR"
+    public static final int MAGIC = 0x44445452;
+    public static final int VERSION = 1;
+
+    // RECORD TYPES
+    public static final int RECORD_END = 0;
+    public static final int RECORD_MOTION = 1;
+    public static final int RECORD_DISPATCH = 2;
+    // The low bits of a record header hold the type, the others the action
+    static final int RECORD_TYPE_BITS = 2;
+
+    // Fixed point steps per pixel
+    public static final float COORDINATE_SCALE = 16f;
+
+    private DragTrace() {
+    }
+
+    /**
+     * Converts a coordinate to fixed point
+     * @param coordinate the coordinate in pixels
+     * @return the fixed point coordinate
+     */
+    static int quantize(float coordinate) {
+        return Math.round(coordinate * COORDINATE_SCALE);
+    }
+
+    /**
+     * Converts a fixed point coordinate back to pixels
+     * @param quantized the fixed point coordinate
+     * @return the coordinate in pixels
+     */
+    static float dequantize(int quantized) {
+        return quantized / COORDINATE_SCALE;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * DragTraceReader reads a trace in the {@link DragTrace} format record by record.
+ * The values of the current record are available through the getters until {@link #next()}
+ * is called again.
+ */
+public class DragTraceReader implements Closeable {
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_IO_NO_TRACE = "The stream doesn't contain a drag trace";
+    public static final String EXCEPTION_IO_VERSION = "Unsupported drag trace version";
+    public static final String EXCEPTION_IO_TRUNCATED = "The drag trace is truncated";
+    public static final String EXCEPTION_IO_RECORD = "Unknown drag trace record";
+
+    private final InputStream mIn;
+    private boolean mEnded = false;
+
+    // The current record
+    private int mType = DragTrace.RECORD_END;
+    private int mAction;
+    private int mPointerId;
+    private int mTargetId;
+    private int mRegionId = DropTarget.NO_REGION;
+    private long mEventTime = 0;
+    private int mOffsetX = 0, mOffsetY = 0;
+    // The samples of the current motion record, oldest first, reused for the following records
+    private int mSampleCount = 0;
+    private long[] mSampleTimes = new long[8];
+    private int[] mSampleX = new int[8], mSampleY = new int[8];
+    private int mLastX = 0, mLastY = 0;
+
+    /**
+     * Constructs a reader and reads the trace header
+     * @param in the stream to read from, it's buffered by the reader
+     * @throws IOException if the stream fails or doesn't contain a supported trace
+     */
+    public DragTraceReader(InputStream in) throws IOException {
+        mIn = new BufferedInputStream(in);
+        int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        if (magic != DragTrace.MAGIC)
+            throw new IOException(EXCEPTION_IO_NO_TRACE);
+        if (readVarint() != DragTrace.VERSION)
+            throw new IOException(EXCEPTION_IO_VERSION);
+    }
+
+    /**
+     * Reads the next record
+     * @return wether there's a record, false at the end of the trace
+     * @throws IOException if the stream fails or the trace is corrupt
+     */
+    public boolean next() throws IOException {
+        if (mEnded)
+            return false;
+        long header = readVarint();
+        mType = (int) (header & ((1 << DragTrace.RECORD_TYPE_BITS) - 1));
+        mAction = (int) (header >>> DragTrace.RECORD_TYPE_BITS);
+        switch (mType) {
+            case DragTrace.RECORD_END:
+                mEnded = true;
+                mSampleCount = 0;
+                return false;
+            case DragTrace.RECORD_MOTION:
+                readMotion();
+                return true;
+            case DragTrace.RECORD_DISPATCH:
+                mTargetId += (int) readSignedVarint();
+                mRegionId = (int) readVarint() - 1;
+                mEventTime += readSignedVarint();
+                mSampleCount = 0;
+                return true;
+            default:
+                throw new IOException(EXCEPTION_IO_RECORD);
+        }
+    }
+
+    private void readMotion() throws IOException {
+        mPointerId = (int) readVarint();
+        mTargetId += (int) readSignedVarint();
+        int count = (int) readVarint() + 1;
+        mOffsetX += (int) readSignedVarint();
+        mOffsetY += (int) readSignedVarint();
+        if (count > mSampleTimes.length) {
+            int capacity = Math.max(count, mSampleTimes.length * 2);
+            mSampleTimes = new long[capacity];
+            mSampleX = new int[capacity];
+            mSampleY = new int[capacity];
+        }
+        for (int i = 0; i < count; i++) {
+            mEventTime += readSignedVarint();
+            mLastX += (int) readSignedVarint();
+            mLastY += (int) readSignedVarint();
+            mSampleTimes[i] = mEventTime;
+            mSampleX[i] = mLastX;
+            mSampleY[i] = mLastY;
+        }
+        mSampleCount = count;
+    }
+
+    /**
+     * Closes the stream
+     * @throws IOException if the stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        mIn.close();
+    }
+
+    private int readByte() throws IOException {
+        int value = mIn.read();
+        if (value < 0)
+            throw new EOFException(EXCEPTION_IO_TRUNCATED);
+        return value;
+    }
+
+    private long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException(EXCEPTION_IO_RECORD);
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the type of the current record
+     * @return {@link DragTrace#RECORD_MOTION} or {@link DragTrace#RECORD_DISPATCH}
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * Get the action of the current record: the masked motion event action of a motion record
+     * or the drag action of a dispatch record
+     * @return the action
+     */
+    public int getAction() {
+        return mAction;
+    }
+
+    /**
+     * Get the pointer id of the current motion record
+     * @return the pointer id
+     */
+    public int getPointerId() {
+        return mPointerId;
+    }
+
+    /**
+     * Get the id of the dragged object of a motion record or of the droppable of a dispatch record
+     * @return the target id
+     */
+    public int getTargetId() {
+        return mTargetId;
+    }
+
+    /**
+     * Get the drop region of the current dispatch record
+     * @return the region id or {@link DropTarget#NO_REGION}
+     */
+    public int getRegionId() {
+        return mRegionId;
+    }
+
+    /**
+     * Get the time of the current record (the time of the newest sample of a motion record)
+     * @return the time in milliseconds
+     */
+    public long getEventTime() {
+        return mEventTime;
+    }
+
+    /**
+     * Get the raw minus the view relative x coordinate of the current motion record
+     * @return the offset in pixels
+     */
+    public float getOffsetX() {
+        return DragTrace.dequantize(mOffsetX);
+    }
+
+    /**
+     * Get the raw minus the view relative y coordinate of the current motion record
+     * @return the offset in pixels
+     */
+    public float getOffsetY() {
+        return DragTrace.dequantize(mOffsetY);
+    }
+
+    /**
+     * Get the number of samples of the current motion record: its historical samples
+     * and the current one, which is the last
+     * @return the sample count, 0 for dispatch records
+     */
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    /**
+     * Get the time of a sample
+     * @param index the sample index, 0 is the oldest
+     * @return the time in milliseconds
+     */
+    public long getSampleTime(int index) {
+        return mSampleTimes[index];
+    }
+
+    /**
+     * Get the x coordinate of a sample on the screen
+     * @param index the sample index, 0 is the oldest
+     * @return the raw x coordinate
+     */
+    public float getSampleRawX(int index) {
+        return DragTrace.dequantize(mSampleX[index]);
+    }
+
+    /**
+     * Get the y coordinate of a sample on the screen
+     * @param index the sample index, 0 is the oldest
+     * @return the raw y coordinate
+     */
+    public float getSampleRawY(int index) {
+        return DragTrace.dequantize(mSampleY[index]);
+    }
+}
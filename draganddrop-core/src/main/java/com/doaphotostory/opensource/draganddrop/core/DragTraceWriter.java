@@ -0,0 +1,173 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * DragTraceWriter writes touch samples and drag event dispatches in the compact
+ * {@link DragTrace} format. Writing doesn't allocate, so it can run during a drag.
+ *
+ * A motion record is written with {@link #writeMotion(int, int, int, int, float, float)},
+ * followed by history size + 1 calls to {@link #writeSample(long, float, float)}.
+ */
+public class DragTraceWriter implements Closeable {
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_ILLEGAL_STATE_SAMPLES = "Expected a different number of samples for the motion record";
+
+    private final OutputStream mOut;
+    // The values of the previous record, everything is written as delta to them
+    private long mLastTime = 0;
+    private int mLastX = 0, mLastY = 0;
+    private int mLastOffsetX = 0, mLastOffsetY = 0;
+    private int mLastTargetId = 0;
+    // Samples that are still expected for the current motion record
+    private int mPendingSamples = 0;
+
+    /**
+     * Constructs a writer and writes the trace header
+     * @param out the stream to write to, it's buffered by the writer
+     * @throws IOException if the stream fails
+     */
+    public DragTraceWriter(OutputStream out) throws IOException {
+        mOut = new BufferedOutputStream(out);
+        writeInt(DragTrace.MAGIC);
+        writeVarint(DragTrace.VERSION);
+    }
+
+    /**
+     * Starts a motion record
+     * @param action the masked action of the motion event
+     * @param pointerId the id of the pointer
+     * @param targetId the id of the dragged object (i.e. its view id)
+     * @param historySize the number of historical samples
+     * @param offsetX the raw minus the view relative x coordinate
+     * @param offsetY the raw minus the view relative y coordinate
+     * @throws IOException if the stream fails
+     */
+    public void writeMotion(int action, int pointerId, int targetId, int historySize,
+                            float offsetX, float offsetY) throws IOException {
+        checkSamplesComplete();
+        writeRecordType(DragTrace.RECORD_MOTION, action);
+        writeVarint(pointerId);
+        writeTargetId(targetId);
+        writeVarint(historySize);
+        int x = DragTrace.quantize(offsetX), y = DragTrace.quantize(offsetY);
+        writeSignedVarint(x - mLastOffsetX);
+        writeSignedVarint(y - mLastOffsetY);
+        mLastOffsetX = x;
+        mLastOffsetY = y;
+        mPendingSamples = historySize + 1;
+    }
+
+    /**
+     * Writes a sample of the current motion record, historical samples first
+     * @param eventTime the time of the sample in milliseconds
+     * @param rawX the x coordinate on the screen
+     * @param rawY the y coordinate on the screen
+     * @throws IOException if the stream fails
+     */
+    public void writeSample(long eventTime, float rawX, float rawY) throws IOException {
+        if (mPendingSamples <= 0)
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_SAMPLES);
+        mPendingSamples--;
+        int x = DragTrace.quantize(rawX), y = DragTrace.quantize(rawY);
+        writeSignedVarint(eventTime - mLastTime);
+        writeSignedVarint(x - mLastX);
+        writeSignedVarint(y - mLastY);
+        mLastTime = eventTime;
+        mLastX = x;
+        mLastY = y;
+    }
+
+    /**
+     * Writes a dispatch record
+     * @param action the drag action
+     * @param targetId the id of the droppable that received the event (i.e. its view id)
+     * @param regionId the drop region of the event or {@link DropTarget#NO_REGION}
+     * @param eventTime the time of the event in milliseconds
+     * @throws IOException if the stream fails
+     */
+    public void writeDispatch(int action, int targetId, int regionId, long eventTime) throws IOException {
+        checkSamplesComplete();
+        writeRecordType(DragTrace.RECORD_DISPATCH, action);
+        writeTargetId(targetId);
+        // The region is stored plus one, so NO_REGION takes a single byte
+        writeVarint(regionId + 1L);
+        writeSignedVarint(eventTime - mLastTime);
+        mLastTime = eventTime;
+    }
+
+    /**
+     * Writes buffered records to the stream
+     * @throws IOException if the stream fails
+     */
+    public void flush() throws IOException {
+        mOut.flush();
+    }
+
+    /**
+     * Ends the trace and closes the stream
+     * @throws IOException if the stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            checkSamplesComplete();
+            mOut.write(DragTrace.RECORD_END);
+        } finally {
+            mOut.close();
+        }
+    }
+
+    private void checkSamplesComplete() {
+        if (mPendingSamples != 0)
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_SAMPLES);
+    }
+
+    private void writeRecordType(int type, int action) throws IOException {
+        writeVarint(type | ((long) action << DragTrace.RECORD_TYPE_BITS));
+    }
+
+    private void writeTargetId(int targetId) throws IOException {
+        writeSignedVarint((long) targetId - mLastTargetId);
+        mLastTargetId = targetId;
+    }
+
+    private void writeInt(int value) throws IOException {
+        mOut.write(value >>> 24);
+        mOut.write(value >>> 16);
+        mOut.write(value >>> 8);
+        mOut.write(value);
+    }
+
+    private void writeSignedVarint(long value) throws IOException {
+        // Zigzag: small negative numbers become small positive ones
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            mOut.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        mOut.write((int) value);
+    }
+}
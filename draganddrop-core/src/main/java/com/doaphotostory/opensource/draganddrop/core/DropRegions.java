@@ -0,0 +1,116 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.util.HashMap;
+
+/**
+ * DropRegions are the virtual drop targets of a host: rects in the coordinates of the host,
+ * identified by an id, that are hovered and dropped on like targets of their own without
+ * needing a view each. They're hit-tested with a {@link DroppableIndex}, so thousands of
+ * regions are fine. If regions overlap the one that has been added first wins.
+ */
+public class DropRegions {
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_ILLEGAL_ARGUMENT_REGION_ID = "Region ids must not be negative";
+
+    private final DroppableIndex<Region> mIndex = new DroppableIndex<>();
+    private final HashMap<Integer, Region> mRegions = new HashMap<>();
+
+    /**
+     * A region and its bounds in the coordinates of the host
+     */
+    private static final class Region {
+        private final int mId;
+        private final Bounds mBounds = new Bounds();
+
+        Region(int id) {
+            mId = id;
+        }
+    }
+
+    /**
+     * Adds a region or moves it if a region with this id has been added before
+     * @param id the id of the region, not negative
+     * @param left left bound in host coordinates
+     * @param top top bound in host coordinates
+     * @param right right bound in host coordinates
+     * @param bottom bottom bound in host coordinates
+     * @throws IllegalArgumentException if the id is negative
+     */
+    public void put(int id, float left, float top, float right, float bottom) throws IllegalArgumentException {
+        if (id < 0)
+            throw new IllegalArgumentException(EXCEPTION_ILLEGAL_ARGUMENT_REGION_ID);
+        Region region = mRegions.get(id);
+        if (region == null) {
+            region = new Region(id);
+            mRegions.put(id, region);
+            region.mBounds.set(left, top, right, bottom);
+            mIndex.add(region, left, top, right, bottom);
+        } else {
+            region.mBounds.set(left, top, right, bottom);
+            mIndex.update(region, left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Removes a region
+     * @param id the id of the region
+     * @return wether the region has been part of this set
+     */
+    public boolean remove(int id) {
+        Region region = mRegions.remove(id);
+        return region != null && mIndex.remove(region);
+    }
+
+    /**
+     * Removes all regions
+     */
+    public void clear() {
+        mRegions.clear();
+        mIndex.clear();
+    }
+
+    /**
+     * Find the region at a point
+     * @param x x coordinate in host coordinates
+     * @param y y coordinate in host coordinates
+     * @return the id of the region or {@link DropTarget#NO_REGION} if there's none
+     */
+    public int find(float x, float y) {
+        Region region = mIndex.find(x, y);
+        return region != null ? region.mId : DropTarget.NO_REGION;
+    }
+
+    /**
+     * Get the bounds of a region
+     * @param id the id of the region
+     * @return the bounds in host coordinates (they must not be modified) or null if there's no such region
+     */
+    public Bounds getBounds(int id) {
+        Region region = mRegions.get(id);
+        return region != null ? region.mBounds : null;
+    }
+
+    /**
+     * Get the number of regions
+     * @return the region count
+     */
+    public int size() {
+        return mRegions.size();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * DropTarget is anything a drag may hover and drop on. It caches its bounds on the
+ * screen and tells which {@link DragActions} it wants to receive.
+ * A target may host virtual {@link DropRegions}, then only its regions are hovered.
+ * A shaped target is only hovered where its shape is, its bounds are the fast pre-filter.
+ */
+public interface DropTarget {
+
+    // The region id of targets that are hovered as a whole
+    int NO_REGION = -1;
+
+    /**
+     * Get the cached bounds on the screen, recalculated if they are outdated.
+     * The returned bounds are owned by the target and must not be modified.
+     * @return the bounds on the screen
+     */
+    Bounds getBounds();
+
+    /**
+     * Are the cached bounds up to date
+     * @return wether the cached bounds are valid
+     */
+    boolean hasValidBounds();
+
+    /**
+     * Recalculates the cached bounds
+     */
+    void updateBounds();
+
+    /**
+     * Marks the cached bounds as outdated
+     */
+    void invalidateBounds();
+
+    /**
+     * Moves the cached bounds without measuring them again (i.e. when the target is scrolled)
+     * @param dx the horizontal distance
+     * @param dy the vertical distance
+     */
+    void offsetBounds(float dx, float dy);
+
+    /**
+     * Did the target subscribe to a drag action
+     * @param action the drag action
+     * @return wether the target wants to receive the action
+     */
+    boolean subscribesTo(int action);
+
+    /**
+     * Does the target host drop regions. Such a target is only hovered where it has a region.
+     * @return wether the target has regions
+     */
+    boolean hasRegions();
+
+    /**
+     * Find the region of the target at a point
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @return the id of the region or {@link #NO_REGION} if there's none
+     */
+    int findRegion(float x, float y);
+
+    /**
+     * Is the target hit-tested by its shape (i.e. an {@link AlphaMask}) inside of its bounds
+     * @return wether the target has a shape
+     */
+    boolean hasShape();
+
+    /**
+     * Does the shape of the target contain a point inside of its bounds
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @return wether the point hits the shape
+     */
+    boolean shapeContains(float x, float y);
+}
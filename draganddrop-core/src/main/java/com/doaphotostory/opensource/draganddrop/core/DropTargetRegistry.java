@@ -0,0 +1,263 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DropTargetRegistry holds the {@link DropTarget}s a drag is hit-tested against.
+ * It keeps the targets in registration order, partitioned by the actions they subscribed to,
+ * and indexes their bounds in a {@link DroppableIndex} when the first drag session starts.
+ * After that only targets whose bounds got invalidated are measured again.
+ *
+ * @param <T> the type of the drop targets
+ */
+public class DropTargetRegistry<T extends DropTarget> {
+
+    // The targets in registration order
+    private final ArrayList<T> mTargets = new ArrayList<>();
+    // The targets partitioned by the actions they subscribed to, in registration order
+    private final ArrayList<ArrayList<T>> mSubscribers = new ArrayList<>();
+    // Spatial index of the targets' bounds, filled when a drag starts
+    private final DroppableIndex<T> mIndex = new DroppableIndex<>();
+    // Set if the cached bounds of a target got outdated
+    private boolean mBoundsInvalidated = false;
+    // Number of running drag sessions
+    private int mSessionCount = 0;
+    // Incremented whenever a target is added, removed or changes its subscriptions
+    private int mModCount = 0;
+
+    /**
+     * Constructs an empty registry
+     */
+    public DropTargetRegistry() {
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mSubscribers.add(new ArrayList<T>());
+        }
+    }
+
+    /**
+     * Adds a target. A target added during a drag is hit-testable right away.
+     * @param target the target
+     */
+    public void add(T target) {
+        mTargets.add(target);
+        mModCount++;
+        subscribe(target);
+        if (mSessionCount > 0) {
+            target.updateBounds();
+            index(target);
+        }
+    }
+
+    /**
+     * Removes a target
+     * @param target the target
+     * @return wether the target has been part of this registry
+     */
+    public boolean remove(T target) {
+        if (!mTargets.remove(target))
+            return false;
+        mModCount++;
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mSubscribers.get(action).remove(target);
+        }
+        mIndex.remove(target);
+        return true;
+    }
+
+    /**
+     * Called if targets changed their subscriptions. The subscriber lists are
+     * rebuilt to keep the registration order.
+     */
+    public void onSubscriptionsChanged() {
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            mSubscribers.get(action).clear();
+        }
+        for (int i = 0; i < mTargets.size(); i++) {
+            subscribe(mTargets.get(i));
+        }
+        mModCount++;
+    }
+
+    /**
+     * Called if a drag session is started. The first session measures the bounds of
+     * all targets once and puts them into the spatial index.
+     */
+    public void onSessionStarted() {
+        if (mSessionCount++ > 0)
+            return;
+        mBoundsInvalidated = false;
+        mIndex.clear();
+        for (int i = 0; i < mTargets.size(); i++) {
+            T target = mTargets.get(i);
+            target.updateBounds();
+            index(target);
+        }
+    }
+
+    /**
+     * Called if a drag session has ended
+     */
+    public void onSessionEnded() {
+        if (mSessionCount > 0)
+            mSessionCount--;
+    }
+
+    /**
+     * Find the first registered target whose bounds contain the point
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @return the target or null if there's none
+     */
+    public T find(float x, float y) {
+        return find(x, y, null);
+    }
+
+    /**
+     * Find the first registered target whose bounds contain the point and that passes a filter
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @param filter the filter or null to accept all targets
+     * @return the target or null if there's none
+     */
+    public T find(float x, float y, DroppableIndex.Filter<? super T> filter) {
+        updateInvalidatedBounds();
+        return mIndex.find(x, y, filter);
+    }
+
+    /**
+     * Measures the targets whose bounds got invalidated again and updates their place in the
+     * spatial index. Call it before reading the bounds of targets directly.
+     */
+    public void updateInvalidatedBounds() {
+        // Only targets whose bounds got invalidated have to be measured again
+        if (mBoundsInvalidated)
+            reindex();
+    }
+
+    /**
+     * Called by targets whose cached bounds got outdated
+     */
+    public void onBoundsInvalidated() {
+        mBoundsInvalidated = true;
+    }
+
+    /**
+     * Marks the cached bounds of all targets as outdated
+     */
+    public void invalidateBounds() {
+        for (int i = 0; i < mTargets.size(); i++) {
+            mTargets.get(i).invalidateBounds();
+        }
+        mBoundsInvalidated = true;
+    }
+
+    /**
+     * Moves the cached bounds of a target and its place in the spatial index without
+     * measuring it again, i.e. for targets inside a container that's being scrolled
+     * @param target the target
+     * @param dx the horizontal distance
+     * @param dy the vertical distance
+     */
+    public void offsetBounds(T target, float dx, float dy) {
+        if (!target.hasValidBounds())
+            return;
+        target.offsetBounds(dx, dy);
+        Bounds bounds = target.getBounds();
+        // Targets that aren't part of this registry any more are measured again once they're back
+        if (!mIndex.update(target, bounds.left, bounds.top, bounds.right, bounds.bottom))
+            target.invalidateBounds();
+    }
+
+    /**
+     * Adds a target to the subscriber lists of the actions it subscribed to
+     */
+    private void subscribe(T target) {
+        for (int action = 0; action < DragActions.ACTION_COUNT; action++) {
+            if (target.subscribesTo(action))
+                mSubscribers.get(action).add(target);
+        }
+    }
+
+    /**
+     * Updates the spatial index for all targets whose cached bounds are outdated
+     */
+    private void reindex() {
+        mBoundsInvalidated = false;
+        for (int i = 0; i < mTargets.size(); i++) {
+            T target = mTargets.get(i);
+            if (target.hasValidBounds())
+                continue;
+            Bounds bounds = target.getBounds();
+            mIndex.update(target, bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
+    }
+
+    /**
+     * Puts the cached bounds of a target into the spatial index
+     */
+    private void index(T target) {
+        Bounds bounds = target.getBounds();
+        mIndex.add(target, bounds.left, bounds.top, bounds.right, bounds.bottom);
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of targets
+     * @return the number of targets
+     */
+    public int size() {
+        return mTargets.size();
+    }
+
+    /**
+     * Get a target
+     * @param index the position of the target in registration order
+     * @return the target
+     */
+    public T get(int index) {
+        return mTargets.get(index);
+    }
+
+    /**
+     * Get the modification count, it changes whenever a target is added, removed or changes its subscriptions
+     * @return the modification count
+     */
+    public int getModCount() {
+        return mModCount;
+    }
+
+    /**
+     * Get the targets that subscribed to an action
+     * @param action the drag action
+     * @return the subscribed targets in registration order, must not be modified
+     */
+    public List<T> getSubscribers(int action) {
+        return mSubscribers.get(action);
+    }
+
+    /**
+     * Get the number of running drag sessions
+     * @return the number of sessions
+     */
+    public int getSessionCount() {
+        return mSessionCount;
+    }
+}
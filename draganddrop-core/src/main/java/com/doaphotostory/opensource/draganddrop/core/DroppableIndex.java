@@ -0,0 +1,316 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * DroppableIndex is a uniform grid over the screen bounds of the registered droppables.
+ * It answers "which droppable contains the point (x, y)" by only looking at the droppables
+ * overlapping the grid cell of the point instead of scanning all of them.
+ * If several droppables contain the point the one that has been added first wins, so the
+ * registration order decides like it does for a linear scan.
+ * The grid is rebuilt lazily on the first query after an item has been added, removed or moved
+ * to other cells. Items that move within the cells they cover (i.e. the small steps of a scroll)
+ * only get their bounds updated.
+ *
+ * @param <T> the type of the indexed items
+ */
+public class DroppableIndex<T> {
+
+    /**
+     * FILTER INTERFACE
+     */
+    public interface Filter<T> {
+        /**
+         * Should an item take part in a lookup
+         * @param item the item
+         * @return wether the item may be found
+         */
+        boolean accept(T item);
+    }
+
+    // The grid never gets more cells than this in one dimension
+    private static final int MAX_CELLS_PER_SIDE = 64;
+
+    // The items and their bounds (left, top, right, bottom) in insertion order
+    private Object[] mItems = new Object[16];
+    private float[] mBounds = new float[16 * 4];
+    private int mSize = 0;
+    // The position of every item in mItems, so updates don't have to search
+    private final IdentityHashMap<T, Integer> mSlots = new IdentityHashMap<>();
+
+    // The grid: items of cell c are mCellItems[mCellStart[c]] ... mCellItems[mCellStart[c + 1] - 1]
+    private int[] mCellStart = new int[1];
+    private int[] mCellItems = new int[0];
+    private int mColumns, mRows;
+    private float mOriginX, mOriginY, mCellWidth, mCellHeight;
+    private boolean mDirty = false;
+
+    /**
+     * Adds an item with its bounds to the index.
+     * Items that are added later have a lower priority on overlapping bounds.
+     *
+     * @param item the item to add
+     * @param left left bound
+     * @param top top bound
+     * @param right right bound
+     * @param bottom bottom bound
+     */
+    public void add(T item, float left, float top, float right, float bottom) {
+        if (mSize == mItems.length) {
+            mItems = Arrays.copyOf(mItems, mSize * 2);
+            mBounds = Arrays.copyOf(mBounds, mSize * 2 * 4);
+        }
+        mItems[mSize] = item;
+        mSlots.put(item, mSize);
+        setBounds(mSize, left, top, right, bottom);
+        mSize++;
+        mDirty = true;
+    }
+
+    /**
+     * Updates the bounds of an item that has been added before
+     *
+     * @param item the item to update
+     * @param left left bound
+     * @param top top bound
+     * @param right right bound
+     * @param bottom bottom bound
+     * @return wether the item is part of this index
+     */
+    public boolean update(T item, float left, float top, float right, float bottom) {
+        int index = indexOf(item);
+        if (index < 0)
+            return false;
+        boolean sameCells = !mDirty && coversSameCells(index, left, top, right, bottom);
+        setBounds(index, left, top, right, bottom);
+        if (!sameCells)
+            mDirty = true;
+        return true;
+    }
+
+    /**
+     * Removes an item from the index, keeping the order of the remaining items
+     *
+     * @param item the item to remove
+     * @return wether the item has been part of this index
+     */
+    public boolean remove(T item) {
+        int index = indexOf(item);
+        if (index < 0)
+            return false;
+        System.arraycopy(mItems, index + 1, mItems, index, mSize - index - 1);
+        System.arraycopy(mBounds, (index + 1) * 4, mBounds, index * 4, (mSize - index - 1) * 4);
+        mItems[--mSize] = null;
+        mSlots.remove(item);
+        for (int i = index; i < mSize; i++) {
+            mSlots.put(itemAt(i), i);
+        }
+        mDirty = true;
+        return true;
+    }
+
+    /**
+     * Removes all items from the index
+     */
+    public void clear() {
+        Arrays.fill(mItems, 0, mSize, null);
+        mSlots.clear();
+        mSize = 0;
+        mDirty = true;
+    }
+
+    /**
+     * Find the first added item whose bounds contain the point.
+     * Like {@link Bounds#contains(float, float)} left and top are inclusive
+     * while right and bottom are exclusive
+     *
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return the item containing the point or null if there's none
+     */
+    public T find(float x, float y) {
+        return find(x, y, null);
+    }
+
+    /**
+     * Find the first added item whose bounds contain the point and that passes a filter.
+     * Items the filter refuses are skipped as if they weren't part of the index.
+     *
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @param filter the filter or null to accept all items
+     * @return the item containing the point or null if there's none
+     */
+    @SuppressWarnings("unchecked")
+    public T find(float x, float y, Filter<? super T> filter) {
+        if (mDirty)
+            rebuild();
+        if (mColumns == 0 || x < mOriginX || y < mOriginY)
+            return null;
+        int column = clamp((int) ((x - mOriginX) / mCellWidth), mColumns);
+        int row = clamp((int) ((y - mOriginY) / mCellHeight), mRows);
+        int cell = row * mColumns + column;
+        for (int i = mCellStart[cell], end = mCellStart[cell + 1]; i < end; i++) {
+            int index = mCellItems[i];
+            if (contains(index, x, y) && (filter == null || filter.accept((T) mItems[index])))
+                return (T) mItems[index];
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of items in this index
+     *
+     * @return the number of items
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Rebuilds the grid. The cell size is derived from the average item size, so most items
+     * only cover a few cells, and is capped to MAX_CELLS_PER_SIDE cells per side.
+     */
+    private void rebuild() {
+        mDirty = false;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        float sumWidth = 0f, sumHeight = 0f;
+        int count = 0;
+        for (int i = 0; i < mSize; i++) {
+            if (isEmpty(i))
+                continue;
+            minX = Math.min(minX, mBounds[i * 4]);
+            minY = Math.min(minY, mBounds[i * 4 + 1]);
+            maxX = Math.max(maxX, mBounds[i * 4 + 2]);
+            maxY = Math.max(maxY, mBounds[i * 4 + 3]);
+            sumWidth += mBounds[i * 4 + 2] - mBounds[i * 4];
+            sumHeight += mBounds[i * 4 + 3] - mBounds[i * 4 + 1];
+            count++;
+        }
+        if (count == 0) {
+            mColumns = mRows = 0;
+            mOriginX = mOriginY = 0f;
+            return;
+        }
+        mOriginX = minX;
+        mOriginY = minY;
+        mCellWidth = Math.max(sumWidth / count, (maxX - minX) / MAX_CELLS_PER_SIDE);
+        mCellHeight = Math.max(sumHeight / count, (maxY - minY) / MAX_CELLS_PER_SIDE);
+        mColumns = Math.max(1, (int) Math.ceil((maxX - minX) / mCellWidth));
+        mRows = Math.max(1, (int) Math.ceil((maxY - minY) / mCellHeight));
+        int cells = mColumns * mRows;
+
+        // Count the items per cell first, then fill the cells in insertion order
+        if (mCellStart.length < cells + 1)
+            mCellStart = new int[cells + 1];
+        else
+            Arrays.fill(mCellStart, 0, cells + 1, 0);
+        for (int i = 0; i < mSize; i++) {
+            if (isEmpty(i))
+                continue;
+            for (int row = firstRow(i), lastRow = lastRow(i); row <= lastRow; row++)
+                for (int column = firstColumn(i), lastColumn = lastColumn(i); column <= lastColumn; column++)
+                    mCellStart[row * mColumns + column + 1]++;
+        }
+        for (int cell = 0; cell < cells; cell++)
+            mCellStart[cell + 1] += mCellStart[cell];
+        if (mCellItems.length < mCellStart[cells])
+            mCellItems = new int[mCellStart[cells]];
+        int[] fill = Arrays.copyOf(mCellStart, cells);
+        for (int i = 0; i < mSize; i++) {
+            if (isEmpty(i))
+                continue;
+            for (int row = firstRow(i), lastRow = lastRow(i); row <= lastRow; row++)
+                for (int column = firstColumn(i), lastColumn = lastColumn(i); column <= lastColumn; column++)
+                    mCellItems[fill[row * mColumns + column]++] = i;
+        }
+    }
+
+    /**
+     * HELPERS
+     */
+    private int indexOf(T item) {
+        Integer index = mSlots.get(item);
+        return index != null ? index : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T itemAt(int index) {
+        return (T) mItems[index];
+    }
+
+    /**
+     * Would an item with new bounds be found in the cells of the current grid that it's in allready
+     */
+    private boolean coversSameCells(int index, float left, float top, float right, float bottom) {
+        if (mColumns == 0 || isEmpty(index) || left >= right || top >= bottom)
+            return false;
+        // Points left of or above the grid aren't looked up
+        if (left < mOriginX || top < mOriginY)
+            return false;
+        return column(left) == firstColumn(index) && row(top) == firstRow(index)
+                && column(right) == lastColumn(index) && row(bottom) == lastRow(index);
+    }
+
+    private void setBounds(int index, float left, float top, float right, float bottom) {
+        mBounds[index * 4] = left;
+        mBounds[index * 4 + 1] = top;
+        mBounds[index * 4 + 2] = right;
+        mBounds[index * 4 + 3] = bottom;
+    }
+
+    private boolean isEmpty(int index) {
+        return mBounds[index * 4] >= mBounds[index * 4 + 2] || mBounds[index * 4 + 1] >= mBounds[index * 4 + 3];
+    }
+
+    private boolean contains(int index, float x, float y) {
+        return !isEmpty(index)
+                && x >= mBounds[index * 4] && x < mBounds[index * 4 + 2]
+                && y >= mBounds[index * 4 + 1] && y < mBounds[index * 4 + 3];
+    }
+
+    private int firstColumn(int index) {
+        return column(mBounds[index * 4]);
+    }
+
+    private int firstRow(int index) {
+        return row(mBounds[index * 4 + 1]);
+    }
+
+    private int lastColumn(int index) {
+        return column(mBounds[index * 4 + 2]);
+    }
+
+    private int lastRow(int index) {
+        return row(mBounds[index * 4 + 3]);
+    }
+
+    private int column(float x) {
+        return clamp((int) ((x - mOriginX) / mCellWidth), mColumns);
+    }
+
+    private int row(float y) {
+        return clamp((int) ((y - mOriginY) / mCellHeight), mRows);
+    }
+
+    private static int clamp(int cell, int cells) {
+        return Math.max(0, Math.min(cell, cells - 1));
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * EdgeScroll computes the auto-scroll velocity of a drag near the edges of a scrolling
+ * container. The velocity grows linearly with how deep the pointer is inside the edge zone
+ * and reaches its maximum at (or beyond) the edge itself.
+ */
+public final class EdgeScroll {
+
+    private EdgeScroll() {
+    }
+
+    /**
+     * Get the scroll velocity along one axis
+     * @param pointer the pointer coordinate
+     * @param start the start (left or top) of the container
+     * @param end the end (right or bottom) of the container
+     * @param edgeSize the size of the edge zones, at most half the container is used
+     * @param maxVelocity the velocity at the edge
+     * @return the velocity, negative towards the start, positive towards the end, 0 outside of the edge zones
+     */
+    public static float velocity(float pointer, float start, float end, float edgeSize, float maxVelocity) {
+        float edge = Math.min(edgeSize, (end - start) / 2);
+        if (edge <= 0)
+            return 0;
+        if (pointer < start + edge)
+            return -maxVelocity * depth(start + edge - pointer, edge);
+        if (pointer > end - edge)
+            return maxVelocity * depth(pointer - (end - edge), edge);
+        return 0;
+    }
+
+    /**
+     * Get how deep the pointer is inside an edge zone
+     * @return the depth from 0 to 1
+     */
+    private static float depth(float distance, float edge) {
+        return Math.min(1f, distance / edge);
+    }
+}
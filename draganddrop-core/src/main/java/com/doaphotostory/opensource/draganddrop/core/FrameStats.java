@@ -0,0 +1,139 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * FrameStats collects the frames of one drag: how many have been rendered, how many have been
+ * dropped and the worst frame. Frames are either recorded by their vsync timestamps, where a gap
+ * of n frame intervals means n - 1 dropped frames (with half an interval of slack for vsync
+ * jitter), or by how long they took to render, where a frame that took n intervals made the
+ * display miss n - 1 frames. An instance is reset and reused for every drag it's attached to.
+ */
+public class FrameStats {
+
+    // 60 Hz
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667;
+
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long mFirstFrameNanos = -1;
+    private long mLastFrameNanos = -1;
+    private int mFrameCount;
+    private int mDroppedFrameCount;
+    private long mWorstFrameNanos;
+
+    /**
+     * Clears all numbers for the next drag
+     * @param frameIntervalNanos the refresh interval of the display in nanoseconds
+     */
+    public void reset(long frameIntervalNanos) {
+        mFrameIntervalNanos = frameIntervalNanos > 0 ? frameIntervalNanos : DEFAULT_FRAME_INTERVAL_NANOS;
+        mFirstFrameNanos = -1;
+        mLastFrameNanos = -1;
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mWorstFrameNanos = 0;
+    }
+
+    /**
+     * Records a rendered frame
+     * @param frameTimeNanos the vsync time of the frame in nanoseconds
+     */
+    public void onFrame(long frameTimeNanos) {
+        if (mLastFrameNanos >= 0) {
+            long duration = frameTimeNanos - mLastFrameNanos;
+            if (duration > mWorstFrameNanos)
+                mWorstFrameNanos = duration;
+            int missed = (int) ((duration + mFrameIntervalNanos / 2) / mFrameIntervalNanos) - 1;
+            if (missed > 0)
+                mDroppedFrameCount += missed;
+        } else {
+            mFirstFrameNanos = frameTimeNanos;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        mFrameCount++;
+    }
+
+    /**
+     * Records a rendered frame by how long it took to render (i.e. from FrameMetrics),
+     * idle vsyncs without a frame aren't recorded at all
+     * @param frameStartNanos the time the frame has been started at in nanoseconds
+     * @param durationNanos the time it took to render the frame in nanoseconds
+     */
+    public void onFrameRendered(long frameStartNanos, long durationNanos) {
+        if (mFirstFrameNanos < 0)
+            mFirstFrameNanos = frameStartNanos;
+        mLastFrameNanos = frameStartNanos;
+        if (durationNanos > mWorstFrameNanos)
+            mWorstFrameNanos = durationNanos;
+        if (durationNanos > mFrameIntervalNanos)
+            mDroppedFrameCount += (int) ((durationNanos - 1) / mFrameIntervalNanos);
+        mFrameCount++;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of rendered frames
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Get the number of frames that should have been rendered in between, but weren't
+     * @return the dropped frame count
+     */
+    public int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    /**
+     * Get the longest time between two frames recorded by vsync, or the longest time a frame
+     * recorded by its duration took to render
+     * @return the time in nanoseconds, 0 if there hasn't been a frame to compare
+     */
+    public long getWorstFrameNanos() {
+        return mWorstFrameNanos;
+    }
+
+    /**
+     * Get the time from the first to the last rendered frame
+     * @return the time in nanoseconds
+     */
+    public long getDurationNanos() {
+        return mFrameCount == 0 ? 0 : mLastFrameNanos - mFirstFrameNanos;
+    }
+
+    /**
+     * Get the refresh interval the dropped frames are counted with
+     * @return the interval in nanoseconds
+     */
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    /**
+     * Overrides the toString method for debugging purposes
+     * @return descriptive string for this object
+     */
+    @Override
+    public String toString() {
+        return "frames " + mFrameCount + " / dropped " + mDroppedFrameCount + " / worst "
+                + mWorstFrameNanos / 1000000f + "ms / interval " + mFrameIntervalNanos / 1000000f + "ms";
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * LocationThrottle decides which ACTION_DRAG_LOCATION events a listener gets. A location is
+ * passed on once the pointer moved at least the minimum distance and the minimum interval has
+ * passed since the previously passed one, every other location is suppressed and counted.
+ * A minimum of 0 disables that check, so the throttle may work by distance, by time or both.
+ * Only locations are throttled, transitions (enter, exit, drop) are never held back.
+ * An instance keeps the state of one listener and is reset for every drag.
+ */
+public class LocationThrottle {
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_ILLEGAL_ARGUMENT_NEGATIVE = "Throttle minimums must not be negative";
+
+    private float mMinDistance;
+    private long mMinIntervalMillis;
+    // The previously passed location
+    private boolean mHasLast = false;
+    private float mLastX, mLastY;
+    private long mLastTime;
+    private int mSuppressedCount = 0;
+
+    /**
+     * Constructs a throttle
+     * @param minDistance the minimum distance to the previously passed location, 0 to not throttle by distance
+     * @param minIntervalMillis the minimum time since the previously passed location, 0 to not throttle by time
+     * @throws IllegalArgumentException If a minimum is negative IllegalArgumentException is thrown
+     */
+    public LocationThrottle(float minDistance, long minIntervalMillis) throws IllegalArgumentException {
+        setMinimums(minDistance, minIntervalMillis);
+    }
+
+    /**
+     * Forgets the previously passed location and the suppressed count for the next drag
+     */
+    public void reset() {
+        mHasLast = false;
+        mSuppressedCount = 0;
+    }
+
+    /**
+     * Offers a location, it's remembered as previously passed location if it passes
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param time the time of the location in milliseconds
+     * @return wether the location should be passed on, false if it's suppressed
+     */
+    public boolean offer(float x, float y, long time) {
+        if (mHasLast && isThrottling()) {
+            float dx = x - mLastX, dy = y - mLastY;
+            if ((mMinDistance > 0 && dx * dx + dy * dy < mMinDistance * mMinDistance)
+                    || (mMinIntervalMillis > 0 && time - mLastTime < mMinIntervalMillis)) {
+                mSuppressedCount++;
+                return false;
+            }
+        }
+        mHasLast = true;
+        mLastX = x;
+        mLastY = y;
+        mLastTime = time;
+        return true;
+    }
+
+    /**
+     * SETTERS
+     */
+    /**
+     * Set the minimums a location has to pass
+     * @param minDistance the minimum distance to the previously passed location, 0 to not throttle by distance
+     * @param minIntervalMillis the minimum time since the previously passed location, 0 to not throttle by time
+     * @throws IllegalArgumentException If a minimum is negative IllegalArgumentException is thrown
+     */
+    public void setMinimums(float minDistance, long minIntervalMillis) throws IllegalArgumentException {
+        if (minDistance < 0 || minIntervalMillis < 0)
+            throw new IllegalArgumentException(EXCEPTION_ILLEGAL_ARGUMENT_NEGATIVE);
+        mMinDistance = minDistance;
+        mMinIntervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Does this throttle suppress anything
+     * @return wether a minimum distance or interval is set
+     */
+    public boolean isThrottling() {
+        return mMinDistance > 0 || mMinIntervalMillis > 0;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the minimum distance to the previously passed location
+     * @return the distance, 0 if locations aren't throttled by distance
+     */
+    public float getMinDistance() {
+        return mMinDistance;
+    }
+
+    /**
+     * Get the minimum time since the previously passed location
+     * @return the interval in milliseconds, 0 if locations aren't throttled by time
+     */
+    public long getMinIntervalMillis() {
+        return mMinIntervalMillis;
+    }
+
+    /**
+     * Get the number of locations that have been suppressed since the last reset
+     * @return the suppressed count
+     */
+    public int getSuppressedCount() {
+        return mSuppressedCount;
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+/**
+ * PointerPredictor extrapolates a pointer to the time its position will be displayed, so a
+ * dragged view doesn't trail the finger by the input to display latency. It's fed with the
+ * touch samples of a drag (including the historical ones) and estimates velocity and
+ * acceleration with exponential smoothing.
+ * Predictions are clamped to a maximum distance and horizon. When the pointer changes its
+ * direction sharply the prediction is turned off until the direction is stable again,
+ * overshooting a turn looks worse than trailing.
+ */
+public class PointerPredictor {
+
+    // By default predict at most two frames at 60Hz ahead and at most 64px far
+    public static final long DEFAULT_MAX_HORIZON_MILLIS = 32;
+    public static final float DEFAULT_MAX_DISTANCE = 64f;
+    // Prediction is turned off if the direction changed by more than 60 degrees between samples
+    public static final float MIN_DIRECTION_COSINE = 0.5f;
+
+    // The weight of a new estimate, the rest is the previous estimate
+    private static final float VELOCITY_SMOOTHING = 0.6f;
+    private static final float ACCELERATION_SMOOTHING = 0.3f;
+    // The direction of slower pointers is mostly noise (px per ms)
+    private static final float MIN_DIRECTION_SPEED = 0.05f;
+    // Samples further apart start a new estimate (i.e. the finger rested)
+    private static final long MAX_SAMPLE_GAP_MILLIS = 100;
+    // Estimates need this many samples before they're used
+    private static final int MIN_SAMPLES = 3;
+
+    private long mMaxHorizonMillis = DEFAULT_MAX_HORIZON_MILLIS;
+    private float mMaxDistance = DEFAULT_MAX_DISTANCE;
+
+    // The newest sample
+    private long mLastTime;
+    private float mLastX, mLastY;
+    private int mSampleCount = 0;
+    // The estimates in px per ms and px per ms squared
+    private float mVelocityX, mVelocityY;
+    private float mAccelerationX, mAccelerationY;
+    // Set if the newest sample turned sharply
+    private boolean mSuppressed = false;
+    // The result of the last prediction
+    private float mPredictedX, mPredictedY;
+
+    /**
+     * Forgets all samples, i.e. when a new drag starts
+     */
+    public void reset() {
+        mSampleCount = 0;
+        mVelocityX = mVelocityY = 0;
+        mAccelerationX = mAccelerationY = 0;
+        mSuppressed = false;
+    }
+
+    /**
+     * Adds a touch sample, samples have to be added oldest first
+     * @param time the time of the sample in ms
+     * @param x x coordinate
+     * @param y y coordinate
+     */
+    public void addSample(long time, float x, float y) {
+        long dt = time - mLastTime;
+        if (mSampleCount == 0 || dt > MAX_SAMPLE_GAP_MILLIS || dt < 0) {
+            reset();
+            setLast(time, x, y);
+            return;
+        }
+        // Samples of the same ms only move the position
+        if (dt == 0) {
+            mLastX = x;
+            mLastY = y;
+            return;
+        }
+        float velocityX = (x - mLastX) / dt;
+        float velocityY = (y - mLastY) / dt;
+        if (mSampleCount == 1) {
+            mVelocityX = velocityX;
+            mVelocityY = velocityY;
+            mSuppressed = false;
+        } else if (isSharpTurn(velocityX, velocityY)) {
+            // Start over from the new direction
+            mVelocityX = velocityX;
+            mVelocityY = velocityY;
+            mAccelerationX = mAccelerationY = 0;
+            mSuppressed = true;
+        } else {
+            float accelerationX = (velocityX - mVelocityX) / dt;
+            float accelerationY = (velocityY - mVelocityY) / dt;
+            mAccelerationX += ACCELERATION_SMOOTHING * (accelerationX - mAccelerationX);
+            mAccelerationY += ACCELERATION_SMOOTHING * (accelerationY - mAccelerationY);
+            mVelocityX += VELOCITY_SMOOTHING * (velocityX - mVelocityX);
+            mVelocityY += VELOCITY_SMOOTHING * (velocityY - mVelocityY);
+            mSuppressed = false;
+        }
+        setLast(time, x, y);
+    }
+
+    /**
+     * Predicts the position at a time, the result is available from {@link #getPredictedX()}
+     * and {@link #getPredictedY()}. Without enough samples or after a sharp turn the newest
+     * sample is the prediction.
+     * @param time the time in ms, usually the expected display time of the next frame
+     */
+    public void predict(long time) {
+        mPredictedX = mLastX;
+        mPredictedY = mLastY;
+        if (mSampleCount < MIN_SAMPLES || mSuppressed)
+            return;
+        float dt = Math.max(0, Math.min(time - mLastTime, mMaxHorizonMillis));
+        float dx = mVelocityX * dt + 0.5f * mAccelerationX * dt * dt;
+        float dy = mVelocityY * dt + 0.5f * mAccelerationY * dt * dt;
+        // A decelerating pointer stops, it doesn't turn around
+        if (dx * mVelocityX + dy * mVelocityY < 0)
+            return;
+        float distance = (float) Math.hypot(dx, dy);
+        if (distance > mMaxDistance) {
+            dx *= mMaxDistance / distance;
+            dy *= mMaxDistance / distance;
+        }
+        mPredictedX += dx;
+        mPredictedY += dy;
+    }
+
+    /**
+     * Did the direction change more than allowed between the velocity estimate and a new velocity
+     */
+    private boolean isSharpTurn(float velocityX, float velocityY) {
+        float speed = (float) Math.hypot(velocityX, velocityY);
+        float estimatedSpeed = (float) Math.hypot(mVelocityX, mVelocityY);
+        if (speed < MIN_DIRECTION_SPEED || estimatedSpeed < MIN_DIRECTION_SPEED)
+            return false;
+        float cosine = (velocityX * mVelocityX + velocityY * mVelocityY) / (speed * estimatedSpeed);
+        return cosine < MIN_DIRECTION_COSINE;
+    }
+
+    private void setLast(long time, float x, float y) {
+        mLastTime = time;
+        mLastX = x;
+        mLastY = y;
+        mSampleCount++;
+    }
+
+    /**
+     * SETTERS
+     */
+    /**
+     * Set the maximum time a prediction looks ahead
+     * @param maxHorizonMillis the maximum horizon in ms
+     */
+    public void setMaxHorizonMillis(long maxHorizonMillis) {
+        mMaxHorizonMillis = maxHorizonMillis;
+    }
+
+    /**
+     * Set the maximum distance between the newest sample and a prediction
+     * @param maxDistance the maximum distance in the units of the samples
+     */
+    public void setMaxDistance(float maxDistance) {
+        mMaxDistance = maxDistance;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the predicted x coordinate
+     * @return the x coordinate of the last prediction
+     */
+    public float getPredictedX() {
+        return mPredictedX;
+    }
+
+    /**
+     * Get the predicted y coordinate
+     * @return the y coordinate of the last prediction
+     */
+    public float getPredictedY() {
+        return mPredictedY;
+    }
+
+    /**
+     * Get the estimated horizontal velocity
+     * @return the velocity in units per ms
+     */
+    public float getVelocityX() {
+        return mVelocityX;
+    }
+
+    /**
+     * Get the estimated vertical velocity
+     * @return the velocity in units per ms
+     */
+    public float getVelocityY() {
+        return mVelocityY;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Is the prediction turned off because the pointer turned sharply with the newest sample
+     * @return wether predictions return the newest sample
+     */
+    public boolean isSuppressed() {
+        return mSuppressed;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * PredictionReplay measures the error of a {@link PointerPredictor} on recorded drags.
+ * It replays the touch samples of a {@link DragTrace} through the predictor, predicts every
+ * sample a horizon ahead and compares the prediction with where the pointer actually was at
+ * that time (interpolated between the recorded samples). The error of simply using the newest
+ * sample is measured as baseline, that's what the drag shows without prediction.
+ */
+public final class PredictionReplay {
+
+    // The motion actions as recorded (the values of Android's MotionEvent)
+    private static final int ACTION_DOWN = 0;
+    private static final int ACTION_UP = 1;
+    private static final int ACTION_CANCEL = 3;
+
+    /**
+     * The errors of one replay
+     */
+    public static final class Result {
+        private int mCount = 0;
+        private double mErrorSum = 0, mBaselineErrorSum = 0;
+        private float mMaxError = 0, mMaxBaselineError = 0;
+
+        private void add(float error, float baselineError) {
+            mCount++;
+            mErrorSum += error;
+            mBaselineErrorSum += baselineError;
+            mMaxError = Math.max(mMaxError, error);
+            mMaxBaselineError = Math.max(mMaxBaselineError, baselineError);
+        }
+
+        /**
+         * Get the number of predictions that have been measured
+         * @return the number of predictions
+         */
+        public int getCount() {
+            return mCount;
+        }
+
+        /**
+         * Get the mean distance between the predictions and the actual positions
+         * @return the mean error in px
+         */
+        public float getMeanError() {
+            return mCount == 0 ? 0 : (float) (mErrorSum / mCount);
+        }
+
+        /**
+         * Get the largest distance between a prediction and the actual position
+         * @return the maximum error in px
+         */
+        public float getMaxError() {
+            return mMaxError;
+        }
+
+        /**
+         * Get the mean distance between the newest samples and the actual positions
+         * @return the mean error without prediction in px
+         */
+        public float getMeanBaselineError() {
+            return mCount == 0 ? 0 : (float) (mBaselineErrorSum / mCount);
+        }
+
+        /**
+         * Get the largest distance between a newest sample and the actual position
+         * @return the maximum error without prediction in px
+         */
+        public float getMaxBaselineError() {
+            return mMaxBaselineError;
+        }
+
+        @Override
+        public String toString() {
+            return "predictions " + mCount + " / mean error " + getMeanError() + "px (baseline "
+                    + getMeanBaselineError() + "px) / max error " + mMaxError + "px (baseline "
+                    + mMaxBaselineError + "px)";
+        }
+    }
+
+    private PredictionReplay() {
+    }
+
+    /**
+     * Replays a drag trace through a predictor. Every drag of the trace (DOWN to UP or CANCEL)
+     * starts with a reset predictor.
+     * @param in the stream of the trace, it's read to its end but not closed
+     * @param predictor the predictor
+     * @param horizonMillis how far ahead every sample is predicted
+     * @return the errors
+     * @throws IOException if the trace can't be read
+     */
+    public static Result measure(InputStream in, PointerPredictor predictor, long horizonMillis) throws IOException {
+        Result result = new Result();
+        DragTraceReader reader = new DragTraceReader(in);
+        long[] times = new long[64];
+        float[] xs = new float[64], ys = new float[64];
+        int size = 0;
+        while (reader.next()) {
+            if (reader.getType() != DragTrace.RECORD_MOTION)
+                continue;
+            if (reader.getAction() == ACTION_DOWN) {
+                measure(times, xs, ys, size, predictor, horizonMillis, result);
+                size = 0;
+            }
+            for (int i = 0; i < reader.getSampleCount(); i++) {
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                    xs = Arrays.copyOf(xs, size * 2);
+                    ys = Arrays.copyOf(ys, size * 2);
+                }
+                times[size] = reader.getSampleTime(i);
+                xs[size] = reader.getSampleRawX(i);
+                ys[size] = reader.getSampleRawY(i);
+                size++;
+            }
+            if (reader.getAction() == ACTION_UP || reader.getAction() == ACTION_CANCEL) {
+                measure(times, xs, ys, size, predictor, horizonMillis, result);
+                size = 0;
+            }
+        }
+        measure(times, xs, ys, size, predictor, horizonMillis, result);
+        return result;
+    }
+
+    /**
+     * Measures the predictions of one drag
+     */
+    private static void measure(long[] times, float[] xs, float[] ys, int size,
+                                PointerPredictor predictor, long horizonMillis, Result result) {
+        predictor.reset();
+        // Walks along with the predicted time to interpolate the actual position
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            predictor.addSample(times[i], xs[i], ys[i]);
+            long time = times[i] + horizonMillis;
+            // Predictions beyond the end of the drag can't be checked
+            if (time > times[size - 1])
+                break;
+            while (next < size - 1 && times[next + 1] < time)
+                next++;
+            float fraction = 0;
+            if (next < size - 1 && times[next + 1] > times[next])
+                fraction = Math.min(1f, (float) (time - times[next]) / (times[next + 1] - times[next]));
+            int after = Math.min(next + 1, size - 1);
+            float actualX = xs[next] + (xs[after] - xs[next]) * fraction;
+            float actualY = ys[next] + (ys[after] - ys[next]) * fraction;
+            predictor.predict(time);
+            result.add((float) Math.hypot(predictor.getPredictedX() - actualX, predictor.getPredictedY() - actualY),
+                    (float) Math.hypot(xs[i] - actualX, ys[i] - actualY));
+        }
+    }
+}
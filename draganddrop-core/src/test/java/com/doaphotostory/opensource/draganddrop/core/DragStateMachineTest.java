@@ -0,0 +1,556 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the {@link DragStateMachine} and {@link DropTargetRegistry}
+ */
+public class DragStateMachineTest {
+
+    private DropTargetRegistry<TestTarget> mRegistry;
+    private RecordingStateMachine mMachine;
+    private TestTarget mLeft, mRight;
+
+    @Before
+    public void setUp() {
+        mRegistry = new DropTargetRegistry<>();
+        mMachine = new RecordingStateMachine();
+        mLeft = new TestTarget("left", 0, 0, 100, 100);
+        mRight = new TestTarget("right", 200, 0, 300, 100);
+        mRegistry.add(mLeft);
+        mRegistry.add(mRight);
+    }
+
+    @Test
+    public void move_emitsTransitionsOnly() {
+        mMachine.start(mRegistry);
+        mMachine.move(150, 50);
+        mMachine.move(50, 50);
+        mMachine.move(60, 50);
+        mMachine.move(250, 50);
+        mMachine.move(150, 50);
+        mMachine.drop();
+
+        assertEquals("started location entered:left location location exited:left entered:right location exited:right location ended",
+                mMachine.log());
+        assertFalse(mMachine.isActive());
+    }
+
+    @Test
+    public void hovering_emitsLocationsButNoTransitions() {
+        assertEquals(DragStateMachine.STATE_IDLE, mMachine.getState());
+        mMachine.start(mRegistry);
+        assertEquals(DragStateMachine.STATE_DRAGGING, mMachine.getState());
+        mMachine.move(50, 50);
+        assertEquals(DragStateMachine.STATE_HOVERING, mMachine.getState());
+        mMachine.move(60, 50);
+        // A repeated sample changes nothing
+        mMachine.move(60, 50);
+        mMachine.move(70, 50);
+        mMachine.cancel();
+
+        assertEquals("started entered:left location location location exited:left ended", mMachine.log());
+        assertEquals(DragStateMachine.STATE_IDLE, mMachine.getState());
+    }
+
+    @Test
+    public void drop_onHoveredTarget() {
+        mMachine.start(mRegistry);
+        mMachine.move(250, 50);
+        mMachine.drop();
+
+        assertEquals("started entered:right location drop:right ended", mMachine.log());
+        assertNull(mMachine.getEnteredTarget());
+    }
+
+    @Test
+    public void cancel_exitsHoveredTarget() {
+        mMachine.start(mRegistry);
+        mMachine.move(50, 50);
+        mMachine.cancel();
+
+        assertEquals("started entered:left location exited:left ended", mMachine.log());
+    }
+
+    @Test
+    public void targetsAddedAndRemovedDuringDrag() {
+        mMachine.start(mRegistry);
+        TestTarget late = new TestTarget("late", 400, 0, 500, 100);
+        mRegistry.add(late);
+        mMachine.move(450, 50);
+        mRegistry.remove(mLeft);
+        mMachine.move(50, 50);
+
+        assertEquals("started entered:late location exited:late location", mMachine.log());
+    }
+
+    @Test
+    public void invalidatedBounds_areMeasuredAgain() {
+        mMachine.start(mRegistry);
+        mLeft.moveTo(1000, 1000);
+        mMachine.move(1050, 1050);
+        assertEquals("started location", mMachine.log());
+
+        mLeft.invalidateBounds();
+        mRegistry.onBoundsInvalidated();
+        mMachine.move(1050, 1060);
+        assertEquals("started location entered:left location", mMachine.log());
+    }
+
+    @Test
+    public void offsetBounds_movesTargetsWithoutMeasuring() {
+        int modCount = mRegistry.getModCount();
+        mMachine.start(mRegistry);
+        // Scrolled by 500px: the targets moved down, their cached bounds are moved along
+        mLeft.moveTo(0, 500);
+        mRegistry.offsetBounds(mLeft, 0, 500);
+        mMachine.move(50, 550);
+        assertEquals("started entered:left location", mMachine.log());
+        assertEquals(modCount, mRegistry.getModCount());
+
+        // Removed targets are measured again once they're back
+        mRegistry.remove(mRight);
+        mRegistry.offsetBounds(mRight, 0, 500);
+        assertFalse(mRight.hasValidBounds());
+        assertNotEquals(modCount, mRegistry.getModCount());
+    }
+
+    @Test
+    public void refusingTargets_areNeitherHitTestedNorCandidates() {
+        TestTarget photoSlot = new TestTarget("slot", 50, 0, 150, 100);
+        photoSlot.mAccepts = false;
+        mRegistry.add(photoSlot);
+        mMachine.start(mRegistry);
+        // Asked once when the drag started
+        assertEquals(1, photoSlot.mAcceptsCalls);
+        assertFalse(mMachine.isCandidate(photoSlot));
+        assertTrue(mMachine.isCandidate(mLeft));
+
+        // The slot overlaps left and would be found first without the filter
+        mRegistry.remove(mLeft);
+        mRegistry.add(mLeft);
+        mMachine.move(60, 50);
+        mMachine.move(120, 50);
+        mMachine.drop();
+
+        assertEquals("started entered:left location exited:left location ended", mMachine.log());
+        assertEquals(1, photoSlot.mAcceptsCalls);
+    }
+
+    @Test
+    public void targetsAddedDuringDrag_areAskedOnce() {
+        mMachine.start(mRegistry);
+        TestTarget late = new TestTarget("late", 400, 0, 500, 100);
+        late.mAccepts = false;
+        mRegistry.add(late);
+        mMachine.move(450, 50);
+        mMachine.move(460, 50);
+
+        assertEquals("started location location", mMachine.log());
+        assertEquals(1, late.mAcceptsCalls);
+    }
+
+    @Test
+    public void candidates_onlyAcceptingTargetsAreDispatchedToAndHitTested() {
+        TestTarget photoSlot = new TestTarget("slot", 0, 0, 100, 100);
+        photoSlot.mAccepts = false;
+        mRegistry.add(photoSlot);
+        mRight.mMask = DragActions.maskOf(DragActions.ACTION_DROP);
+        mRegistry.onSubscriptionsChanged();
+        mMachine.start(mRegistry);
+
+        assertEquals(1, mMachine.getCandidates(DragActions.ACTION_DRAG_LOCATION).size());
+        assertSame(mLeft, mMachine.getCandidates(DragActions.ACTION_DRAG_LOCATION).get(0));
+        assertEquals(2, mMachine.getCandidates(DragActions.ACTION_DROP).size());
+        mMachine.move(50, 50);
+        mMachine.move(60, 50);
+        assertEquals(0, photoSlot.mHitTests);
+
+        // Targets added and subscriptions changed during the drag are picked up
+        TestTarget late = new TestTarget("late", 400, 0, 500, 100);
+        mRegistry.add(late);
+        mRight.mMask = DragActions.MASK_ALL;
+        mRegistry.onSubscriptionsChanged();
+        assertEquals(3, mMachine.getCandidates(DragActions.ACTION_DRAG_LOCATION).size());
+        assertSame(late, mMachine.getCandidates(DragActions.ACTION_DRAG_LOCATION).get(2));
+        mMachine.move(450, 50);
+        mMachine.drop();
+
+        assertEquals("started entered:left location location exited:left entered:late location drop:late ended", mMachine.log());
+        assertEquals(1, photoSlot.mAcceptsCalls);
+        assertEquals(0, photoSlot.mHitTests);
+        assertTrue(mMachine.getCandidates(DragActions.ACTION_DROP).isEmpty());
+    }
+
+    @Test
+    public void subscribers_keepRegistrationOrder() {
+        mLeft.mMask = DragActions.maskOf(DragActions.ACTION_DROP);
+        mRegistry.onSubscriptionsChanged();
+
+        assertEquals(1, mRegistry.getSubscribers(DragActions.ACTION_DRAG_LOCATION).size());
+        assertSame(mRight, mRegistry.getSubscribers(DragActions.ACTION_DRAG_LOCATION).get(0));
+
+        mLeft.mMask = DragActions.MASK_ALL;
+        mRegistry.onSubscriptionsChanged();
+        assertSame(mLeft, mRegistry.getSubscribers(DragActions.ACTION_DRAG_LOCATION).get(0));
+    }
+
+    @Test
+    public void regions_areHoveredLikeTargets() {
+        TestTarget host = new TestTarget("host", 0, 200, 1000, 300);
+        host.mRegions = new DropRegions();
+        host.mRegions.put(7, 0, 0, 100, 100);
+        host.mRegions.put(8, 100, 0, 200, 100);
+        mRegistry.add(host);
+
+        mMachine.start(mRegistry);
+        mMachine.move(50, 250);
+        mMachine.move(60, 250);
+        mMachine.move(150, 250);
+        // Inside the host but outside of its regions
+        mMachine.move(500, 250);
+        mMachine.move(150, 250);
+        assertEquals(8, mMachine.getEnteredRegion());
+        mMachine.drop();
+
+        assertEquals("started entered:host#7 location location exited:host#7 entered:host#8 location exited:host#8 location entered:host#8 location drop:host#8 ended",
+                mMachine.log());
+        assertEquals(DropTarget.NO_REGION, mMachine.getEnteredRegion());
+    }
+
+    @Test
+    public void regionGaps_hoverTheTargetBelow() {
+        // A host on top of left with a single region, its gap lies over left
+        TestTarget host = new TestTarget("host", 0, 0, 200, 100);
+        host.mRegions = new DropRegions();
+        host.mRegions.put(7, 100, 0, 200, 100);
+        mRegistry.remove(mLeft);
+        mRegistry.remove(mRight);
+        mRegistry.add(host);
+        mRegistry.add(mLeft);
+
+        mMachine.start(mRegistry);
+        mMachine.move(150, 50);
+        mMachine.move(50, 50);
+        mMachine.drop();
+
+        assertEquals("started entered:host#7 location exited:host#7 entered:left location drop:left ended", mMachine.log());
+    }
+
+    @Test
+    public void regions_putAndRemove() {
+        DropRegions regions = new DropRegions();
+        for (int i = 0; i < 1000; i++) {
+            regions.put(i, i * 10, 0, i * 10 + 10, 10);
+        }
+        assertEquals(500, regions.find(5005, 5));
+        regions.put(500, 0, 20, 10, 30);
+        assertEquals(DropTarget.NO_REGION, regions.find(5005, 5));
+        assertEquals(500, regions.find(5, 25));
+        assertTrue(regions.remove(500));
+        assertFalse(regions.remove(500));
+        assertEquals(DropTarget.NO_REGION, regions.find(5, 25));
+        assertEquals(999, regions.size());
+        assertNull(regions.getBounds(500));
+        assertEquals(9990f, regions.getBounds(999).left, 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void regions_negativeId_throws() {
+        new DropRegions().put(DropTarget.NO_REGION, 0, 0, 10, 10);
+    }
+
+    @Test
+    public void shapedTargets_areHoveredOnlyOnTheirShape() {
+        // A round target on top of left: only the disc inside of its bounds is hit
+        TestTarget round = new TestTarget("round", 0, 0, 100, 100);
+        int[] pixels = new int[100 * 100];
+        for (int y = 0; y < 100; y++)
+            for (int x = 0; x < 100; x++)
+                if ((x - 50) * (x - 50) + (y - 50) * (y - 50) < 50 * 50)
+                    pixels[y * 100 + x] = 0xFF000000;
+        round.mShape = AlphaMask.fromArgb(pixels, 100, 100, AlphaMask.DEFAULT_ALPHA_THRESHOLD);
+        mRegistry.remove(mLeft);
+        mRegistry.add(round);
+        mRegistry.add(mLeft);
+
+        mMachine.start(mRegistry);
+        mMachine.move(50, 50);
+        // The transparent corner hovers the target below
+        mMachine.move(5, 5);
+        mMachine.drop();
+
+        assertEquals("started entered:round location exited:round entered:left location drop:left ended", mMachine.log());
+    }
+
+    @Test
+    public void alphaMask_thresholdAndBounds() {
+        AlphaMask mask = AlphaMask.fromArgb(new int[]{0x10FFFFFF, 0x80000000, 0, 0xFF000000}, 2, 2, 0x20);
+        assertFalse(mask.get(0, 0));
+        assertTrue(mask.get(1, 0));
+        assertTrue(mask.contains(1.5f, 1.99f));
+        assertFalse(mask.contains(-0.5f, 0.5f));
+        assertFalse(mask.contains(2f, 1f));
+        mask.set(1, 1, false);
+        assertFalse(mask.get(1, 1));
+
+        AlphaMask big = new AlphaMask(64, 64);
+        assertEquals(512, big.getByteCount());
+    }
+
+    @Test
+    public void metrics_countMovesAndTransitions() {
+        DragMetrics<TestTarget> metrics = new DragMetrics<>();
+        mMachine.setMetrics(metrics);
+        mMachine.start(mRegistry);
+        mMachine.move(150, 50);
+        mMachine.move(50, 50);
+        mMachine.move(60, 50);
+        mMachine.move(250, 50);
+        mMachine.drop();
+
+        assertEquals(4, metrics.getMoveCount());
+        assertEquals(2, metrics.getEnterCount());
+        assertEquals(1, metrics.getExitCount());
+        long hitTests = 0;
+        for (int i = 0; i < DragMetrics.HISTOGRAM_BUCKETS; i++) {
+            hitTests += metrics.getHitTestCount(i);
+        }
+        assertEquals(4, hitTests);
+
+        metrics.reset();
+        assertEquals(0, metrics.getMoveCount());
+        assertEquals(-1, metrics.getDropLatencyMillis());
+    }
+
+    @Test
+    public void metrics_histogramBuckets() {
+        assertEquals(0, DragMetrics.bucketOf(0));
+        assertEquals(0, DragMetrics.bucketOf(999));
+        assertEquals(1, DragMetrics.bucketOf(1000));
+        assertEquals(2, DragMetrics.bucketOf(2000));
+        assertEquals(DragMetrics.HISTOGRAM_BUCKETS - 1, DragMetrics.bucketOf(Long.MAX_VALUE));
+        for (int i = 0; i < DragMetrics.HISTOGRAM_BUCKETS - 1; i++) {
+            assertEquals(i + 1, DragMetrics.bucketOf(DragMetrics.getBucketUpperBoundNanos(i)));
+        }
+
+        DragMetrics<String> metrics = new DragMetrics<>();
+        metrics.onDispatch("fast", 10);
+        metrics.onDispatch("slow", 500);
+        metrics.onDispatch("medium", 100);
+        assertEquals(3, metrics.getEventCount());
+        assertEquals(610, metrics.getDispatchNanos());
+        assertEquals("slow", metrics.getSlowestListener());
+
+        // Reported metrics don't keep their targets alive
+        metrics.releaseTargets();
+        assertNull(metrics.getSlowestListener());
+        assertEquals(500, metrics.getSlowestDispatchNanos());
+        metrics.onDispatch("faster", 50);
+        assertNull(metrics.getSlowestListener());
+    }
+
+    @Test
+    public void move_allocatesNothing() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        CountingStateMachine machine = new CountingStateMachine();
+        machine.start(mRegistry);
+        // Warm up
+        for (int i = 0; i < 10000; i++) {
+            machine.move(i % 400, 50);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadBean.getThreadAllocatedBytes(threadId) - before;
+        before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            machine.move(i % 400, 50);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertTrue(machine.mTransitions > 0);
+        assertEquals(0, allocated);
+    }
+
+    /**
+     * A drop target with fixed bounds
+     */
+    private static class TestTarget implements DropTarget {
+        private final String mName;
+        private final Bounds mBounds = new Bounds();
+        private final Bounds mActualBounds = new Bounds();
+        private boolean mValid = false;
+        private int mMask = DragActions.MASK_ALL;
+        private DropRegions mRegions;
+        private AlphaMask mShape;
+        private boolean mAccepts = true;
+        private int mAcceptsCalls = 0;
+        // The number of times the target was hit-tested inside of its bounds
+        private int mHitTests = 0;
+
+        TestTarget(String name, float left, float top, float right, float bottom) {
+            mName = name;
+            mActualBounds.set(left, top, right, bottom);
+        }
+
+        void moveTo(float left, float top) {
+            mActualBounds.set(left, top, left + mActualBounds.width(), top + mActualBounds.height());
+        }
+
+        @Override
+        public Bounds getBounds() {
+            if (!mValid)
+                updateBounds();
+            return mBounds;
+        }
+
+        @Override
+        public boolean hasValidBounds() {
+            return mValid;
+        }
+
+        @Override
+        public void updateBounds() {
+            mBounds.set(mActualBounds.left, mActualBounds.top, mActualBounds.right, mActualBounds.bottom);
+            mValid = true;
+        }
+
+        @Override
+        public void invalidateBounds() {
+            mValid = false;
+        }
+
+        @Override
+        public void offsetBounds(float dx, float dy) {
+            mBounds.offset(dx, dy);
+        }
+
+        @Override
+        public boolean subscribesTo(int action) {
+            return (mMask & DragActions.maskOf(action)) != 0;
+        }
+
+        @Override
+        public boolean hasRegions() {
+            return mRegions != null;
+        }
+
+        @Override
+        public int findRegion(float x, float y) {
+            return mRegions.find(x - getBounds().left, y - getBounds().top);
+        }
+
+        @Override
+        public boolean hasShape() {
+            mHitTests++;
+            return mShape != null;
+        }
+
+        @Override
+        public boolean shapeContains(float x, float y) {
+            return mShape.contains(x - getBounds().left, y - getBounds().top);
+        }
+
+        @Override
+        public String toString() {
+            return mName;
+        }
+    }
+
+    /**
+     * A state machine that logs its transitions
+     */
+    private static class RecordingStateMachine extends DragStateMachine<TestTarget> {
+        private final StringBuilder mLog = new StringBuilder();
+
+        String log() {
+            return mLog.toString().trim();
+        }
+
+        private static String region(int region) {
+            return region != DropTarget.NO_REGION ? "#" + region : "";
+        }
+
+        @Override
+        protected boolean accepts(TestTarget target) {
+            target.mAcceptsCalls++;
+            return target.mAccepts;
+        }
+
+        @Override
+        protected void onDragStarted() {
+            mLog.append("started ");
+        }
+
+        @Override
+        protected void onDragEntered(TestTarget target, int region) {
+            mLog.append("entered:").append(target).append(region(region)).append(' ');
+        }
+
+        @Override
+        protected void onDragExited(TestTarget target, int region) {
+            mLog.append("exited:").append(target).append(region(region)).append(' ');
+        }
+
+        @Override
+        protected void onDragLocation() {
+            mLog.append("location ");
+        }
+
+        @Override
+        protected void onDrop(TestTarget target, int region) {
+            mLog.append("drop:").append(target).append(region(region)).append(' ');
+        }
+
+        @Override
+        protected void onDragEnded() {
+            mLog.append("ended ");
+        }
+    }
+
+    /**
+     * A state machine that only counts its transitions
+     */
+    private static class CountingStateMachine extends DragStateMachine<TestTarget> {
+        private int mTransitions = 0;
+
+        @Override
+        protected void onDragStarted() {
+        }
+
+        @Override
+        protected void onDragEntered(TestTarget target, int region) {
+            mTransitions++;
+        }
+
+        @Override
+        protected void onDragExited(TestTarget target, int region) {
+            mTransitions++;
+        }
+
+        @Override
+        protected void onDragLocation() {
+        }
+
+        @Override
+        protected void onDrop(TestTarget target, int region) {
+        }
+
+        @Override
+        protected void onDragEnded() {
+        }
+    }
+}
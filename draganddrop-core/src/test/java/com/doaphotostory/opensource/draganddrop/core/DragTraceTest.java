@@ -0,0 +1,105 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the binary drag trace format
+ */
+public class DragTraceTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DragTraceWriter writer = new DragTraceWriter(out);
+        writer.writeMotion(2, 0, 0x7f0a0001, 2, 12.5f, -40f);
+        writer.writeSample(1000, 100f, 200f);
+        writer.writeSample(1004, 101.25f, 199.5f);
+        writer.writeSample(1008, 103.0625f, 197f);
+        writer.writeDispatch(DragActions.ACTION_DRAG_ENTERED, -1, 42, 1009);
+        writer.writeMotion(1, 1, 0x7f0a0001, 0, 12.5f, -40f);
+        writer.writeSample(1016, 90f, 210f);
+        writer.close();
+
+        DragTraceReader reader = new DragTraceReader(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(reader.next());
+        assertEquals(DragTrace.RECORD_MOTION, reader.getType());
+        assertEquals(2, reader.getAction());
+        assertEquals(0x7f0a0001, reader.getTargetId());
+        assertEquals(12.5f, reader.getOffsetX(), 0f);
+        assertEquals(-40f, reader.getOffsetY(), 0f);
+        assertEquals(3, reader.getSampleCount());
+        assertEquals(1004, reader.getSampleTime(1));
+        assertEquals(101.25f, reader.getSampleRawX(1), 0f);
+        assertEquals(103.0625f, reader.getSampleRawX(2), 0f);
+        assertEquals(1008, reader.getEventTime());
+
+        assertTrue(reader.next());
+        assertEquals(DragTrace.RECORD_DISPATCH, reader.getType());
+        assertEquals(DragActions.ACTION_DRAG_ENTERED, reader.getAction());
+        assertEquals(-1, reader.getTargetId());
+        assertEquals(42, reader.getRegionId());
+        assertEquals(1009, reader.getEventTime());
+
+        assertTrue(reader.next());
+        assertEquals(1, reader.getPointerId());
+        assertEquals(1, reader.getSampleCount());
+        assertEquals(1016, reader.getSampleTime(0));
+        assertEquals(210f, reader.getSampleRawY(0), 0f);
+
+        assertFalse(reader.next());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void moves_areCompact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DragTraceWriter writer = new DragTraceWriter(out);
+        // A drag of 1000 moves at 120Hz with a few pixels between the samples
+        for (int i = 0; i < 1000; i++) {
+            writer.writeMotion(2, 0, 0x7f0a0001, 0, 0f, -63f);
+            writer.writeSample(1000000 + i * 8, 300f + i * 2.5f, 900f - i * 1.75f);
+        }
+        writer.close();
+
+        // 10 bytes per move at most instead of the 30+ of fixed size fields
+        assertTrue(out.size() < 10 * 1000);
+    }
+
+    @Test(expected = IOException.class)
+    public void noTrace_throws() throws IOException {
+        new DragTraceReader(new ByteArrayInputStream("not a trace".getBytes()));
+    }
+
+    @Test
+    public void truncatedTrace_throws() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DragTraceWriter writer = new DragTraceWriter(out);
+        writer.writeMotion(2, 0, 1, 0, 0f, 0f);
+        writer.writeSample(1000, 100f, 200f);
+        writer.close();
+        byte[] trace = out.toByteArray();
+
+        DragTraceReader reader = new DragTraceReader(new ByteArrayInputStream(Arrays.copyOf(trace, trace.length - 3)));
+        try {
+            reader.next();
+            fail();
+        } catch (IOException e) {
+            assertEquals(DragTraceReader.EXCEPTION_IO_TRUNCATED, e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missingSamples_throw() throws IOException {
+        DragTraceWriter writer = new DragTraceWriter(new ByteArrayOutputStream());
+        writer.writeMotion(2, 0, 1, 1, 0f, 0f);
+        writer.writeSample(1000, 100f, 200f);
+        writer.writeDispatch(DragActions.ACTION_DROP, 1, DropTarget.NO_REGION, 1000);
+    }
+}
@@ -0,0 +1,126 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the {@link DroppableIndex}
+ */
+public class DroppableIndexTest {
+
+    @Test
+    public void find_returnsContainingItem() {
+        DroppableIndex<String> index = new DroppableIndex<>();
+        index.add("a", 0, 0, 100, 100);
+        index.add("b", 200, 0, 300, 100);
+
+        assertEquals("a", index.find(50, 50));
+        assertEquals("b", index.find(200, 0));
+        assertNull(index.find(150, 50));
+        assertNull(index.find(300, 50));
+        assertNull(index.find(-1, 50));
+    }
+
+    @Test
+    public void find_prefersFirstAddedOnOverlap() {
+        DroppableIndex<String> index = new DroppableIndex<>();
+        index.add("a", 0, 0, 100, 100);
+        index.add("b", 50, 50, 150, 150);
+
+        assertEquals("a", index.find(75, 75));
+        assertEquals("b", index.find(125, 125));
+    }
+
+    @Test
+    public void addAndRemove_afterQuery() {
+        DroppableIndex<String> index = new DroppableIndex<>();
+        index.add("a", 0, 0, 100, 100);
+        assertEquals("a", index.find(50, 50));
+
+        index.add("b", 500, 500, 600, 600);
+        assertEquals("b", index.find(550, 550));
+
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertNull(index.find(50, 50));
+        assertEquals("b", index.find(550, 550));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void update_movesItem() {
+        DroppableIndex<String> index = new DroppableIndex<>();
+        index.add("a", 0, 0, 100, 100);
+        assertEquals("a", index.find(50, 50));
+
+        assertTrue(index.update("a", 1000, 1000, 1100, 1100));
+        assertNull(index.find(50, 50));
+        assertEquals("a", index.find(1050, 1050));
+    }
+
+    @Test
+    public void find_ignoresEmptyBounds() {
+        DroppableIndex<String> index = new DroppableIndex<>();
+        index.add("a", 10, 10, 10, 50);
+        assertNull(index.find(10, 20));
+    }
+
+    @Test
+    public void find_matchesLinearScan() {
+        Random random = new Random(42);
+        DroppableIndex<Integer> index = new DroppableIndex<>();
+        float[][] bounds = new float[500][];
+        for (int i = 0; i < bounds.length; i++) {
+            float left = random.nextInt(2000), top = random.nextInt(4000);
+            bounds[i] = new float[]{left, top, left + 20 + random.nextInt(300), top + 20 + random.nextInt(300)};
+            index.add(i, bounds[i][0], bounds[i][1], bounds[i][2], bounds[i][3]);
+        }
+        for (int sample = 0; sample < 10000; sample++) {
+            float x = random.nextInt(2400) - 100, y = random.nextInt(4400) - 100;
+            Integer expected = null;
+            for (int i = 0; i < bounds.length && expected == null; i++) {
+                if (x >= bounds[i][0] && x < bounds[i][2] && y >= bounds[i][1] && y < bounds[i][3])
+                    expected = i;
+            }
+            assertEquals(expected, index.find(x, y));
+        }
+    }
+
+    @Test
+    public void update_scrollSteps_matchLinearScan() {
+        Random random = new Random(7);
+        DroppableIndex<Integer> index = new DroppableIndex<>();
+        float[][] bounds = new float[300][];
+        // Items are found by identity
+        Integer[] items = new Integer[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            items[i] = i;
+            float left = random.nextInt(1000), top = random.nextInt(3000);
+            bounds[i] = new float[]{left, top, left + 20 + random.nextInt(200), top + 20 + random.nextInt(200)};
+            index.add(items[i], bounds[i][0], bounds[i][1], bounds[i][2], bounds[i][3]);
+        }
+        // The first half is inside a container that scrolls up in small steps, past the top of the grid
+        for (int step = 0; step < 100; step++) {
+            for (int i = 0; i < bounds.length / 2; i++) {
+                bounds[i][1] -= 7;
+                bounds[i][3] -= 7;
+                assertTrue(index.update(items[i], bounds[i][0], bounds[i][1], bounds[i][2], bounds[i][3]));
+            }
+            for (int sample = 0; sample < 100; sample++) {
+                float x = random.nextInt(1300) - 100, y = random.nextInt(3900) - 800;
+                Integer expected = null;
+                for (int i = 0; i < bounds.length && expected == null; i++) {
+                    if (x >= bounds[i][0] && x < bounds[i][2] && y >= bounds[i][1] && y < bounds[i][3])
+                        expected = i;
+                }
+                assertEquals(expected, index.find(x, y));
+            }
+        }
+        assertTrue(index.remove(items[0]));
+        assertTrue(index.update(items[bounds.length - 1], 0, 0, 10, 10));
+        assertSame(items[bounds.length - 1], index.find(5, 5));
+    }
+}
@@ -0,0 +1,31 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the auto-scroll velocity of {@link EdgeScroll}
+ */
+public class EdgeScrollTest {
+
+    @Test
+    public void velocity_isProportionalToEdgeDepth() {
+        assertEquals(0f, EdgeScroll.velocity(500, 0, 1000, 100, 2000), 0f);
+        assertEquals(0f, EdgeScroll.velocity(100, 0, 1000, 100, 2000), 0f);
+        assertEquals(-1000f, EdgeScroll.velocity(50, 0, 1000, 100, 2000), 0.01f);
+        assertEquals(-2000f, EdgeScroll.velocity(0, 0, 1000, 100, 2000), 0.01f);
+        assertEquals(500f, EdgeScroll.velocity(925, 0, 1000, 100, 2000), 0.01f);
+        // Beyond the container the velocity stays at its maximum
+        assertEquals(2000f, EdgeScroll.velocity(1200, 0, 1000, 100, 2000), 0.01f);
+        assertEquals(-2000f, EdgeScroll.velocity(-50, 0, 1000, 100, 2000), 0.01f);
+    }
+
+    @Test
+    public void velocity_smallContainer_usesHalfOfIt() {
+        // Edge zones of 100 would overlap, each gets half of the container
+        assertEquals(-1000f, EdgeScroll.velocity(30, 0, 120, 100, 2000), 0.01f);
+        assertEquals(1000f, EdgeScroll.velocity(90, 0, 120, 100, 2000), 0.01f);
+        assertEquals(0f, EdgeScroll.velocity(0, 0, 0, 100, 2000), 0f);
+    }
+}
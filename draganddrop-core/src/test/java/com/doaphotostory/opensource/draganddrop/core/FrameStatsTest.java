@@ -0,0 +1,61 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the dropped frame counting of {@link FrameStats}
+ */
+public class FrameStatsTest {
+
+    private static final long INTERVAL = 16000000;
+
+    @Test
+    public void steadyFrames_dropNothing() {
+        FrameStats stats = new FrameStats();
+        stats.reset(INTERVAL);
+        for (int i = 0; i < 60; i++) {
+            // Some vsync jitter
+            stats.onFrame(i * INTERVAL + (i % 2) * 2000000);
+        }
+        assertEquals(60, stats.getFrameCount());
+        assertEquals(0, stats.getDroppedFrameCount());
+        assertEquals(INTERVAL + 2000000, stats.getWorstFrameNanos());
+    }
+
+    @Test
+    public void gaps_countMissedIntervals() {
+        FrameStats stats = new FrameStats();
+        stats.reset(INTERVAL);
+        stats.onFrame(0);
+        stats.onFrame(INTERVAL);
+        // Three intervals: two frames missed
+        stats.onFrame(4 * INTERVAL);
+        // 1.4 intervals: within the slack
+        stats.onFrame(4 * INTERVAL + INTERVAL * 14 / 10);
+        assertEquals(4, stats.getFrameCount());
+        assertEquals(2, stats.getDroppedFrameCount());
+        assertEquals(3 * INTERVAL, stats.getWorstFrameNanos());
+        assertEquals(4 * INTERVAL + INTERVAL * 14 / 10, stats.getDurationNanos());
+
+        stats.reset(0);
+        assertEquals(0, stats.getFrameCount());
+        assertEquals(FrameStats.DEFAULT_FRAME_INTERVAL_NANOS, stats.getFrameIntervalNanos());
+    }
+
+    @Test
+    public void renderedFrames_countTheIntervalsTheyTook() {
+        FrameStats stats = new FrameStats();
+        stats.reset(INTERVAL);
+        stats.onFrameRendered(0, INTERVAL / 2);
+        // An idle second without frames drops nothing
+        stats.onFrameRendered(60 * INTERVAL, INTERVAL);
+        // Two and a half intervals: the display showed the previous frame twice more
+        stats.onFrameRendered(61 * INTERVAL, INTERVAL * 5 / 2);
+        assertEquals(3, stats.getFrameCount());
+        assertEquals(2, stats.getDroppedFrameCount());
+        assertEquals(INTERVAL * 5 / 2, stats.getWorstFrameNanos());
+        assertEquals(61 * INTERVAL, stats.getDurationNanos());
+    }
+}
@@ -0,0 +1,55 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the location throttling of {@link LocationThrottle}
+ */
+public class LocationThrottleTest {
+
+    @Test
+    public void noMinimums_passesEverything() {
+        LocationThrottle throttle = new LocationThrottle(0, 0);
+        assertFalse(throttle.isThrottling());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttle.offer(0, 0, 0));
+        }
+        assertEquals(0, throttle.getSuppressedCount());
+    }
+
+    @Test
+    public void minDistance_measuresFromThePassedLocation() {
+        LocationThrottle throttle = new LocationThrottle(10, 0);
+        assertTrue(throttle.offer(0, 0, 0));
+        assertFalse(throttle.offer(6, 0, 8));
+        // 12px from the passed location, although only 6px from the suppressed one
+        assertTrue(throttle.offer(12, 0, 16));
+        assertFalse(throttle.offer(12, 9, 24));
+        assertTrue(throttle.offer(18, 8, 32));
+        assertEquals(2, throttle.getSuppressedCount());
+    }
+
+    @Test
+    public void bothMinimums_mustBePassed() {
+        LocationThrottle throttle = new LocationThrottle(10, 50);
+        assertTrue(throttle.offer(0, 0, 0));
+        // Far enough, but too soon
+        assertFalse(throttle.offer(100, 0, 10));
+        // Late enough, but too close
+        assertFalse(throttle.offer(5, 0, 60));
+        assertTrue(throttle.offer(100, 0, 60));
+        assertEquals(2, throttle.getSuppressedCount());
+
+        // The next drag starts over
+        throttle.reset();
+        assertEquals(0, throttle.getSuppressedCount());
+        assertTrue(throttle.offer(100, 0, 61));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeMinimum_throws() {
+        new LocationThrottle(-1, 0);
+    }
+}
@@ -0,0 +1,148 @@
+package com.doaphotostory.opensource.draganddrop.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the {@link PointerPredictor}, measured by replaying synthetic
+ * drag traces with the {@link PredictionReplay} harness
+ */
+public class PointerPredictorTest {
+
+    // 120Hz touch samples, predicted one 60Hz frame ahead
+    private static final int SAMPLE_INTERVAL = 8;
+    private static final long HORIZON = 16;
+
+    @Test
+    public void straightLine_isPredictedExactly() throws IOException {
+        byte[] trace = record(new Path() {
+            @Override
+            public float x(long t) {
+                return 100 + t * 1.5f;
+            }
+
+            @Override
+            public float y(long t) {
+                return 300 - t * 0.5f;
+            }
+        }, 400, 0);
+        PredictionReplay.Result result = PredictionReplay.measure(new ByteArrayInputStream(trace), new PointerPredictor(), HORIZON);
+
+        assertTrue(result.getCount() > 40);
+        assertTrue(result.toString(), result.getMeanBaselineError() > 20);
+        assertTrue(result.toString(), result.getMeanError() < 2);
+    }
+
+    @Test
+    public void curvedAndNoisyDrag_trailsLess() throws IOException {
+        byte[] trace = record(new Path() {
+            @Override
+            public float x(long t) {
+                return 500 + 300 * (float) Math.cos(t / 300.0);
+            }
+
+            @Override
+            public float y(long t) {
+                return 500 + 300 * (float) Math.sin(t / 300.0);
+            }
+        }, 1500, 0.5f);
+        PredictionReplay.Result result = PredictionReplay.measure(new ByteArrayInputStream(trace), new PointerPredictor(), HORIZON);
+
+        assertTrue(result.toString(), result.getMeanError() < result.getMeanBaselineError() / 2);
+    }
+
+    @Test
+    public void sharpTurns_arentOvershot() throws IOException {
+        // Zigzag: reverses its direction every 96ms
+        byte[] trace = record(new Path() {
+            @Override
+            public float x(long t) {
+                long phase = t % 192;
+                return 200 + (phase < 96 ? phase : 192 - phase) * 2f;
+            }
+
+            @Override
+            public float y(long t) {
+                return 200;
+            }
+        }, 960, 0);
+        PointerPredictor predictor = new PointerPredictor();
+        PredictionReplay.Result result = PredictionReplay.measure(new ByteArrayInputStream(trace), predictor, HORIZON);
+
+        // Never further off than the clamp allows on top of the trailing error
+        assertTrue(result.toString(), result.getMaxError() <= result.getMaxBaselineError() + PointerPredictor.DEFAULT_MAX_DISTANCE);
+        assertTrue(result.toString(), result.getMeanError() < result.getMeanBaselineError());
+    }
+
+    @Test
+    public void sharpTurn_suppressesPrediction() {
+        PointerPredictor predictor = new PointerPredictor();
+        predictor.addSample(0, 0, 0);
+        predictor.addSample(8, 16, 0);
+        predictor.addSample(16, 32, 0);
+        predictor.predict(32);
+        assertFalse(predictor.isSuppressed());
+        assertEquals(64, predictor.getPredictedX(), 1);
+
+        // Reverses
+        predictor.addSample(24, 16, 0);
+        assertTrue(predictor.isSuppressed());
+        predictor.predict(40);
+        assertEquals(16, predictor.getPredictedX(), 0);
+
+        // Keeps the new direction
+        predictor.addSample(32, 0, 0);
+        assertFalse(predictor.isSuppressed());
+    }
+
+    @Test
+    public void prediction_isClamped() {
+        PointerPredictor predictor = new PointerPredictor();
+        predictor.setMaxDistance(10);
+        predictor.setMaxHorizonMillis(1000);
+        for (int i = 0; i < 10; i++) {
+            predictor.addSample(i * 8, i * 80, 0);
+        }
+        predictor.predict(72 + 500);
+        assertEquals(720 + 10, predictor.getPredictedX(), 0.01f);
+
+        // A pause starts over
+        predictor.addSample(1000, 720, 0);
+        predictor.predict(1016);
+        assertEquals(720, predictor.getPredictedX(), 0);
+    }
+
+    /**
+     * Records a drag along a path as a trace: DOWN, MOVEs with one historical sample each and UP
+     */
+    private static byte[] record(Path path, long duration, float noise) throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DragTraceWriter writer = new DragTraceWriter(out);
+        writer.writeMotion(0, 0, 1, 0, 0, 0);
+        writer.writeSample(0, path.x(0), path.y(0));
+        for (long t = 2 * SAMPLE_INTERVAL; t < duration; t += 2 * SAMPLE_INTERVAL) {
+            writer.writeMotion(2, 0, 1, 1, 0, 0);
+            for (long s = t - SAMPLE_INTERVAL; s <= t; s += SAMPLE_INTERVAL) {
+                writer.writeSample(s, path.x(s) + (float) random.nextGaussian() * noise,
+                        path.y(s) + (float) random.nextGaussian() * noise);
+            }
+        }
+        writer.writeMotion(1, 0, 1, 0, 0, 0);
+        writer.writeSample(duration, path.x(duration), path.y(duration));
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private interface Path {
+        float x(long t);
+
+        float y(long t);
+    }
+}
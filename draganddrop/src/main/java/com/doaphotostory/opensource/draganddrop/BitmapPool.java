@@ -0,0 +1,151 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+
+/**
+ * BitmapPool keeps a few bitmaps that are no longer used, so snapshots (i.e. drag shadows)
+ * don't allocate a new bitmap for every drag. Bitmaps are reused for the same size, on API 19
+ * and above also for smaller sizes by reconfiguring a big enough one.
+ * The pool is bounded by bytes and drops the oldest bitmaps first.
+ * Must be used on the UI thread.
+ */
+public class BitmapPool {
+
+    // Default size: 1/16 of the heap, but at most 16 MiB
+    private static final int DEFAULT_MAX_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 16 * 1024 * 1024);
+
+    // The process wide instance
+    private static BitmapPool INSTANCE;
+
+    // The pooled bitmaps, oldest first
+    private final ArrayList<Bitmap> mBitmaps = new ArrayList<>();
+    private final int mMaxBytes;
+    private int mSizeBytes = 0;
+
+    /**
+     * Constructs a pool with a maximum size
+     * @param maxBytes the maximum size of the pooled bitmaps in bytes
+     */
+    private BitmapPool(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Get the process wide pool
+     * @return the bitmap pool
+     */
+    public static BitmapPool getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new BitmapPool(DEFAULT_MAX_BYTES);
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the process wide pool by an empty one with a new maximum size
+     * @param maxBytes the maximum size of the pooled bitmaps in bytes
+     */
+    public static void setMaxBytes(int maxBytes) {
+        if (INSTANCE != null)
+            INSTANCE.clear();
+        INSTANCE = new BitmapPool(maxBytes);
+    }
+
+    /**
+     * Get a mutable ARGB_8888 bitmap of a size, reused from the pool if possible.
+     * Its content is undefined, erase it before drawing.
+     * @param width the width in px
+     * @param height the height in px
+     * @return the bitmap
+     */
+    public Bitmap get(int width, int height) {
+        int bytes = width * height * 4;
+        boolean reconfigurable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+        for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+            Bitmap bitmap = mBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height)
+                return take(i);
+            if (reconfigurable && bitmap.getAllocationByteCount() >= bytes) {
+                bitmap = take(i);
+                bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Puts a bitmap that's no longer used into the pool. It must not be used afterwards.
+     * @param bitmap the bitmap
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888)
+            return;
+        int bytes = byteCountOf(bitmap);
+        if (bytes > mMaxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        mBitmaps.add(bitmap);
+        mSizeBytes += bytes;
+        while (mSizeBytes > mMaxBytes)
+            take(0).recycle();
+    }
+
+    /**
+     * Recycles all pooled bitmaps
+     */
+    public void clear() {
+        while (!mBitmaps.isEmpty())
+            take(0).recycle();
+    }
+
+    /**
+     * Removes a bitmap from the pool
+     */
+    private Bitmap take(int index) {
+        Bitmap bitmap = mBitmaps.remove(index);
+        mSizeBytes -= byteCountOf(bitmap);
+        return bitmap;
+    }
+
+    private static int byteCountOf(Bitmap bitmap) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT ? bitmap.getAllocationByteCount() : bitmap.getByteCount();
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the size of the pooled bitmaps
+     * @return the size in bytes
+     */
+    public int getSizeBytes() {
+        return mSizeBytes;
+    }
+
+    /**
+     * Get the number of pooled bitmaps
+     * @return the bitmap count
+     */
+    public int getCount() {
+        return mBitmaps.size();
+    }
+}
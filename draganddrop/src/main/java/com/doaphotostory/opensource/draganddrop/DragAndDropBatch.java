@@ -0,0 +1,166 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import java.util.Arrays;
+
+/**
+ * DragAndDropBatch holds the {@link DragAndDropEvent}s a droppable got during one frame, in the
+ * order they happened. Listeners that do heavy work (i.e. redraw a drop preview) get the whole
+ * frame at once and can collapse their work to one update, see
+ * {@link DragAndDroppable#setOnDragBatchListener(DragAndDroppable.OnDragBatchListener)}.
+ *
+ * The batch is read-only and reused for the next frame, so it's only valid during the
+ * {@link DragAndDroppable.OnDragBatchListener#onDragBatch(DragAndDroppable, DragAndDropBatch)}
+ * call it's passed to. The arrays are reused, so batching doesn't allocate once they're big enough.
+ */
+public final class DragAndDropBatch {
+
+    private int[] mAction = new int[16];
+    private int[] mRegionId = new int[16];
+    private float[] mRawX = new float[16];
+    private float[] mRawY = new float[16];
+    private long[] mEventTime = new long[16];
+    private DragAndDroppable[] mDragged = new DragAndDroppable[16];
+    private int mSize = 0;
+
+    /**
+     * Constructs an empty batch
+     */
+    DragAndDropBatch() {
+    }
+
+    /**
+     * Adds the values of an event, the event itself is recycled after it's been delivered
+     *
+     * @param dragged the object that is being dragged
+     * @param ev the event
+     */
+    void add(DragAndDroppable dragged, DragAndDropEvent ev) {
+        if (mSize == mAction.length) {
+            mAction = Arrays.copyOf(mAction, mSize * 2);
+            mRegionId = Arrays.copyOf(mRegionId, mSize * 2);
+            mRawX = Arrays.copyOf(mRawX, mSize * 2);
+            mRawY = Arrays.copyOf(mRawY, mSize * 2);
+            mEventTime = Arrays.copyOf(mEventTime, mSize * 2);
+            mDragged = Arrays.copyOf(mDragged, mSize * 2);
+        }
+        mAction[mSize] = ev.getAction();
+        mRegionId[mSize] = ev.getRegionId();
+        mRawX[mSize] = ev.getMotionEvent().getRawX();
+        mRawY[mSize] = ev.getMotionEvent().getRawY();
+        mEventTime[mSize] = ev.getMotionEvent().getEventTime();
+        mDragged[mSize] = dragged;
+        mSize++;
+    }
+
+    /**
+     * Removes all events
+     */
+    void clear() {
+        // Don't keep the dragged objects alive until the next frame
+        Arrays.fill(mDragged, 0, mSize, null);
+        mSize = 0;
+    }
+
+    /**
+     * Get the position of the newest event with an action, i.e. to only handle the newest
+     * ACTION_DRAG_LOCATION of the frame
+     *
+     * @param action the drag action
+     * @return the position or -1 if there's no event with this action
+     */
+    public int lastIndexOf(int action) {
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mAction[i] == action)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of events in this batch
+     *
+     * @return the number of events
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Get the action of an event
+     *
+     * @param pos the event position, oldest first
+     * @return the drag action
+     */
+    public int getAction(int pos) {
+        return mAction[pos];
+    }
+
+    /**
+     * Get the drop region an event is about
+     *
+     * @param pos the event position, oldest first
+     * @return the region id or {@link DragAndDropEvent#NO_REGION}
+     */
+    public int getRegionId(int pos) {
+        return mRegionId[pos];
+    }
+
+    /**
+     * Get the raw x coordinate of the touch sample of an event on the screen
+     *
+     * @param pos the event position, oldest first
+     * @return the raw x coordinate
+     */
+    public float getRawX(int pos) {
+        return mRawX[pos];
+    }
+
+    /**
+     * Get the raw y coordinate of the touch sample of an event on the screen
+     *
+     * @param pos the event position, oldest first
+     * @return the raw y coordinate
+     */
+    public float getRawY(int pos) {
+        return mRawY[pos];
+    }
+
+    /**
+     * Get the time of the touch sample of an event
+     *
+     * @param pos the event position, oldest first
+     * @return the time in {@link android.os.SystemClock#uptimeMillis()}
+     */
+    public long getEventTime(int pos) {
+        return mEventTime[pos];
+    }
+
+    /**
+     * Get the object that is being dragged in an event, a frame may hold the events of
+     * several drags
+     *
+     * @param pos the event position, oldest first
+     * @return the dragged object
+     */
+    public DragAndDroppable getDragged(int pos) {
+        return mDragged[pos];
+    }
+}
@@ -17,24 +17,56 @@ package com.doaphotostory.opensource.draganddrop;
 
 import android.view.MotionEvent;
 
+import com.doaphotostory.opensource.draganddrop.core.DragActions;
+import com.doaphotostory.opensource.draganddrop.core.DropTarget;
+
 /**
  * DragAndDropEvent is a helper class that's closely related to Android's
  * {@link android.view.DragEvent}
  * See the {@link android.view.DragEvent} documentation to learn about the drag events
+ *
+ * DragAndDropEvents are pooled and reused by the {@link DragAndDropManager} to keep the
+ * drag free of allocations. An event (and its {@link MotionEvent}) is only valid during the
+ * {@link DragAndDroppable.OnDragListener#onDrag(DragAndDroppable, DragAndDropEvent)} call it's
+ * passed to. Listeners must not keep a reference to it, copy the values you need instead.
  */
 public class DragAndDropEvent {
 
     // DRAG EVENTS
-    public static final int ACTION_DRAG_STARTED = 0;
-    public static final int ACTION_DRAG_LOCATION = 1;
-    public static final int ACTION_DRAG_ENTERED = 2;
-    public static final int ACTION_DRAG_EXITED = 3;
-    public static final int ACTION_DROP = 4;
-    public static final int ACTION_DRAG_ENDED = 5;
+    public static final int ACTION_DRAG_STARTED = DragActions.ACTION_DRAG_STARTED;
+    public static final int ACTION_DRAG_LOCATION = DragActions.ACTION_DRAG_LOCATION;
+    public static final int ACTION_DRAG_ENTERED = DragActions.ACTION_DRAG_ENTERED;
+    public static final int ACTION_DRAG_EXITED = DragActions.ACTION_DRAG_EXITED;
+    public static final int ACTION_DROP = DragActions.ACTION_DROP;
+    public static final int ACTION_DRAG_ENDED = DragActions.ACTION_DRAG_ENDED;
+
+    // ACTION MASKS
+    // Droppables subscribe to the actions they want to receive with a bitmask of maskOf(action)
+    public static final int ACTION_COUNT = DragActions.ACTION_COUNT;
+    public static final int MASK_NONE = DragActions.MASK_NONE;
+    public static final int MASK_ALL = DragActions.MASK_ALL;
+
+    // REGIONS
+    // The region id of events for droppables without drop regions
+    public static final int NO_REGION = DropTarget.NO_REGION;
+
+    // EXCEPTIONS
+    public static final String EXCEPTION_ILLEGAL_STATE_RECYCLED = "DragAndDropEvent has allready been recycled";
+    public static final String EXCEPTION_ILLEGAL_STATE_NO_DROP = "Drop tasks may only be set on ACTION_DROP events";
+
+    // POOL
+    private static final int MAX_POOL_SIZE = 8;
+    private static final DragAndDropEvent[] POOL = new DragAndDropEvent[MAX_POOL_SIZE];
+    private static int POOL_SIZE = 0;
 
     // INSTANCE FIELD HOLDERS
     private MotionEvent mMotionEvent;
     private int mAction;
+    private int mRegionId = NO_REGION;
+    private DragHistory mHistory;
+    private DropTask<?> mDropTask;
+    private DragGroup mDragGroup;
+    private boolean mRecycled = false;
 
     /**
      * Constructs a simple DragAndDropEvent by supplying a motionEvent and an action
@@ -46,6 +78,51 @@ public class DragAndDropEvent {
         mAction = action;
     }
 
+    /**
+     * Get the bitmask for a drag action
+     * @param action the drag action
+     * @return the mask with only the bit of the action set
+     */
+    public static int maskOf(int action) {
+        return DragActions.maskOf(action);
+    }
+
+    /**
+     * Get a DragAndDropEvent from the pool or create a new one if the pool is empty.
+     * Must be called on the UI thread.
+     * @param motionEvent the motion event that happened during the drag
+     * @param action the drag action
+     * @return a DragAndDropEvent for the motion event and action
+     */
+    public static DragAndDropEvent obtain(MotionEvent motionEvent, int action) {
+        if (POOL_SIZE == 0)
+            return new DragAndDropEvent(motionEvent, action);
+        DragAndDropEvent ev = POOL[--POOL_SIZE];
+        POOL[POOL_SIZE] = null;
+        ev.mMotionEvent = motionEvent;
+        ev.mAction = action;
+        ev.mRecycled = false;
+        return ev;
+    }
+
+    /**
+     * Returns this event to the pool. The event must not be used afterwards.
+     * Must be called on the UI thread.
+     * @throws IllegalStateException If the event has allready been recycled IllegalStateException is thrown
+     */
+    public void recycle() throws IllegalStateException {
+        if (mRecycled)
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_RECYCLED);
+        mRecycled = true;
+        mMotionEvent = null;
+        mHistory = null;
+        mDropTask = null;
+        mDragGroup = null;
+        mRegionId = NO_REGION;
+        if (POOL_SIZE < MAX_POOL_SIZE)
+            POOL[POOL_SIZE++] = this;
+    }
+
     /**
      * GETTERS
      */
@@ -65,12 +142,114 @@ public class DragAndDropEvent {
         return mMotionEvent;
     }
 
+    /**
+     * Get the drop region of the droppable this event is about, see
+     * {@link DragAndDroppable#addDropRegion(int, float, float, float, float)}
+     * @return the region id or {@link #NO_REGION} for events that aren't about a region
+     */
+    public int getRegionId() {
+        return mRegionId;
+    }
+
+    /**
+     * Get the group that's dragged together with the dragged object. Droppables get one event
+     * for the whole group, with the touched member as dragged object.
+     * @return the group or null if the object is dragged alone
+     */
+    public DragGroup getDragGroup() {
+        return mDragGroup;
+    }
+
+    /**
+     * Get the drop task a listener has set on this event
+     * @return the drop task or null if the drop is handled synchronously
+     */
+    public DropTask<?> getDropTask() {
+        return mDropTask;
+    }
+
+    /**
+     * Get the number of touch samples that happened in between the previous drag event and
+     * this one. Samples are only available for droppables that called
+     * {@link DragAndDroppable#setReceiveHistoricalPoints(boolean)}
+     * @return the number of historical samples
+     */
+    public int getHistorySize() {
+        return mHistory == null ? 0 : mHistory.size();
+    }
+
+    /**
+     * Get the raw x coordinate of a historical sample on the screen
+     * @param pos the sample position, oldest first
+     * @return the raw x coordinate
+     */
+    public float getHistoricalRawX(int pos) {
+        return mHistory.getRawX(pos);
+    }
+
+    /**
+     * Get the raw y coordinate of a historical sample on the screen
+     * @param pos the sample position, oldest first
+     * @return the raw y coordinate
+     */
+    public float getHistoricalRawY(int pos) {
+        return mHistory.getRawY(pos);
+    }
+
+    /**
+     * Get the time of a historical sample
+     * @param pos the sample position, oldest first
+     * @return the time in {@link android.os.SystemClock#uptimeMillis()}
+     */
+    public long getHistoricalEventTime(int pos) {
+        return mHistory.getEventTime(pos);
+    }
+
+    /**
+     * SETTERS
+     */
+    /**
+     * Hands the heavy work of a drop to the library: the task runs in the background
+     * after the listener returned and its result is committed on the UI thread, see {@link DropTask}
+     * @param dropTask the drop task
+     * @throws IllegalStateException If this isn't an ACTION_DROP event IllegalStateException is thrown
+     */
+    public void setDropTask(DropTask<?> dropTask) throws IllegalStateException {
+        if (mAction != ACTION_DROP)
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_DROP);
+        mDropTask = dropTask;
+    }
+
+    /**
+     * Set the drop region this event is about
+     * @param regionId the region id or {@link #NO_REGION}
+     */
+    void setRegionId(int regionId) {
+        mRegionId = regionId;
+    }
+
+    /**
+     * Set the group that's dragged together with the dragged object
+     * @param dragGroup the group or null if the object is dragged alone
+     */
+    void setDragGroup(DragGroup dragGroup) {
+        mDragGroup = dragGroup;
+    }
+
+    /**
+     * Set the historical samples that are exposed by this event
+     * @param history the samples or null if there are none
+     */
+    void setHistory(DragHistory history) {
+        mHistory = history;
+    }
+
     /**
      * Overrides the toString method for debugging purposes
      * @return descriptive string for this object
      */
     @Override
     public String toString() {
-        return "motionEvent " + mMotionEvent + " / action " + mAction;
+        return "motionEvent " + mMotionEvent + " / action " + mAction + " / region " + mRegionId;
     }
 }
@@ -15,18 +15,18 @@
  */
 package com.doaphotostory.opensource.draganddrop;
 
-import android.graphics.RectF;
+import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.doaphotostory.opensource.draganddrop.core.DragMetrics;
+import com.doaphotostory.opensource.draganddrop.core.FrameStats;
+import com.doaphotostory.opensource.draganddrop.core.LocationThrottle;
+
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_ENDED;
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_ENTERED;
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_EXITED;
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_LOCATION;
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_STARTED;
-import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DROP;
 
 /**
  * DragAndDropManager is the Manager class to handle the Drag and Drop Events.
@@ -39,96 +39,435 @@ public class DragAndDropManager {
     // LOG TAG
     public static final String TAG = DragAndDropManager.class.getSimpleName();
 
-    // Static holders for drag targets and entered droppables
-    private static DragAndDroppable DRAG_TARGET;
-    private static DragAndDroppable ENTERED_DROPPABLE = null;
-    private static DragAndDroppable.OnDragListener ENTERED_DROPPABLE_LISTENER = null;
+    // The running drag sessions (one per dragging pointer) and finished sessions for reuse
+    private static final ArrayList<DragSession> SESSIONS = new ArrayList<>();
+    private static final ArrayList<DragSession> SESSION_POOL = new ArrayList<>();
+    // Listeners for the metrics of finished drags, metrics are only collected if there are any
+    private static final ArrayList<DragMetricsListener> METRICS_LISTENERS = new ArrayList<>();
+    // Listeners for the jank reports of finished drags, frames are only recorded if there are any
+    private static final ArrayList<DragJankListener> JANK_LISTENERS = new ArrayList<>();
+    // Records the drags if set
+    private static DragTraceRecorder TRACE_RECORDER;
+    // Throttling policy of ACTION_DRAG_LOCATION for droppables without their own, 0 to not throttle
+    private static int LOCATION_MIN_DISTANCE_DP = 0;
+    private static long LOCATION_MIN_INTERVAL_MILLIS = 0;
 
-    // The hash map of the droppable objects and its listeners that will be iterated through
-    // on every drag event
-    private static ArrayList<DragAndDroppable> mDroppableListeners = new ArrayList<>();
+    /**
+     * DRAG METRICS LISTENER INTERFACE
+     */
+    public interface DragMetricsListener {
+        /**
+         * Called when a drag session has ended. The metrics are reused for the next
+         * session and release the slowest listener once this returns, so copy what you want to keep.
+         * @param dragAndDroppable the object that has been dragged
+         * @param metrics the metrics of the session
+         */
+        void onDragMetrics(DragAndDroppable dragAndDroppable, DragMetrics<DragAndDroppable> metrics);
+    }
+
+    /**
+     * DRAG JANK LISTENER INTERFACE
+     */
+    public interface DragJankListener {
+        /**
+         * Called when a drag session has ended, right after ACTION_DRAG_ENDED has been
+         * dispatched. The stats are reused for the next session, so copy the numbers you want to keep.
+         * @param dragAndDroppable the object that has been dragged
+         * @param frameStats the frames rendered and dropped during the session
+         */
+        void onDragJank(DragAndDroppable dragAndDroppable, FrameStats frameStats);
+    }
 
     /**
      * The onDrag method is called if a drag on a {@link DragAndDroppable} has been started
      * and various {@link DragAndDropEvent}s occur.
-     * It saves the current DRAG_TARGET and possible droppables that are hovered and informs
-     * all registered droppables about {@link DragAndDropEvent}.
+     * The first call for a {@link DragAndDroppable} starts a {@link DragSession} that tracks
+     * possible droppables that are hovered. All registered droppables that accept the
+     * dragged object are informed about the {@link DragAndDropEvent}.
      * @param dragAndDroppable the {@link DragAndDroppable} that is being dragged
      * @param event the motion event of the drag
      */
     protected static void onDrag(DragAndDroppable dragAndDroppable, MotionEvent event) {
-        DragAndDropEvent ev;
-        if (DRAG_TARGET == null) {
-            DRAG_TARGET = dragAndDroppable;
-            ev = new DragAndDropEvent(event, ACTION_DRAG_STARTED);
-        } else {
-            // Check through all droppable listeners to see if the draggable is hovering
-            // a droppable
-            for (DragAndDroppable dragAndDroppableIterator : mDroppableListeners) {
-                View view = dragAndDroppableIterator.getView();
-                int[] a = new int[2];
-                view.getLocationOnScreen(a);
-                RectF bounds = new RectF(a[0], a[1], a[0] + view.getWidth(), a[1] + view.getHeight());
-                // Check the bounds of the droppable
-                if (bounds.contains((int) (event.getRawX()), (int) (event.getRawY()))) {
-                    if(ENTERED_DROPPABLE_LISTENER != null)
-                        return;
-                    ENTERED_DROPPABLE_LISTENER = dragAndDroppableIterator.getOnDragListener();
-                    ENTERED_DROPPABLE_LISTENER.onDrag(dragAndDroppable, new DragAndDropEvent(event, ACTION_DRAG_ENTERED));
-                    ENTERED_DROPPABLE = dragAndDroppableIterator;
-                    ENTERED_DROPPABLE.onDragHover();
-                    dragAndDroppable.onDragHover(ENTERED_DROPPABLE);
-                    return;
-                }
-                // If ENTERED_DROPPABLE_LISTENER != null we've been hovered but exited the area
-                // (otherwise we would allready've been returned from this method) so fire the
-                // ACTION_DRAG_EXITED EVENT
-                if (ENTERED_DROPPABLE_LISTENER != null) {
-                    ENTERED_DROPPABLE_LISTENER.onDrag(dragAndDroppable, new DragAndDropEvent(event, ACTION_DRAG_EXITED));
-                    ENTERED_DROPPABLE_LISTENER = null;
-                    ENTERED_DROPPABLE.onDragExit();
-                    dragAndDroppable.onDragExit(ENTERED_DROPPABLE);
-                }
-            }
-            // If we're still here it's a normal ACTION_DRAG_LOCATION
-            ev = new DragAndDropEvent(event, ACTION_DRAG_LOCATION);
+        DragSession session = getSession(dragAndDroppable);
+        if (session == null) {
+            dragAndDroppable.prefetchHoverDrawables();
+            startSession(dragAndDroppable, event);
+            return;
         }
-        // Inform all Droppable Listeners about the Event
-        for (DragAndDroppable dragAndDroppableIterator : mDroppableListeners) {
-            dragAndDroppableIterator.getOnDragListener().onDrag(dragAndDroppable, ev);
+        TraceSections.begin(TraceSections.HIT_TEST);
+        try {
+            session.move(event);
+        } finally {
+            TraceSections.end();
         }
+        session.getAutoScroller().onMove(event);
     }
 
     /**
      * The onDrop method is called when the drag has stopped (the user dropped the object)
      * The method checks wether the drop happens on hovering a droppable target and if yes
      * it informs by sending an ACTION_DROP.
-     * However DRAG_TARGET is reset and all listeners are informed about the drop.
+     * However the drag session is finished and all listeners are informed about the drop.
      * @param dragAndDroppable the {@link DragAndDroppable} that is being dropped
      * @param event the motion event of the drop
      */
     public static void onDrop(DragAndDroppable dragAndDroppable, MotionEvent event) {
-        if (ENTERED_DROPPABLE_LISTENER != null) {
-            ENTERED_DROPPABLE_LISTENER.onDrag(dragAndDroppable, new DragAndDropEvent((event), ACTION_DROP));
-            ENTERED_DROPPABLE_LISTENER = null;
-            ENTERED_DROPPABLE.onDragExit();
-            dragAndDroppable.onDragExit(ENTERED_DROPPABLE);
-            ENTERED_DROPPABLE = null;
+        DragSession session = getSession(dragAndDroppable);
+        if (session == null)
+            return;
+        TraceSections.begin(TraceSections.DROP);
+        DragAndDroppable droppedOn;
+        try {
+            session.settlePrediction(event);
+            droppedOn = session.getEnteredDroppable();
+            session.drop(event);
+            DragMetrics<DragAndDroppable> metrics = session.getMetrics();
+            if (metrics != null)
+                metrics.setDropLatencyMillis(SystemClock.uptimeMillis() - event.getEventTime());
+        } finally {
+            TraceSections.end();
+        }
+        finishSession(dragAndDroppable, session);
+        dragAndDroppable.onDragFinished(droppedOn);
+    }
+
+    /**
+     * The onDragCanceled method is called when the drag has been canceled by the system
+     * (i.e. a parent intercepted the touch events). A hovered droppable is exited instead
+     * of dropped on, the drag session is finished and all listeners are informed.
+     * @param dragAndDroppable the {@link DragAndDroppable} whose drag has been canceled
+     * @param event the motion event of the cancel
+     */
+    public static void onDragCanceled(DragAndDroppable dragAndDroppable, MotionEvent event) {
+        DragSession session = getSession(dragAndDroppable);
+        if (session == null)
+            return;
+        session.cancel(event);
+        finishSession(dragAndDroppable, session);
+        dragAndDroppable.onDragFinished(null);
+    }
+
+    /**
+     * Starts a new drag session, reusing a finished one if possible
+     * @param dragAndDroppable the {@link DragAndDroppable} that is being dragged
+     * @param event the motion event that started the drag
+     * @return the started session or null if the view isn't attached
+     */
+    private static DragSession startSession(DragAndDroppable dragAndDroppable, MotionEvent event) {
+        // A detached view has no scope to be dropped in
+        DragScope scope = DragScope.of(dragAndDroppable.getView());
+        if (scope == null)
+            return null;
+        DragSession session = SESSION_POOL.isEmpty()
+                ? new DragSession() : SESSION_POOL.remove(SESSION_POOL.size() - 1);
+        // Pending drops of the object are outdated once it's dragged again
+        DropPipeline.cancel(dragAndDroppable);
+        SESSIONS.add(session);
+        session.setMetricsEnabled(!METRICS_LISTENERS.isEmpty());
+        session.setJankReportEnabled(!JANK_LISTENERS.isEmpty());
+        session.start(dragAndDroppable, scope, event);
+        return session;
+    }
+
+    /**
+     * Reports the metrics and frames of an ended session and puts it back into the pool
+     * @param dragAndDroppable the {@link DragAndDroppable} that has been dragged
+     * @param session the ended session
+     */
+    private static void finishSession(DragAndDroppable dragAndDroppable, DragSession session) {
+        SESSIONS.remove(session);
+        DragMetrics<DragAndDroppable> metrics = session.getMetrics();
+        if (metrics != null) {
+            for (int i = 0; i < METRICS_LISTENERS.size(); i++) {
+                METRICS_LISTENERS.get(i).onDragMetrics(dragAndDroppable, metrics);
+            }
+            // The pooled session must not keep a droppable (and its activity) alive
+            metrics.releaseTargets();
+        }
+        FrameStats frameStats = session.getFrameStats();
+        if (frameStats != null) {
+            for (int i = 0; i < JANK_LISTENERS.size(); i++) {
+                JANK_LISTENERS.get(i).onDragJank(dragAndDroppable, frameStats);
+            }
+        }
+        SESSION_POOL.add(session);
+    }
+
+    /**
+     * Registers a listener for the performance metrics of drags. Metrics are only collected
+     * while at least one listener is registered, starting with the next drag.
+     * @param listener the listener to inform when a drag has ended
+     */
+    public static void addDragMetricsListener(DragMetricsListener listener) {
+        if (!METRICS_LISTENERS.contains(listener))
+            METRICS_LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregisters a listener for the performance metrics of drags
+     * @param listener the listener to remove
+     */
+    public static void removeDragMetricsListener(DragMetricsListener listener) {
+        METRICS_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Registers a listener for the jank reports of drags: the frames rendered and dropped while
+     * the drag ran. Frames are only recorded while at least one listener is registered,
+     * starting with the next drag.
+     * @param listener the listener to inform when a drag has ended
+     */
+    public static void addDragJankListener(DragJankListener listener) {
+        if (!JANK_LISTENERS.contains(listener))
+            JANK_LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregisters a listener for the jank reports of drags
+     * @param listener the listener to remove
+     */
+    public static void removeDragJankListener(DragJankListener listener) {
+        JANK_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Sets the executor the {@link DropTask}s of async drops run on. Their results are committed
+     * on the UI thread in drop order, whatever executor runs them.
+     * @param executor the executor or null for the default single background thread
+     */
+    public static void setDropExecutor(Executor executor) {
+        DropPipeline.setExecutor(executor);
+    }
+
+    /**
+     * Throttles the ACTION_DRAG_LOCATION events of all droppables that don't have their own
+     * policy, see {@link DragAndDroppable#setLocationThrottle(int, long)}.
+     * A location is only delivered once the pointer moved the minimum distance and the minimum
+     * interval passed since the previously delivered one. Other drag events are never throttled.
+     * @param minDistanceDp the minimum distance in dp, 0 to not throttle by distance
+     * @param minIntervalMillis the minimum interval in ms, 0 to not throttle by time
+     * @throws IllegalArgumentException If a minimum is negative IllegalArgumentException is thrown
+     */
+    public static void setLocationThrottle(int minDistanceDp, long minIntervalMillis) throws IllegalArgumentException {
+        if (minDistanceDp < 0 || minIntervalMillis < 0)
+            throw new IllegalArgumentException(LocationThrottle.EXCEPTION_ILLEGAL_ARGUMENT_NEGATIVE);
+        LOCATION_MIN_DISTANCE_DP = minDistanceDp;
+        LOCATION_MIN_INTERVAL_MILLIS = minIntervalMillis;
+    }
+
+    /**
+     * Get the minimum distance of the default location throttling policy
+     * @return the distance in dp, 0 if locations aren't throttled by distance
+     */
+    static int getLocationMinDistanceDp() {
+        return LOCATION_MIN_DISTANCE_DP;
+    }
+
+    /**
+     * Get the minimum interval of the default location throttling policy
+     * @return the interval in ms, 0 if locations aren't throttled by time
+     */
+    static long getLocationMinIntervalMillis() {
+        return LOCATION_MIN_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Get the running drag session of a {@link DragAndDroppable}
+     * @param dragAndDroppable the dragged object
+     * @return the session or null if the object isn't being dragged
+     */
+    public static DragSession getSession(DragAndDroppable dragAndDroppable) {
+        for (int i = 0; i < SESSIONS.size(); i++) {
+            if (SESSIONS.get(i).getDragTarget() == dragAndDroppable)
+                return SESSIONS.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Sets the recorder the drags are recorded with
+     * @param recorder the recorder or null to stop recording
+     */
+    static void setTraceRecorder(DragTraceRecorder recorder) {
+        TRACE_RECORDER = recorder;
+    }
+
+    /**
+     * Get the recorder the touch events of draggable objects are recorded with
+     * @return the recorder or null if there's no recording
+     */
+    static DragTraceRecorder getTraceRecorder() {
+        return TRACE_RECORDER;
+    }
+
+    /**
+     * Sends a pooled {@link DragAndDropEvent} to a single droppable (if it subscribed to the action)
+     * and recycles it afterwards
+     * @param droppable the droppable to inform
+     * @param dragAndDroppable the {@link DragAndDroppable} that is being dragged
+     * @param event the motion event of the drag
+     * @param action the drag action
+     * @param regionId the drop region of the droppable or {@link DragAndDropEvent#NO_REGION}
+     * @param metrics the metrics of the session or null if they aren't collected
+     * @return the drop task the listener has set on the event or null if there's none
+     */
+    static DropTask<?> dispatch(DragAndDroppable droppable, DragAndDroppable dragAndDroppable, MotionEvent event,
+                                int action, int regionId, DragMetrics<DragAndDroppable> metrics) {
+        if (!droppable.subscribesTo(action))
+            return null;
+        DragAndDropEvent ev = DragAndDropEvent.obtain(event, action);
+        ev.setRegionId(regionId);
+        deliver(droppable, dragAndDroppable, ev, metrics);
+        DropTask<?> dropTask = ev.getDropTask();
+        ev.recycle();
+        return dropTask;
+    }
+
+    /**
+     * Delivers an event to the listener of a droppable, exposing the historical samples
+     * of the drag only if the droppable asked for them. Batch listeners get the event with
+     * the next frame.
+     * @param droppable the droppable to inform
+     * @param dragAndDroppable the {@link DragAndDroppable} that is being dragged
+     * @param ev the event to deliver
+     * @param metrics the metrics of the session or null if they aren't collected
+     */
+    private static void deliver(DragAndDroppable droppable, DragAndDroppable dragAndDroppable,
+                                DragAndDropEvent ev, DragMetrics<DragAndDroppable> metrics) {
+        ev.setHistory(droppable.receivesHistoricalPoints() ? dragAndDroppable.getHistory() : null);
+        ev.setDragGroup(dragAndDroppable.getDragGroup());
+        if (TRACE_RECORDER != null)
+            TRACE_RECORDER.onDispatch(droppable, ev);
+        if (droppable.getOnDragBatchListener() != null)
+            DragBatchDispatcher.add(droppable, dragAndDroppable, ev);
+        DragAndDroppable.OnDragListener listener = droppable.getOnDragListener();
+        if (listener == null)
+            return;
+        TraceSections.begin(TraceSections.DISPATCH);
+        try {
+            if (metrics == null) {
+                listener.onDrag(dragAndDroppable, ev);
+                return;
+            }
+            long start = System.nanoTime();
+            listener.onDrag(dragAndDroppable, ev);
+            metrics.onDispatch(droppable, System.nanoTime() - start);
+        } finally {
+            TraceSections.end();
         }
-        DRAG_TARGET = null;
-        DragAndDropEvent ev = new DragAndDropEvent(event, ACTION_DRAG_ENDED);
-        for (DragAndDroppable dragAndDroppableIterator : mDroppableListeners) {
-            dragAndDroppableIterator.getOnDragListener().onDrag(dragAndDroppable, ev);
+    }
+
+    /**
+     * Sends a pooled {@link DragAndDropEvent} to all candidates of a session that subscribed
+     * to the action and recycles it afterwards
+     * @param session the session of the drag
+     * @param event the motion event of the drag
+     * @param action the drag action
+     */
+    static void dispatchToAll(DragSession session, MotionEvent event, int action) {
+        // Only the candidates of the session, droppables that refused the dragged object don't hear about its drag
+        List<DragAndDroppable> subscribers = session.getCandidates(action);
+        if (subscribers.isEmpty())
+            return;
+        DragAndDroppable dragAndDroppable = session.getDragTarget();
+        DragMetrics<DragAndDroppable> metrics = session.getMetrics();
+        DragAndDropEvent ev = DragAndDropEvent.obtain(event, action);
+        // Indexed loop, an iterator would be allocated on every drag event
+        for (int i = 0; i < subscribers.size(); i++) {
+            DragAndDroppable droppable = subscribers.get(i);
+            // Locations that are too close to the previously delivered one are dropped
+            if (action == DragAndDropEvent.ACTION_DRAG_LOCATION && !droppable.offerLocation(session.getDragId(), event)) {
+                if (metrics != null)
+                    metrics.onLocationSuppressed();
+                continue;
+            }
+            deliver(droppable, dragAndDroppable, ev, metrics);
         }
+        ev.recycle();
     }
 
     /**
      * Droppables register with here to get {@link DragAndDropEvent} if a {@link DragAndDroppable} is
-     * being dragged and maybe hovered over the droppable
+     * being dragged and maybe hovered over the droppable.
+     * The droppable is part of the {@link DragScope} of its view while the view is attached.
      * @param dragAndDroppable the droppable to register for {@link DragAndDropEvent}
      */
     public static void addDroppableListener(DragAndDroppable dragAndDroppable) {
-        mDroppableListeners.add(dragAndDroppable);
+        if (dragAndDroppable.isRegistered())
+            return;
+        dragAndDroppable.setRegistered(true);
+        if (dragAndDroppable.getView().getWindowToken() != null)
+            onDroppableAttached(dragAndDroppable);
+    }
+
+    /**
+     * Unregisters a droppable, it won't receive any further {@link DragAndDropEvent}s
+     * @param dragAndDroppable the droppable to unregister
+     */
+    public static void removeDroppableListener(DragAndDroppable dragAndDroppable) {
+        if (!dragAndDroppable.isRegistered())
+            return;
+        dragAndDroppable.setRegistered(false);
+        onDroppableDetached(dragAndDroppable);
+    }
+
+    /**
+     * Called if the view of a droppable got attached to a window
+     * @param dragAndDroppable the droppable
+     */
+    static void onDroppableAttached(DragAndDroppable dragAndDroppable) {
+        if (!dragAndDroppable.isRegistered() || dragAndDroppable.getScope() != null)
+            return;
+        DragScope scope = DragScope.of(dragAndDroppable.getView());
+        if (scope != null)
+            scope.add(dragAndDroppable);
+    }
+
+    /**
+     * Called if the view of a droppable got detached from its window
+     * @param dragAndDroppable the droppable
+     */
+    static void onDroppableDetached(DragAndDroppable dragAndDroppable) {
+        DragScope scope = dragAndDroppable.getScope();
+        if (scope != null)
+            scope.remove(dragAndDroppable);
+        // The sessions won't tell it about the end of their drags any more
+        dragAndDroppable.onLocationDragsLeft();
+    }
+
+    /**
+     * Makes a view the root of its own {@link DragScope}: drags of views inside of it only
+     * hit-test and inform the droppables inside of it, and droppables inside of it
+     * aren't part of the window's scope any more.
+     * @param root the root view of the new scope
+     * @return the scope of the root view
+     */
+    public static DragScope createDragScope(View root) {
+        Object tag = root.getTag(R.id.draganddrop_scope);
+        if (tag instanceof DragScope)
+            return (DragScope) tag;
+        DragScope scope = new DragScope(root);
+        // Droppables that allready joined the enclosing scope move to the new one
+        if (root.getParent() instanceof View) {
+            Object enclosing = findScopeTag((View) root.getParent());
+            if (enclosing instanceof DragScope)
+                ((DragScope) enclosing).moveDescendantsTo(scope);
+        }
+        return scope;
+    }
+
+    /**
+     * Find the scope tag of a view or its nearest ancestor that has one
+     * @param view the view
+     * @return the scope or null if there's none
+     */
+    private static Object findScopeTag(View view) {
+        while (true) {
+            Object tag = view.getTag(R.id.draganddrop_scope);
+            if (tag != null || !(view.getParent() instanceof View))
+                return tag;
+            view = (View) view.getParent();
+        }
     }
 
     /**
@@ -16,17 +16,36 @@
 package com.doaphotostory.opensource.draganddrop;
 
 import android.content.Context;
+import android.graphics.Matrix;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
-import android.view.ViewGroup;
+import android.view.Display;
+import android.view.ViewParent;
+import android.view.ViewPropertyAnimator;
+import android.view.ViewTreeObserver;
+import android.view.animation.DecelerateInterpolator;
 import android.widget.ImageView;
 
-import java.util.HashMap;
+import com.doaphotostory.opensource.draganddrop.core.AlphaMask;
+import com.doaphotostory.opensource.draganddrop.core.Bounds;
+import com.doaphotostory.opensource.draganddrop.core.DropRegions;
+import com.doaphotostory.opensource.draganddrop.core.DropTarget;
+import com.doaphotostory.opensource.draganddrop.core.LocationThrottle;
+import com.doaphotostory.opensource.draganddrop.core.PointerPredictor;
+
+import java.util.List;
+
 
 import static android.view.MotionEvent.INVALID_POINTER_ID;
 
@@ -36,13 +55,25 @@ import static android.view.MotionEvent.INVALID_POINTER_ID;
  * Views can be made draggable or droppable (or both) and various methods may be called
  * to provide features for Drag and Dop.
  */
-public class DragAndDroppable {
+public class DragAndDroppable implements DropTarget {
 
     // LOG TAG
     public static final String TAG = DragAndDroppable.class.getSimpleName();
     // SCREEN DENSITY
     private static float DENSITY = 0f;
 
+    // POINTER PREDICTION
+    // Predictions are at most this far ahead of the finger
+    private static final int PREDICTION_MAX_DISTANCE_DP = 24;
+
+    // ANIMATIONS
+    // Durations of the snap-back, settle and fling animations in ms
+    private static final long MIN_ANIMATION_DURATION = 120;
+    private static final long MAX_ANIMATION_DURATION = 400;
+    private static final long FLING_DURATION = 300;
+    // Ease out: starts with twice the average velocity, so the release velocity carries over
+    private static final DecelerateInterpolator ANIMATION_INTERPOLATOR = new DecelerateInterpolator();
+
     // EXCEPTIONS
     public static final String EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW = "On Hover Drawables may only be set on ImageViews";
 
@@ -52,12 +83,18 @@ public class DragAndDroppable {
     private Context mContext;
     // On Drag Listener for Droppables
     private OnDragListener mOnDragListener;
+    // Optional listener that gets the events of a frame at once and the batch they're collected in
+    private OnDragBatchListener mOnDragBatchListener;
+    private DragAndDropBatch mDragBatch;
+    // Decides which dragged objects this droppable accepts, null to accept all
+    private DropFilter mDropFilter;
     // Vibrator
     private Vibrator mVibrator;
 
-    // For ImageView's the original drawable and an optional hover drawable may be set
+    // For ImageView's the original drawable and optional hover drawables (resource ids by
+    // droppable view id) may be set, they're loaded lazily from the HoverDrawableCache
     private Drawable mOriginalDrawable;
-    private HashMap<Integer, Drawable> mOnHoverDrawables = new HashMap<>();
+    private SparseIntArray mOnHoverDrawables = new SparseIntArray();
 
     // Boolean to set if it's a drag (it might be a click also)
     private boolean mDrag = false;
@@ -65,15 +102,122 @@ public class DragAndDroppable {
     // Instance fields for the Touch Process
     private int mMoverId = INVALID_POINTER_ID;
     private float mStartX, mStartY;
-    private PointF mTouchPoint, mTouchPointStart;
+    private final PointF mTouchPoint = new PointF();
+    // The raw coordinates of the down event, the drag slop is measured on the screen
+    private float mDownRawX, mDownRawY;
+
+    // Maps screen coordinates to the coordinates of the parent (where the view is moved in),
+    // including the scroll, scale, rotation and translation of all ancestors.
+    // Computed once per drag, only layout and scroll changes make it outdated.
+    private final Matrix mScreenToParent = new Matrix();
+    private boolean mTransformValid = false;
+    private final float[] mPoint = new float[2];
+    // The raw coordinates of mTouchPoint
+    private float mTouchRawX, mTouchRawY;
+    private ViewTreeObserver mTransformObserver;
+    private final ViewTreeObserver.OnGlobalLayoutListener mTransformLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            invalidateTransform();
+        }
+    };
+    private final ViewTreeObserver.OnScrollChangedListener mTransformScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            invalidateTransform();
+        }
+    };
+
+    // Frame pacing: moves are collected and applied once per frame
+    private boolean mFramePaced = false;
+    // Extrapolates the pointer to the time the next frame is displayed, to move the view there
+    // and optionally to hit-test there
+    private boolean mPointerPrediction = false, mPredictiveHover = false;
+    private PointerPredictor mPredictor;
+    private long mFrameIntervalMillis = 16;
+    private boolean mFrameScheduled = false;
+    private MotionEvent mPendingMove;
+    private Choreographer.FrameCallback mFrameCallback;
+    // Touch samples in between two drag events
+    private final DragHistory mHistory = new DragHistory();
+    private boolean mReceiveHistoricalPoints = false;
 
     // Hover
-    private Drawable mOnHoverDrawable;
+    private int mOnHoverDrawableRes = 0;
     private int mOnHoverVibrateMs = -1;
+    // Shown instead of the content while async drops on this droppable are pending
+    private int mOnDropPendingDrawableRes = 0;
+    private Drawable mDropPendingOriginalDrawable;
+    private int mPendingDropCount = 0;
+    // Number of drag sessions hovering this droppable at the moment
+    private int mHoverCount = 0;
 
     // Boolean indicators
     private boolean mIsDraggable, mIsDroppable;
 
+    // Cached bounds on the screen, only recalculated after layout or scroll changes
+    private final Bounds mBounds = new Bounds();
+    // Maps screen coordinates to the coordinates of the view (for its regions and its shape),
+    // including the transformation of the view and all ancestors. Cached with the bounds.
+    private final Matrix mScreenToView = new Matrix();
+    private final RectF mMappedBounds = new RectF();
+    // Shaped hit-testing: the alpha mask of the drawable and the matrix from view to mask coordinates
+    private boolean mShaped = false;
+    private AlphaMask mHitMask;
+    private final Matrix mHitMatrix = new Matrix();
+    private final Matrix mHitInverse = new Matrix();
+    private final float[] mHitPoint = new float[2];
+    private boolean mHitMaskValid = false;
+    private final int[] mLocation = new int[2];
+    private boolean mBoundsValid = false;
+    private boolean mObservingView = false;
+
+    // The scope this droppable is part of while it's registered and attached
+    private DragScope mScope;
+    private boolean mRegistered = false;
+    // The drag actions the listener subscribed to
+    private int mDragActionMask = DragAndDropEvent.MASK_ALL;
+    // Location throttling policy of this droppable, -1 to use the one of the DragAndDropManager,
+    // the throttles of the running drags by drag id, and the one of the last ended drag
+    // (it keeps its count and is reused by the next drag)
+    private int mLocationMinDistanceDp = -1;
+    private long mLocationMinIntervalMillis = -1;
+    private SparseArray<LocationThrottle> mLocationThrottles;
+    private LocationThrottle mEndedLocationThrottle;
+    // Virtual drop regions in view coordinates, null if the whole view is droppable
+    private DropRegions mDropRegions;
+
+    // Drag shadow: a snapshot that's moved in the root overlay instead of the view. The distance
+    // the view is moved at the drop is collected in parent coordinates.
+    private boolean mDragShadowEnabled = false;
+    // The selection that's dragged together with this object (if any)
+    private DragGroup mDragGroup;
+    private DragShadow mDragShadow;
+    // Set while the shadow is dragged, if it couldn't be shown the view itself is dragged
+    private boolean mShadowDragging = false;
+    private float mShadowTranslationX, mShadowTranslationY;
+    private float mShadowOffsetX, mShadowOffsetY;
+
+    // Release velocity of the last drag in screen px per second, tracked on the screen so moving the view doesn't distort it
+    private VelocityTracker mVelocityTracker;
+    private float mReleaseVelocityX, mReleaseVelocityY;
+    // Animations after the drop, run on a hardware layer
+    private boolean mSnapBack = false, mSettleOnDrop = false;
+    private boolean mAnimating = false, mAnimatingHome = false;
+    private final Runnable mAnimationEndAction = new Runnable() {
+        @Override
+        public void run() {
+            mAnimating = false;
+            mAnimatingHome = false;
+        }
+    };
+
+    // Auto-scroll of the scrolling container while dragging near its edges
+    private boolean mAutoScroll = false;
+    private View mAutoScrollContainer;
+    private int mAutoScrollEdgeDp = 48;
+    private int mAutoScrollMaxVelocityDp = 1500;
+
     /**
      * ON DRAG LISTENER INTERFACE
      */
@@ -81,6 +225,31 @@ public class DragAndDroppable {
         boolean onDrag(DragAndDroppable view, DragAndDropEvent dragEvent);
     }
 
+    /**
+     * ON DRAG BATCH LISTENER INTERFACE
+     */
+    public interface OnDragBatchListener {
+        /**
+         * Called once per frame with the drag events the droppable got since the last frame
+         * @param droppable the droppable
+         * @param batch the events in the order they happened, only valid during this call
+         */
+        void onDragBatch(DragAndDroppable droppable, DragAndDropBatch batch);
+    }
+
+    /**
+     * DROP FILTER INTERFACE
+     */
+    public interface DropFilter {
+        /**
+         * Called once when a drag starts to decide if a droppable takes part in it
+         * @param droppable the droppable
+         * @param dragged the object that is being dragged
+         * @return wether the droppable accepts the dragged object
+         */
+        boolean accepts(DragAndDroppable droppable, DragAndDroppable dragged);
+    }
+
     /**
      * Constructs a DragAndDroppable Object for a specified View
      *
@@ -98,300 +267,1743 @@ public class DragAndDroppable {
         mView.setOnTouchListener(new View.OnTouchListener() {
             @Override
             public boolean onTouch(View view, MotionEvent motionEvent) {
-                if (!isDraggable())
-                    return false;
-                // Get the index of the pointer associated with the action.
-                int index = motionEvent.getActionIndex();
-                int id = motionEvent.getPointerId(index);
-                //SWITCH
-                switch (motionEvent.getActionMasked()) {
-                    case MotionEvent.ACTION_DOWN:
-                        mMoverId = id;
-                        createTouchPoint(motionEvent);
-                        mTouchPointStart = mTouchPoint;
-                        mStartX = mView.getX();
-                        mStartY = mView.getY();
-                        mView.requestFocus();
-                        mView.setSelected(true);
-                        return true;
-                    case MotionEvent.ACTION_MOVE:
-                        float mx = mTouchPointStart.x - motionEvent.getRawX();
-                        float my = mTouchPointStart.y - motionEvent.getRawY();
-                        if (id != mMoverId) {
-                            mMoverId = id;
-                            createTouchPoint(motionEvent);
-                        }
-                        // Drag & Drop seems to be more stable if the object isn't dragged on every minimal touch
-                        // so we check if we dragged more than the minimum drag distance of 5px
-                        if (mDrag || (Math.abs(mx) > getPx(5) || Math.abs(my) > getPx(5))) {
-                            DragAndDropManager.onDrag(DragAndDroppable.this, motionEvent);
-
-                            float x = motionEvent.getRawX() * (1 / ((ViewGroup) mView.getParent()).getScaleX());
-                            float y = motionEvent.getRawY() * (1 / ((ViewGroup) mView.getParent()).getScaleY());
-
-                            float dx = x - mTouchPoint.x;
-                            float dy = y - mTouchPoint.y;
-                            createTouchPoint(motionEvent);
-
-                            mView.setX(mView.getX() + dx);
-                            mView.setY(mView.getY() + dy);
-
-                            mDrag = true;
-                        }
-                        break;
-                    case MotionEvent.ACTION_UP:
-                        if (mDrag) {
-                            DragAndDropManager.onDrop(DragAndDroppable.this, motionEvent);
-                            mMoverId = INVALID_POINTER_ID;
-                            mDrag = false;
-                        }
-                        return true;
+                TraceSections.begin(TraceSections.TOUCH);
+                try {
+                    // Recorded as received, before the slop check and the frame pacing
+                    DragTraceRecorder recorder = DragAndDropManager.getTraceRecorder();
+                    if (recorder != null && isDraggable())
+                        recorder.onTouchEvent(DragAndDroppable.this, motionEvent);
+                    return onTouchEvent(motionEvent);
+                } finally {
+                    TraceSections.end();
                 }
-                return true;
             }
         });
     }
 
     /**
-     * Creates a PointF for the raw touch point on the display
+     * Handles the touch events of the view: starts, moves and drops the drag
      *
-     * @param event The Motion Event that happened on touch
+     * @param motionEvent the touch event
+     * @return wether the event has been consumed
      */
-    public void createTouchPoint(MotionEvent event) {
-        mTouchPoint = new PointF(
-                event.getRawX() * (1 / ((ViewGroup) mView.getParent()).getScaleX()),
-                event.getRawY() * (1 / ((ViewGroup) mView.getParent()).getScaleY()));
+    private boolean onTouchEvent(MotionEvent motionEvent) {
+        if (!isDraggable())
+            return false;
+        // Get the index of the pointer associated with the action.
+        int index = motionEvent.getActionIndex();
+        int id = motionEvent.getPointerId(index);
+        //SWITCH
+        switch (motionEvent.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Members of a group that's dragged by another member follow it
+                if (mDragGroup != null && mDragGroup.isDragging())
+                    return false;
+                mMoverId = id;
+                // A new drag interrupts a running animation, an interrupted
+                // snap-back keeps the original start position
+                boolean keepStart = mAnimatingHome;
+                cancelAnimation();
+                startTrackingVelocity(motionEvent);
+                startPredicting(motionEvent);
+                startObservingTransform();
+                createTouchPoint(motionEvent);
+                mDownRawX = motionEvent.getRawX();
+                mDownRawY = motionEvent.getRawY();
+                if (!keepStart) {
+                    mStartX = mView.getX();
+                    mStartY = mView.getY();
+                }
+                if (mDragGroup != null)
+                    mDragGroup.start(DragAndDroppable.this);
+                mView.requestFocus();
+                mView.setSelected(true);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                trackVelocity(motionEvent);
+                if (isFramePaced()) {
+                    queueMove(motionEvent);
+                } else {
+                    mHistory.clear();
+                    mHistory.addHistorical(motionEvent);
+                    onMove(motionEvent);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                // A move that's waiting for the next frame has to be applied before the drop
+                flushPendingMove();
+                // The view ends where the finger actually is
+                if (mDrag && isPointerPrediction())
+                    moveTo(motionEvent.getRawX(), motionEvent.getRawY());
+                trackVelocity(motionEvent);
+                computeReleaseVelocity();
+                stopTrackingVelocity();
+                stopObservingTransform();
+                hideDragShadow();
+                endGroupDrag();
+                if (mDrag) {
+                    DragAndDropManager.onDrop(DragAndDroppable.this, motionEvent);
+                    mMoverId = INVALID_POINTER_ID;
+                    mDrag = false;
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                discardPendingMove();
+                stopTrackingVelocity();
+                stopObservingTransform();
+                hideDragShadow();
+                endGroupDrag();
+                if (mDrag) {
+                    DragAndDropManager.onDragCanceled(DragAndDroppable.this, motionEvent);
+                    mMoverId = INVALID_POINTER_ID;
+                    mDrag = false;
+                }
+                return true;
+        }
+        return true;
     }
 
     /**
-     * Resets the position of the view to its origin
+     * Moves the view to the touch point and informs the {@link DragAndDropManager}
+     *
+     * @param motionEvent the move event
      */
-    public void resetPosition() {
-        mView.setX(mStartX);
-        mView.setY(mStartY);
+    private void onMove(MotionEvent motionEvent) {
+        int id = motionEvent.getPointerId(motionEvent.getActionIndex());
+        float mx = mDownRawX - motionEvent.getRawX();
+        float my = mDownRawY - motionEvent.getRawY();
+        if (id != mMoverId) {
+            mMoverId = id;
+            createTouchPoint(motionEvent);
+            if (mPredictor != null)
+                mPredictor.reset();
+        }
+        if (isPointerPrediction())
+            predictPointer(motionEvent);
+        else if (mPredictor != null)
+            // Prediction was disabled, its samples would be stale once it's enabled again
+            mPredictor.reset();
+        // Drag & Drop seems to be more stable if the object isn't dragged on every minimal touch
+        // so we check if we dragged more than the minimum drag distance of 5px
+        if (mDrag || (Math.abs(mx) > getPx(5) || Math.abs(my) > getPx(5))) {
+            DragAndDropManager.onDrag(DragAndDroppable.this, motionEvent);
+            if (!mDrag && isDragShadow() && mDragGroup == null)
+                showDragShadow();
+
+            if (isPointerPrediction())
+                moveTo(mPredictor.getPredictedX(), mPredictor.getPredictedY());
+            else
+                moveTo(motionEvent.getRawX(), motionEvent.getRawY());
+
+            mDrag = true;
+        }
     }
 
     /**
-     * Callback that is called on drag hover
+     * Moves the view (or its drag shadow or its group) so it stays under a pointer on the screen
+     *
+     * @param rawX x coordinate of the pointer on the screen
+     * @param rawY y coordinate of the pointer on the screen
      */
-    public void onDragHover() {
-        // Change the onHoverDrawable if set
-        if (mOnHoverDrawable != null)
-            ((ImageView) mView).setImageDrawable(mOnHoverDrawable);
-
-        // If the onHoverVibration's not set or we did allready hover - return
-        if (mOnHoverVibrateMs == -1)
-            return;
+    private void moveTo(float rawX, float rawY) {
+        mapToParent(rawX, rawY);
+        float dx = mPoint[0] - mTouchPoint.x;
+        float dy = mPoint[1] - mTouchPoint.y;
+        mTouchPoint.set(mPoint[0], mPoint[1]);
 
-        // Vibrate for 500 milliseconds
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            mVibrator.vibrate(VibrationEffect.createOneShot(mOnHoverVibrateMs, VibrationEffect.DEFAULT_AMPLITUDE));
+        if (mDragGroup != null) {
+            // All members move by the same distance on the screen, committed together.
+            // Frame paced moves are allready applied in a frame callback, so commit right away.
+            mDragGroup.moveBy(rawX - mTouchRawX, rawY - mTouchRawY);
+            if (isFramePaced())
+                mDragGroup.commit();
+        } else if (mShadowDragging) {
+            // Only the snapshot moves, the view follows at the drop
+            mShadowOffsetX += dx;
+            mShadowOffsetY += dy;
+            mShadowTranslationX += rawX - mTouchRawX;
+            mShadowTranslationY += rawY - mTouchRawY;
+            mDragShadow.moveTo(mShadowTranslationX, mShadowTranslationY);
         } else {
-            //deprecated in API 26
-            mVibrator.vibrate(mOnHoverVibrateMs);
+            mView.setX(mView.getX() + dx);
+            mView.setY(mView.getY() + dy);
         }
+        mTouchRawX = rawX;
+        mTouchRawY = rawY;
     }
 
     /**
-     * Callback that is called on drag hover
+     * Starts predicting the pointer of a new drag
      *
-     * @param droppable the droppable that's hovered
+     * @param event the down event
      */
-    public void onDragHover(DragAndDroppable droppable) {
-        Drawable onHoverDrawable = null;
-        if((onHoverDrawable = mOnHoverDrawables.get(droppable.getView().getId())) != null) {
-            ((ImageView) mView).setImageDrawable(onHoverDrawable);
+    private void startPredicting(MotionEvent event) {
+        // Samples of an earlier drag mustn't be used if prediction is enabled during this one
+        if (!isPointerPrediction()) {
+            if (mPredictor != null)
+                mPredictor.reset();
+            return;
         }
+        if (mPredictor == null)
+            mPredictor = new PointerPredictor();
+        // The next frame is displayed about one refresh interval after the touch sample
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            Display display = mView.getDisplay();
+            if (display != null && display.getRefreshRate() > 0)
+                mFrameIntervalMillis = Math.round(1000 / display.getRefreshRate());
+        }
+        mPredictor.setMaxHorizonMillis(2 * mFrameIntervalMillis);
+        mPredictor.setMaxDistance(getPx(PREDICTION_MAX_DISTANCE_DP));
+        mPredictor.reset();
+        mPredictor.addSample(event.getEventTime(), event.getRawX(), event.getRawY());
     }
 
     /**
-     * Callback that is called on drag exit
+     * Feeds the samples of a move (the historical ones first) to the predictor and predicts
+     * the pointer to the time the next frame is displayed
      *
-     * @param droppable the droppable that's hovered
+     * @param event the move event
      */
-    public void onDragExit(DragAndDroppable droppable) {
-        // This if statement just checks wether there's a droppable
-        // in the mOnHoverDrawables list (-> so we know the drawable was changed on this hover)
-        if(mOnHoverDrawables.get(droppable.getView().getId()) != null) {
-            ((ImageView) mView).setImageDrawable(mOriginalDrawable);
+    private void predictPointer(MotionEvent event) {
+        if (mPredictor == null)
+            startPredicting(event);
+        for (int i = 0; i < mHistory.size(); i++) {
+            mPredictor.addSample(mHistory.getEventTime(i), mHistory.getRawX(i), mHistory.getRawY(i));
         }
+        mPredictor.addSample(event.getEventTime(), event.getRawX(), event.getRawY());
+        mPredictor.predict(event.getEventTime() + mFrameIntervalMillis);
     }
 
     /**
-     * Callback that is called on drag exit
+     * Keeps the newest move event until the next frame. Older samples that are replaced
+     * are only kept in the history.
+     *
+     * @param motionEvent the move event
      */
-    public void onDragExit() {
-        // Check if the onHoverDrawable has been changed
-        if(mOnHoverDrawable != null)
-            ((ImageView) mView).setImageDrawable(mOriginalDrawable);
+    private void queueMove(MotionEvent motionEvent) {
+        if (mPendingMove == null) {
+            mHistory.clear();
+        } else {
+            mHistory.addCurrent(mPendingMove);
+            mPendingMove.recycle();
+        }
+        mHistory.addHistorical(motionEvent);
+        // The framework recycles the original event after dispatching, so keep a (pooled) copy
+        mPendingMove = MotionEvent.obtain(motionEvent);
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    mFrameScheduled = false;
+                    TraceSections.begin(TraceSections.TOUCH);
+                    DragBatchDispatcher.beginFrame();
+                    try {
+                        flushPendingMove();
+                    } finally {
+                        // The batches of the move are delivered in this frame
+                        DragBatchDispatcher.endFrame();
+                        TraceSections.end();
+                    }
+                }
+            };
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
     }
 
     /**
-     * METHOD CHAINGING
+     * Drops the move event that's waiting for the next frame (if any) without applying it
      */
+    private void discardPendingMove() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        if (mPendingMove != null) {
+            mPendingMove.recycle();
+            mPendingMove = null;
+        }
+    }
+
     /**
-     * Make the object draggable
-     *
-     * @return this for method chaining
+     * Applies the move event that's waiting for the next frame (if any)
      */
-    public DragAndDroppable makeDraggable() {
-        makeDraggable(true);
-        return this;
+    private void flushPendingMove() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        if (mPendingMove == null)
+            return;
+        MotionEvent pendingMove = mPendingMove;
+        mPendingMove = null;
+        onMove(pendingMove);
+        pendingMove.recycle();
     }
 
     /**
-     * Make the object draggable
+     * Updates the PointF for the raw touch point on the display
      *
-     * @param isDraggable wether the object should be draggable
-     * @return this for method chaining
+     * @param event The Motion Event that happened on touch
      */
-    public DragAndDroppable makeDraggable(boolean isDraggable) {
-        mIsDraggable = isDraggable;
-        return this;
+    public void createTouchPoint(MotionEvent event) {
+        mapToParent(event);
+        mTouchPoint.set(mPoint[0], mPoint[1]);
+        mTouchRawX = event.getRawX();
+        mTouchRawY = event.getRawY();
     }
 
     /**
-     * Make the object droppable
-     *
-     * @return this for method chaining
+     * Called by the {@link DragGroup} when one of its members starts a drag
      */
-    public DragAndDroppable makeDroppable() {
-        makeDroppable(true);
-        return this;
+    void onGroupDragStarted() {
+        if (mDragGroup.getAnchor() == this)
+            return;
+        cancelAnimation();
+        startObservingTransform();
+        mStartX = mView.getX();
+        mStartY = mView.getY();
     }
 
     /**
-     * Make the object droppable
-     *
-     * @param isDroppable wether the object should be droppable
-     * @return this for method chaining
+     * Called by the {@link DragGroup} when the drag of its members has ended
      */
-    public DragAndDroppable makeDroppable(boolean isDroppable) {
-        mIsDroppable = isDroppable;
-        return this;
+    void onGroupDragEnded() {
+        stopObservingTransform();
     }
 
     /**
-     * If the View is an ImageView an OnHoverDrawable may be set
-     * which is shown onHover of the Droppable
+     * Ends the drag of the group if this object is its anchor, the pending position update
+     * is applied before the drop
+     */
+    private void endGroupDrag() {
+        if (mDragGroup != null && mDragGroup.getAnchor() == this)
+            mDragGroup.end();
+    }
+
+    /**
+     * Moves the view by a distance on the screen, mapped to the coordinates of its parent
      *
-     * @param resID the onHover drawable
-     * @return this for method chaining
-     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     * @param dx the horizontal distance in px on the screen
+     * @param dy the vertical distance in px on the screen
      */
-    public DragAndDroppable setOnHoverDrawable(int resID) throws IllegalStateException {
-        if (!(mView instanceof ImageView))
-            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW);
-        mOriginalDrawable = ((ImageView) mView).getDrawable();
-        mOnHoverDrawable = mContext.getResources().getDrawable(resID);
-        return this;
+    void offsetOnScreen(float dx, float dy) {
+        mPoint[0] = dx;
+        mPoint[1] = dy;
+        if (!mTransformValid)
+            updateTransform();
+        mScreenToParent.mapVectors(mPoint);
+        mView.setX(mView.getX() + mPoint[0]);
+        mView.setY(mView.getY() + mPoint[1]);
     }
 
     /**
-     * If the View is an ImageView an OnHoverDrawable may be set
-     * which is shown onHover of the Droppable
+     * Snapshots the view and shows the snapshot in the root overlay. If the shadow can't be shown
+     * the view itself is dragged.
+     */
+    private void showDragShadow() {
+        if (mDragShadow == null)
+            mDragShadow = new DragShadow(mView);
+        mShadowTranslationX = mShadowTranslationY = 0;
+        mShadowOffsetX = mShadowOffsetY = 0;
+        mShadowDragging = mDragShadow.show(mView);
+    }
+
+    /**
+     * Removes the drag shadow (if any) and moves the view to where the shadow has been dragged to
+     */
+    private void hideDragShadow() {
+        if (!mShadowDragging)
+            return;
+        mShadowDragging = false;
+        mDragShadow.hide();
+        mView.setX(mView.getX() + mShadowOffsetX);
+        mView.setY(mView.getY() + mShadowOffsetY);
+    }
+
+    /**
+     * Maps the raw touch point of an event to the coordinates of the parent into mPoint
      *
-     * @param onHoverTarget the droppable view id
-     * @param resID the onHover drawable
-     * @return this for method chaining
-     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     * @param event the motion event
      */
-    public DragAndDroppable addOnHoverDrawable(int onHoverTarget, int resID) throws IllegalStateException {
-        if (!(mView instanceof ImageView))
-            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW);
-        mOriginalDrawable = ((ImageView) mView).getDrawable();
-        mOnHoverDrawables.put(onHoverTarget, mContext.getResources().getDrawable(resID));
-        return this;
+    private void mapToParent(MotionEvent event) {
+        mapToParent(event.getRawX(), event.getRawY());
     }
 
     /**
-     * Simple overload method of addOnHoverDrawable(int, int)
+     * Maps a point on the screen to the coordinates of the parent into mPoint
      *
-     * @param onHoverTargetView the droppable view
-     * @param resID the onHover drawable
-     * @return this for method chaining
-     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     * @param rawX x coordinate on the screen
+     * @param rawY y coordinate on the screen
      */
-    public DragAndDroppable addOnHoverDrawable(View onHoverTargetView, int resID) throws IllegalStateException {
-        return addOnHoverDrawable(onHoverTargetView.getId(), resID);
+    private void mapToParent(float rawX, float rawY) {
+        mPoint[0] = rawX;
+        mPoint[1] = rawY;
+        if (!mTransformValid)
+            updateTransform();
+        mScreenToParent.mapPoints(mPoint);
     }
 
     /**
-     * OnHoverHoverVibrate may be set in Milliseconds so that
-     * the device vibrates on hovering over a droppable
+     * Computes the matrix that maps screen coordinates to the coordinates of the parent.
+     * The result is inverted once.
+     */
+    private void updateTransform() {
+        Matrix matrix = mScreenToParent;
+        matrix.reset();
+        postParentToScreen(matrix);
+        matrix.invert(matrix);
+        mTransformValid = true;
+    }
+
+    /**
+     * Concats the transformation from the coordinates of the parent to screen coordinates to a matrix.
+     * Walks up the ancestors like {@link View#getLocationOnScreen(int[])} does: every ancestor
+     * applies its scroll, its transformation (scale, rotation and translation around its pivot)
+     * and its position in its own parent.
      *
-     * @param onHoverVibrateMs Milliseconds to vibrate
-     * @return this for method chaining
+     * @param matrix the matrix to post concat the transformation to
      */
-    public DragAndDroppable setOnHoverVibrate(int onHoverVibrateMs) {
-        if (mVibrator == null)
-            mVibrator = (Vibrator) mContext.getSystemService(Context.VIBRATOR_SERVICE);
-        mOnHoverVibrateMs = onHoverVibrateMs;
-        return this;
+    private void postParentToScreen(Matrix matrix) {
+        View view = mView;
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            view = (View) parent;
+            matrix.postTranslate(-view.getScrollX(), -view.getScrollY());
+            Matrix transformation = view.getMatrix();
+            if (!transformation.isIdentity())
+                matrix.postConcat(transformation);
+            matrix.postTranslate(view.getLeft(), view.getTop());
+            parent = view.getParent();
+        }
+        // The position of the window on the screen
+        view.getLocationOnScreen(mLocation);
+        matrix.postTranslate(mLocation[0] - view.getLeft(), mLocation[1] - view.getTop());
     }
 
     /**
-     * SETTERS
+     * Marks the screen to parent transformation as outdated, so it's computed again on the next move.
+     * Layout and scroll changes during a drag are noticed automatically, call it yourself if an
+     * ancestor's scale, rotation or translation is changed during a drag (i.e. while zooming a canvas).
      */
+    public void invalidateTransform() {
+        mTransformValid = false;
+    }
+
     /**
-     * Set the density of the screen if not done allready
+     * Starts noticing layout and scroll changes that make the transformation outdated, for one drag
      */
-    private void setDensity() {
-        if (DENSITY != 0f)
+    private void startObservingTransform() {
+        invalidateTransform();
+        if (mTransformObserver != null)
             return;
-        //DENSITY
-        DENSITY = mView.getResources().getDisplayMetrics().density;
+        mTransformObserver = mView.getViewTreeObserver();
+        mTransformObserver.addOnGlobalLayoutListener(mTransformLayoutListener);
+        mTransformObserver.addOnScrollChangedListener(mTransformScrollListener);
     }
 
     /**
-     * Sets the on drag listener for this object
-     *
-     * @param onDragListener the on drag listener
+     * Stops noticing layout and scroll changes at the end of a drag
      */
-    public void setOnDragListener(OnDragListener onDragListener) {
-        mOnDragListener = onDragListener;
-        DragAndDropManager.addDroppableListener(this);
+    private void stopObservingTransform() {
+        if (mTransformObserver == null)
+            return;
+        if (mTransformObserver.isAlive()) {
+            mTransformObserver.removeOnGlobalLayoutListener(mTransformLayoutListener);
+            mTransformObserver.removeOnScrollChangedListener(mTransformScrollListener);
+        }
+        mTransformObserver = null;
     }
 
     /**
-     * ISSERS
+     * Starts listening for attach state and layout changes of the view. Droppables only take part
+     * in drags while attached, scroll changes are observed by their {@link DragScope}.
+     */
+    private void observeView() {
+        if (mObservingView)
+            return;
+        mObservingView = true;
+        mView.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+            @Override
+            public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                                       int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                // Layouts elsewhere in the window lay the view out again without changing it
+                if (left != oldLeft || top != oldTop || right != oldRight || bottom != oldBottom)
+                    invalidateBounds();
+            }
+        });
+        mView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View view) {
+                DragAndDropManager.onDroppableAttached(DragAndDroppable.this);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View view) {
+                stopTrackingVelocity();
+                DragAndDropManager.onDroppableDetached(DragAndDroppable.this);
+            }
+        });
+    }
+
+    /**
+     * Recalculates the cached bounds of the view on the screen, the rect around the view as it's
+     * drawn with its own and its ancestors' transformation, and the matrix from screen to view coordinates
      */
+    @Override
+    public void updateBounds() {
+        Matrix matrix = mScreenToView;
+        matrix.reset();
+        Matrix transformation = mView.getMatrix();
+        if (!transformation.isIdentity())
+            matrix.postConcat(transformation);
+        matrix.postTranslate(mView.getLeft(), mView.getTop());
+        postParentToScreen(matrix);
+        mMappedBounds.set(0, 0, mView.getWidth(), mView.getHeight());
+        matrix.mapRect(mMappedBounds);
+        mBounds.set(mMappedBounds.left, mMappedBounds.top, mMappedBounds.right, mMappedBounds.bottom);
+        matrix.invert(matrix);
+        mBoundsValid = true;
+    }
+
     /**
-     * Is the Object draggable
+     * Gets the alpha mask of the drawable from the {@link HitMaskCache} and the matrix that
+     * maps view coordinates to it. ImageViews are masked by their image (with their padding
+     * and image matrix), other views by their background.
+     */
+    private void updateHitMask() {
+        mHitMaskValid = true;
+        mHitMask = null;
+        Drawable drawable = null;
+        Matrix imageMatrix = null;
+        if (mView instanceof ImageView) {
+            // While hovered the hover drawable is shown, the shape is the one of the original
+            drawable = mHoverCount > 0 && mOnHoverDrawableRes != 0 ? mOriginalDrawable : ((ImageView) mView).getDrawable();
+            imageMatrix = ((ImageView) mView).getImageMatrix();
+        }
+        if (drawable == null) {
+            drawable = mView.getBackground();
+            imageMatrix = null;
+        }
+        if (drawable == null)
+            return;
+        mHitMask = HitMaskCache.getInstance().getMask(drawable);
+        if (mHitMask == null)
+            return;
+        Rect bounds = drawable.getBounds();
+        Matrix matrix = mHitMatrix;
+        matrix.reset();
+        if (imageMatrix != null) {
+            matrix.postTranslate(-mView.getPaddingLeft(), -mView.getPaddingTop());
+            if (!imageMatrix.isIdentity() && imageMatrix.invert(mHitInverse))
+                matrix.postConcat(mHitInverse);
+        }
+        matrix.postTranslate(-bounds.left, -bounds.top);
+        matrix.postScale((float) mHitMask.getWidth() / bounds.width(), (float) mHitMask.getHeight() / bounds.height());
+    }
+
+    /**
+     * Marks the hit mask as outdated, so it's looked up again when the bounds are measured next.
+     * Call it if the drawable of a shaped droppable has been replaced.
+     */
+    public void invalidateHitMask() {
+        mHitMaskValid = false;
+        invalidateBounds();
+    }
+
+    /**
+     * Marks the cached bounds as outdated so they are recalculated on the next drag event.
+     * This happens automatically on layout and scroll changes, call it yourself if the view
+     * is moved by other means (i.e. by changing the translation of an ancestor) during a drag.
+     */
+    @Override
+    public void invalidateBounds() {
+        mHitMaskValid = false;
+        if (!mBoundsValid)
+            return;
+        mBoundsValid = false;
+        if (mScope != null)
+            mScope.onBoundsInvalidated();
+    }
+
+    /**
+     * Moves the cached bounds without measuring the view again, used while its container is scrolled
      *
-     * @return wether the object is draggable
+     * @param dx the horizontal distance
+     * @param dy the vertical distance
      */
-    public boolean isDraggable() {
-        return mIsDraggable;
+    @Override
+    public void offsetBounds(float dx, float dy) {
+        mBounds.offset(dx, dy);
     }
 
     /**
-     * Is the Object droppable
+     * Called if the container of the dragged view has been auto-scrolled. The view moved
+     * with the content, so it's moved back under the pointer.
      *
-     * @return wether the object is droppable
+     * @param dx the distance the content moved horizontally on the screen
+     * @param dy the distance the content moved vertically on the screen
      */
-    public boolean isDroppable() {
-        return mIsDroppable;
+    void onAutoScrolled(float dx, float dy) {
+        // The distance in parent coordinates, the pointer moved the same distance relative to the parent
+        mPoint[0] = -dx;
+        mPoint[1] = -dy;
+        if (!mTransformValid)
+            updateTransform();
+        mScreenToParent.mapVectors(mPoint);
+        if (mShadowDragging) {
+            // The shadow stays under the pointer, only the distance to move the view at the drop changes
+            mShadowOffsetX += mPoint[0];
+            mShadowOffsetY += mPoint[1];
+        } else {
+            mView.setX(mView.getX() + mPoint[0]);
+            mView.setY(mView.getY() + mPoint[1]);
+        }
+        mTouchPoint.offset(mPoint[0], mPoint[1]);
+        invalidateTransform();
     }
 
     /**
-     * GETTERS
+     * Resets the position of the view to its origin
+     */
+    public void resetPosition() {
+        cancelAnimation();
+        mView.setX(mStartX);
+        mView.setY(mStartY);
+    }
+
+    /**
+     * Animates the view back to its origin, starting with the release velocity of the drag.
+     * Runs as a {@link ViewPropertyAnimator} on a hardware layer, so a busy UI thread after the
+     * drop doesn't make it stutter. A new drag interrupts it.
      */
+    public void animateResetPosition() {
+        animateTo(mStartX, mStartY, true);
+    }
+
     /**
-     * Get the original Android View
+     * Animates the view to the center of a droppable, starting with the release velocity of the drag
      *
-     * @return the original android view
+     * @param droppable the droppable the view has been dropped on
      */
-    public View getView() {
-        return mView;
+    public void animateSettleInto(DragAndDroppable droppable) {
+        Bounds bounds = droppable.getBounds();
+        mPoint[0] = (bounds.left + bounds.right) / 2;
+        mPoint[1] = (bounds.top + bounds.bottom) / 2;
+        invalidateTransform();
+        updateTransform();
+        mScreenToParent.mapPoints(mPoint);
+        animateTo(mPoint[0] - mView.getWidth() / 2f, mPoint[1] - mView.getHeight() / 2f, false);
     }
 
     /**
-     * Get the on drag listener
-     * @return the on drag listener
+     * Lets the view glide on in the direction it has been released with, slowing down to a stop
      */
-    public OnDragListener getOnDragListener() {
-        return mOnDragListener;
+    public void animateFling() {
+        // Parent coordinates, for an ease out the distance is half of velocity * duration
+        mPoint[0] = mReleaseVelocityX;
+        mPoint[1] = mReleaseVelocityY;
+        invalidateTransform();
+        updateTransform();
+        mScreenToParent.mapVectors(mPoint);
+        float seconds = FLING_DURATION / 1000f;
+        animate(mView.getX() + mPoint[0] * seconds / 2, mView.getY() + mPoint[1] * seconds / 2, FLING_DURATION, false);
+    }
+
+    /**
+     * Cancels a running snap-back, settle or fling animation, the view stays where it is
+     */
+    public void cancelAnimation() {
+        if (!mAnimating)
+            return;
+        mAnimating = false;
+        mAnimatingHome = false;
+        mView.animate().cancel();
+    }
+
+    /**
+     * Animates the view to a position in parent coordinates. The duration is chosen so that the
+     * ease out starts with the part of the release velocity that points to the position.
+     */
+    private void animateTo(float x, float y, boolean home) {
+        float dx = x - mView.getX(), dy = y - mView.getY();
+        float distance = (float) Math.hypot(dx, dy);
+        mPoint[0] = mReleaseVelocityX;
+        mPoint[1] = mReleaseVelocityY;
+        if (!mTransformValid)
+            updateTransform();
+        mScreenToParent.mapVectors(mPoint);
+        // Released away from the position, the animation starts slowly
+        float velocity = distance > 0 ? (mPoint[0] * dx + mPoint[1] * dy) / distance : 0;
+        long duration = MAX_ANIMATION_DURATION;
+        if (velocity > 0)
+            duration = Math.max(MIN_ANIMATION_DURATION, Math.min(MAX_ANIMATION_DURATION, (long) (2000 * distance / velocity)));
+        animate(x, y, duration, home);
+    }
+
+    private void animate(float x, float y, long duration, boolean home) {
+        cancelAnimation();
+        ViewPropertyAnimator animator = mView.animate()
+                .x(x)
+                .y(y)
+                .setDuration(duration)
+                .setInterpolator(ANIMATION_INTERPOLATOR);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            animator.withLayer().withEndAction(mAnimationEndAction);
+        mAnimating = true;
+        mAnimatingHome = home;
+        animator.start();
+    }
+
+    /**
+     * Called by the {@link DragAndDropManager} after a drag of this object has ended and the
+     * listeners have been informed, runs the automatic snap-back and settle animations
+     *
+     * @param droppedOn the droppable this object has been dropped on or null if there's none
+     */
+    void onDragFinished(DragAndDroppable droppedOn) {
+        if (droppedOn != null && mSettleOnDrop) {
+            animateSettleInto(droppedOn);
+        } else if (droppedOn == null && mSnapBack) {
+            animateResetPosition();
+            // The whole selection snaps back
+            if (mDragGroup != null) {
+                for (int i = 0; i < mDragGroup.size(); i++) {
+                    if (mDragGroup.get(i) != this)
+                        mDragGroup.get(i).animateResetPosition();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts tracking the velocity of a new drag
+     */
+    private void startTrackingVelocity(MotionEvent event) {
+        if (mVelocityTracker == null)
+            mVelocityTracker = VelocityTracker.obtain();
+        mVelocityTracker.clear();
+        mReleaseVelocityX = mReleaseVelocityY = 0;
+        trackVelocity(event);
+    }
+
+    /**
+     * Adds the raw samples of a motion event to the velocity tracker
+     */
+    private void trackVelocity(MotionEvent event) {
+        if (mVelocityTracker == null)
+            return;
+        // The view moves under the pointer, so track screen coordinates
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        event.offsetLocation(offsetX, offsetY);
+        mVelocityTracker.addMovement(event);
+        event.offsetLocation(-offsetX, -offsetY);
+    }
+
+    /**
+     * Gives the velocity tracker back to the framework's pool, the next drag obtains one again
+     */
+    private void stopTrackingVelocity() {
+        if (mVelocityTracker == null)
+            return;
+        mVelocityTracker.recycle();
+        mVelocityTracker = null;
+    }
+
+    /**
+     * Computes the velocity the view has been released with
+     */
+    private void computeReleaseVelocity() {
+        if (mVelocityTracker == null)
+            return;
+        mVelocityTracker.computeCurrentVelocity(1000);
+        mReleaseVelocityX = mVelocityTracker.getXVelocity();
+        mReleaseVelocityY = mVelocityTracker.getYVelocity();
+    }
+
+    /**
+     * Callback that is called on drag hover
+     */
+    public void onDragHover() {
+        // Change the onHoverDrawable if set (and not allready changed by another drag)
+        if (mHoverCount++ == 0 && mOnHoverDrawableRes != 0)
+            ((ImageView) mView).setImageDrawable(getHoverDrawable(mOnHoverDrawableRes));
+
+        // If the onHoverVibration's not set or we did allready hover - return
+        if (mOnHoverVibrateMs == -1)
+            return;
+
+        // Vibrate for 500 milliseconds
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            mVibrator.vibrate(VibrationEffect.createOneShot(mOnHoverVibrateMs, VibrationEffect.DEFAULT_AMPLITUDE));
+        } else {
+            //deprecated in API 26
+            mVibrator.vibrate(mOnHoverVibrateMs);
+        }
+    }
+
+    /**
+     * Callback that is called on drag hover
+     *
+     * @param droppable the droppable that's hovered
+     */
+    public void onDragHover(DragAndDroppable droppable) {
+        int onHoverDrawableRes;
+        if((onHoverDrawableRes = mOnHoverDrawables.get(droppable.getView().getId())) != 0) {
+            ((ImageView) mView).setImageDrawable(getHoverDrawable(onHoverDrawableRes));
+        }
+    }
+
+    /**
+     * Callback that is called on drag exit
+     *
+     * @param droppable the droppable that's hovered
+     */
+    public void onDragExit(DragAndDroppable droppable) {
+        // This if statement just checks wether there's a droppable
+        // in the mOnHoverDrawables list (-> so we know the drawable was changed on this hover)
+        if(mOnHoverDrawables.get(droppable.getView().getId()) != 0) {
+            ((ImageView) mView).setImageDrawable(mOriginalDrawable);
+        }
+    }
+
+    /**
+     * Callback that is called on drag exit
+     */
+    public void onDragExit() {
+        // Other drags might still hover this droppable
+        if (mHoverCount > 0 && --mHoverCount > 0)
+            return;
+        // Check if the onHoverDrawable has been changed
+        if(mOnHoverDrawableRes != 0)
+            ((ImageView) mView).setImageDrawable(mOriginalDrawable);
+    }
+
+    /**
+     * Offers the location of a drag to the throttle of this droppable
+     *
+     * @param dragId the id of the drag, every running drag has its own throttle
+     * @param event the motion event of the location
+     * @return wether the location should be received, false if it's suppressed
+     */
+    boolean offerLocation(int dragId, MotionEvent event) {
+        int minDistanceDp = mLocationMinDistanceDp != -1 ? mLocationMinDistanceDp : DragAndDropManager.getLocationMinDistanceDp();
+        long minIntervalMillis = mLocationMinIntervalMillis != -1 ? mLocationMinIntervalMillis : DragAndDropManager.getLocationMinIntervalMillis();
+        if (minDistanceDp <= 0 && minIntervalMillis <= 0)
+            return true;
+        if (mLocationThrottles == null)
+            mLocationThrottles = new SparseArray<>();
+        LocationThrottle throttle = mLocationThrottles.get(dragId);
+        if (throttle == null) {
+            if (mEndedLocationThrottle != null) {
+                throttle = mEndedLocationThrottle;
+                mEndedLocationThrottle = null;
+                throttle.reset();
+            } else {
+                throttle = new LocationThrottle(0, 0);
+            }
+            mLocationThrottles.put(dragId, throttle);
+        }
+        throttle.setMinimums(Math.max(0, getPx(minDistanceDp)), Math.max(0, minIntervalMillis));
+        return throttle.offer(event.getRawX(), event.getRawY(), event.getEventTime());
+    }
+
+    /**
+     * Called by the {@link DragSession} if a drag ended, its throttle is kept as the one of the last drag
+     *
+     * @param dragId the id of the drag
+     */
+    void onLocationDragEnded(int dragId) {
+        if (mLocationThrottles == null)
+            return;
+        int index = mLocationThrottles.indexOfKey(dragId);
+        if (index < 0)
+            return;
+        mEndedLocationThrottle = mLocationThrottles.valueAt(index);
+        mLocationThrottles.removeAt(index);
+    }
+
+    /**
+     * Called if this droppable left its scope, it won't receive the locations of the running drags any more
+     */
+    void onLocationDragsLeft() {
+        if (mLocationThrottles != null)
+            mLocationThrottles.clear();
+    }
+
+    /**
+     * Called by the {@link DropPipeline} when an async drop on this droppable is submitted,
+     * shows the drop pending drawable (if set)
+     */
+    void onDropPending() {
+        if (mPendingDropCount++ == 0 && mOnDropPendingDrawableRes != 0) {
+            mDropPendingOriginalDrawable = ((ImageView) mView).getDrawable();
+            ((ImageView) mView).setImageDrawable(getHoverDrawable(mOnDropPendingDrawableRes));
+        }
+    }
+
+    /**
+     * Called by the {@link DropPipeline} when an async drop on this droppable is committed or
+     * canceled, restores the content once no drop is pending any more
+     */
+    void onDropFinished() {
+        if (mPendingDropCount == 0 || --mPendingDropCount > 0)
+            return;
+        if (mOnDropPendingDrawableRes != 0)
+            ((ImageView) mView).setImageDrawable(mDropPendingOriginalDrawable);
+        mDropPendingOriginalDrawable = null;
+    }
+
+    /**
+     * Decodes the hover drawables of this object ahead of time, so the first hover
+     * doesn't have to wait for them. Called when a drag starts.
+     */
+    public void prefetchHoverDrawables() {
+        HoverDrawableCache cache = HoverDrawableCache.getInstance();
+        if (mOnHoverDrawableRes != 0)
+            cache.prefetch(mContext, mOnHoverDrawableRes, mView.getWidth(), mView.getHeight());
+        if (mOnDropPendingDrawableRes != 0)
+            cache.prefetch(mContext, mOnDropPendingDrawableRes, mView.getWidth(), mView.getHeight());
+        for (int i = 0; i < mOnHoverDrawables.size(); i++) {
+            cache.prefetch(mContext, mOnHoverDrawables.valueAt(i), mView.getWidth(), mView.getHeight());
+        }
+    }
+
+    /**
+     * Get a hover drawable from the shared {@link HoverDrawableCache}, sized for this view
+     *
+     * @param resID the drawable resource id
+     * @return the hover drawable
+     */
+    private Drawable getHoverDrawable(int resID) {
+        return HoverDrawableCache.getInstance().getDrawable(mContext, resID, mView.getWidth(), mView.getHeight());
+    }
+
+    /**
+     * METHOD CHAINGING
+     */
+    /**
+     * Make the object draggable
+     *
+     * @return this for method chaining
+     */
+    public DragAndDroppable makeDraggable() {
+        makeDraggable(true);
+        return this;
+    }
+
+    /**
+     * Make the object draggable
+     *
+     * @param isDraggable wether the object should be draggable
+     * @return this for method chaining
+     */
+    public DragAndDroppable makeDraggable(boolean isDraggable) {
+        mIsDraggable = isDraggable;
+        return this;
+    }
+
+    /**
+     * Make the object droppable
+     *
+     * @return this for method chaining
+     */
+    public DragAndDroppable makeDroppable() {
+        makeDroppable(true);
+        return this;
+    }
+
+    /**
+     * Make the object droppable
+     *
+     * @param isDroppable wether the object should be droppable
+     * @return this for method chaining
+     */
+    public DragAndDroppable makeDroppable(boolean isDroppable) {
+        mIsDroppable = isDroppable;
+        return this;
+    }
+
+    /**
+     * If the View is an ImageView an OnHoverDrawable may be set
+     * which is shown onHover of the Droppable
+     *
+     * @param resID the onHover drawable
+     * @return this for method chaining
+     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     */
+    public DragAndDroppable setOnHoverDrawable(int resID) throws IllegalStateException {
+        if (!(mView instanceof ImageView))
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW);
+        mOriginalDrawable = ((ImageView) mView).getDrawable();
+        mOnHoverDrawableRes = resID;
+        return this;
+    }
+
+    /**
+     * If the View is an ImageView an OnHoverDrawable may be set
+     * which is shown onHover of the Droppable
+     *
+     * @param onHoverTarget the droppable view id
+     * @param resID the onHover drawable
+     * @return this for method chaining
+     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     */
+    public DragAndDroppable addOnHoverDrawable(int onHoverTarget, int resID) throws IllegalStateException {
+        if (!(mView instanceof ImageView))
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW);
+        mOriginalDrawable = ((ImageView) mView).getDrawable();
+        mOnHoverDrawables.put(onHoverTarget, resID);
+        return this;
+    }
+
+    /**
+     * If the View is an ImageView a drawable may be set that's shown while the
+     * {@link DropTask}s of drops on this droppable are pending
+     *
+     * @param resID the drop pending drawable
+     * @return this for method chaining
+     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     */
+    public DragAndDroppable setOnDropPendingDrawable(int resID) throws IllegalStateException {
+        if (!(mView instanceof ImageView))
+            throw new IllegalStateException(EXCEPTION_ILLEGAL_STATE_NO_IMAGE_VIEW);
+        mOnDropPendingDrawableRes = resID;
+        return this;
+    }
+
+    /**
+     * Simple overload method of addOnHoverDrawable(int, int)
+     *
+     * @param onHoverTargetView the droppable view
+     * @param resID the onHover drawable
+     * @return this for method chaining
+     * @throws IllegalStateException If the original view is no ImageView IllegalStateException is thrown
+     */
+    public DragAndDroppable addOnHoverDrawable(View onHoverTargetView, int resID) throws IllegalStateException {
+        return addOnHoverDrawable(onHoverTargetView.getId(), resID);
+    }
+
+    /**
+     * OnHoverHoverVibrate may be set in Milliseconds so that
+     * the device vibrates on hovering over a droppable
+     *
+     * @param onHoverVibrateMs Milliseconds to vibrate
+     * @return this for method chaining
+     */
+    public DragAndDroppable setOnHoverVibrate(int onHoverVibrateMs) {
+        if (mVibrator == null)
+            mVibrator = (Vibrator) mContext.getSystemService(Context.VIBRATOR_SERVICE);
+        mOnHoverVibrateMs = onHoverVibrateMs;
+        return this;
+    }
+
+    /**
+     * Collect the move events of a drag and apply them once per frame (synced to vsync by
+     * {@link Choreographer}): the view is moved to the newest touch sample and droppables are
+     * hit-tested only once per frame, no matter how fast the touchscreen reports.
+     * Needs API 16, on older devices every move event is applied right away.
+     *
+     * @param framePaced wether moves should be applied once per frame
+     * @return this for method chaining
+     */
+    public DragAndDroppable setFramePaced(boolean framePaced) {
+        mFramePaced = framePaced;
+        if (!isFramePaced())
+            flushPendingMove();
+        return this;
+    }
+
+    /**
+     * Droppables may ask for all touch samples that happened in between two drag events,
+     * see {@link DragAndDropEvent#getHistorySize()}
+     *
+     * @param receiveHistoricalPoints wether the listener should get the historical samples
+     * @return this for method chaining
+     */
+    public DragAndDroppable setReceiveHistoricalPoints(boolean receiveHistoricalPoints) {
+        mReceiveHistoricalPoints = receiveHistoricalPoints;
+        return this;
+    }
+
+    /**
+     * Droppables may subscribe to the drag actions they want to receive, i.e.
+     * maskOf(ACTION_DRAG_ENTERED) | maskOf(ACTION_DRAG_EXITED) | maskOf(ACTION_DROP) to skip the
+     * ACTION_DRAG_LOCATION events sent on every move. By default all actions are received.
+     *
+     * @param dragActionMask bitmask of {@link DragAndDropEvent#maskOf(int)} for the actions
+     * @return this for method chaining
+     */
+    public DragAndDroppable setDragActionMask(int dragActionMask) {
+        mDragActionMask = dragActionMask;
+        if (mScope != null)
+            mScope.onSubscriptionsChanged();
+        return this;
+    }
+
+    /**
+     * Throttles the ACTION_DRAG_LOCATION events of this droppable: a location is only received
+     * once the pointer moved the minimum distance and the minimum interval passed since the
+     * previously received one. Enter, exit and drop events are never throttled.
+     * Overrides the policy set with {@link DragAndDropManager#setLocationThrottle(int, long)},
+     * -1 takes the manager's value.
+     *
+     * @param minDistanceDp the minimum distance in dp, 0 to not throttle by distance
+     * @param minIntervalMillis the minimum interval in ms, 0 to not throttle by time
+     * @return this for method chaining
+     */
+    public DragAndDroppable setLocationThrottle(int minDistanceDp, long minIntervalMillis) {
+        mLocationMinDistanceDp = minDistanceDp;
+        mLocationMinIntervalMillis = minIntervalMillis;
+        return this;
+    }
+
+    /**
+     * Adds a virtual drop region (or moves it if the id is allready used). Regions are rects
+     * in the coordinates of this view that are hovered and dropped on like droppables of
+     * their own, so a single view can draw thousands of drop slots without a view per slot.
+     * Once a region has been added only the regions of this view are hovered, not the view
+     * itself. The listener gets the region with {@link DragAndDropEvent#getRegionId()}.
+     *
+     * @param regionId the id of the region, not negative
+     * @param left left bound in view coordinates
+     * @param top top bound in view coordinates
+     * @param right right bound in view coordinates
+     * @param bottom bottom bound in view coordinates
+     * @return this for method chaining
+     * @throws IllegalArgumentException If the region id is negative IllegalArgumentException is thrown
+     */
+    public DragAndDroppable addDropRegion(int regionId, float left, float top, float right, float bottom)
+            throws IllegalArgumentException {
+        if (mDropRegions == null)
+            mDropRegions = new DropRegions();
+        mDropRegions.put(regionId, left, top, right, bottom);
+        return this;
+    }
+
+    /**
+     * Simple overload method of addDropRegion(int, float, float, float, float)
+     *
+     * @param regionId the id of the region, not negative
+     * @param rect the bounds in view coordinates
+     * @return this for method chaining
+     * @throws IllegalArgumentException If the region id is negative IllegalArgumentException is thrown
+     */
+    public DragAndDroppable addDropRegion(int regionId, Rect rect) throws IllegalArgumentException {
+        return addDropRegion(regionId, rect.left, rect.top, rect.right, rect.bottom);
+    }
+
+    /**
+     * Replaces all drop regions by a list of rects, the position in the list is the region id
+     *
+     * @param rects the bounds of the regions in view coordinates
+     * @return this for method chaining
+     */
+    public DragAndDroppable setDropRegions(List<Rect> rects) {
+        clearDropRegions();
+        for (int i = 0; i < rects.size(); i++) {
+            addDropRegion(i, rects.get(i));
+        }
+        return this;
+    }
+
+    /**
+     * Removes a drop region
+     *
+     * @param regionId the id of the region
+     * @return this for method chaining
+     */
+    public DragAndDroppable removeDropRegion(int regionId) {
+        if (mDropRegions != null)
+            mDropRegions.remove(regionId);
+        return this;
+    }
+
+    /**
+     * Removes all drop regions. The view keeps being droppable only in its regions,
+     * so it isn't hovered until new regions are added.
+     *
+     * @return this for method chaining
+     */
+    public DragAndDroppable clearDropRegions() {
+        if (mDropRegions == null)
+            mDropRegions = new DropRegions();
+        mDropRegions.clear();
+        return this;
+    }
+
+    /**
+     * Drag a snapshot of the view instead of the view itself: the view is drawn once into a
+     * pooled bitmap when the drag starts and only the snapshot is moved (in the overlay of the
+     * root view, on a hardware layer). The view stays in place until the drop, then it's moved
+     * to where the snapshot has been dragged to. This keeps every frame cheap for views that are
+     * expensive to draw or lay out. Hover drawables of the dragged view change the view, not
+     * the snapshot. Needs API 18, on older devices the view itself is moved.
+     *
+     * @param dragShadow wether a snapshot should be dragged
+     * @return this for method chaining
+     */
+    public DragAndDroppable setDragShadow(boolean dragShadow) {
+        mDragShadowEnabled = dragShadow;
+        return this;
+    }
+
+    /**
+     * Animate the view back to its origin when it's dropped outside of any droppable
+     * or the drag is canceled, see {@link #animateResetPosition()}
+     *
+     * @param snapBack wether the view should snap back
+     * @return this for method chaining
+     */
+    public DragAndDroppable setSnapBack(boolean snapBack) {
+        mSnapBack = snapBack;
+        return this;
+    }
+
+    /**
+     * Animate the view to the center of the droppable it's dropped on,
+     * see {@link #animateSettleInto(DragAndDroppable)}
+     *
+     * @param settleOnDrop wether the view should settle into the droppable
+     * @return this for method chaining
+     */
+    public DragAndDroppable setSettleOnDrop(boolean settleOnDrop) {
+        mSettleOnDrop = settleOnDrop;
+        return this;
+    }
+
+    /**
+     * Scroll the nearest scrolling ancestor (i.e. a ScrollView or RecyclerView) while this object
+     * is dragged near one of its edges, so droppables that are off-screen can be reached.
+     * The closer the pointer gets to the edge the faster it scrolls.
+     *
+     * @param autoScroll wether the container should be scrolled
+     * @return this for method chaining
+     */
+    public DragAndDroppable setAutoScroll(boolean autoScroll) {
+        mAutoScroll = autoScroll;
+        return this;
+    }
+
+    /**
+     * Scroll a specific container while this object is dragged near one of its edges
+     *
+     * @param container the scrolling container
+     * @return this for method chaining
+     */
+    public DragAndDroppable setAutoScroll(View container) {
+        mAutoScroll = true;
+        mAutoScrollContainer = container;
+        return this;
+    }
+
+    /**
+     * Move the view to where the finger is expected to be when the next frame is displayed
+     * instead of where it has last been reported, so it doesn't trail the finger. The pointer
+     * is extrapolated from its velocity and acceleration, clamped, and not extrapolated
+     * while it turns sharply. At the drop the view is moved to the actual pointer.
+     *
+     * @param pointerPrediction wether the pointer should be predicted
+     * @return this for method chaining
+     */
+    public DragAndDroppable setPointerPrediction(boolean pointerPrediction) {
+        mPointerPrediction = pointerPrediction;
+        return this;
+    }
+
+    /**
+     * Also hit-test droppables at the predicted pointer, so hovers start a frame earlier.
+     * Pointer prediction is enabled as long as predictive hover is, the drop is still hit-tested
+     * at the actual pointer.
+     *
+     * @param predictiveHover wether droppables should be hovered at the predicted pointer
+     * @return this for method chaining
+     */
+    public DragAndDroppable setPredictiveHover(boolean predictiveHover) {
+        mPredictiveHover = predictiveHover;
+        return this;
+    }
+
+    /**
+     * Set the size of the edge zones and the scroll velocity at the edge
+     *
+     * @param edgeDp the size of the edge zones in dp, by default 48
+     * @param maxVelocityDp the velocity at the edge in dp per second, by default 1500
+     * @return this for method chaining
+     */
+    public DragAndDroppable setAutoScrollEdge(int edgeDp, int maxVelocityDp) {
+        mAutoScrollEdgeDp = edgeDp;
+        mAutoScrollMaxVelocityDp = maxVelocityDp;
+        return this;
+    }
+
+    /**
+     * Hit-test this droppable by the shape of its drawable instead of its bounds, i.e. for round
+     * avatars or icons with transparent padding: only opaque pixels are hovered. The shape is
+     * a small alpha mask that's rendered once per drawable and cached in the {@link HitMaskCache},
+     * the bounds stay the fast pre-filter.
+     *
+     * @param shaped wether the droppable is hit-tested by its shape
+     * @return this for method chaining
+     */
+    public DragAndDroppable setShapedHitTest(boolean shaped) {
+        mShaped = shaped;
+        mHitMaskValid = false;
+        return this;
+    }
+
+    /**
+     * Sets the filter that decides which dragged objects this droppable accepts. It's asked once
+     * when a drag starts, droppables that refuse the dragged object are neither hit-tested nor
+     * informed about its drag.
+     *
+     * @param dropFilter the filter or null to accept all dragged objects
+     * @return this for method chaining
+     */
+    public DragAndDroppable setDropFilter(DropFilter dropFilter) {
+        mDropFilter = dropFilter;
+        return this;
+    }
+
+    /**
+     * SETTERS
+     */
+    /**
+     * Set the density of the screen if not done allready
+     */
+    private void setDensity() {
+        if (DENSITY != 0f)
+            return;
+        //DENSITY
+        DENSITY = mView.getResources().getDisplayMetrics().density;
+    }
+
+    /**
+     * Sets the on drag listener for this object
+     *
+     * @param onDragListener the on drag listener
+     */
+    public void setOnDragListener(OnDragListener onDragListener) {
+        mOnDragListener = onDragListener;
+        observeView();
+        DragAndDropManager.addDroppableListener(this);
+    }
+
+    /**
+     * Sets the on drag batch listener for this object. It gets all drag events of a frame at
+     * once, right before the frame is drawn, so heavy listeners update only once per frame.
+     * It may be used instead of the on drag listener or together with it.
+     *
+     * @param onDragBatchListener the on drag batch listener or null to remove it
+     */
+    public void setOnDragBatchListener(OnDragBatchListener onDragBatchListener) {
+        mOnDragBatchListener = onDragBatchListener;
+        if (onDragBatchListener == null)
+            return;
+        if (mDragBatch == null)
+            mDragBatch = new DragAndDropBatch();
+        observeView();
+        DragAndDropManager.addDroppableListener(this);
+    }
+
+    /**
+     * Set the group this object is dragged with, called by the {@link DragGroup}
+     *
+     * @param dragGroup the group or null if it's not part of one
+     */
+    void setDragGroup(DragGroup dragGroup) {
+        mDragGroup = dragGroup;
+    }
+
+    /**
+     * Set the scope this droppable is part of
+     *
+     * @param scope the scope or null if it's not part of one
+     */
+    void setScope(DragScope scope) {
+        mScope = scope;
+    }
+
+    /**
+     * Set wether this droppable is registered with the {@link DragAndDropManager}
+     *
+     * @param registered wether the droppable is registered
+     */
+    void setRegistered(boolean registered) {
+        mRegistered = registered;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Are async drops on this droppable pending
+     *
+     * @return wether the tasks of drops on this droppable haven't been committed yet
+     */
+    public boolean isDropPending() {
+        return mPendingDropCount > 0;
+    }
+
+    /**
+     * Does this droppable accept a dragged object
+     *
+     * @param dragged the object that is being dragged
+     * @return wether the dragged object may be dropped on this droppable
+     */
+    public boolean accepts(DragAndDroppable dragged) {
+        return mDropFilter == null || mDropFilter.accepts(this, dragged);
+    }
+
+    /**
+     * Is the Object draggable
+     *
+     * @return wether the object is draggable
+     */
+    public boolean isDraggable() {
+        return mIsDraggable;
+    }
+
+    /**
+     * Is the Object droppable
+     *
+     * @return wether the object is droppable
+     */
+    public boolean isDroppable() {
+        return mIsDroppable;
+    }
+
+    /**
+     * Is the droppable registered with the {@link DragAndDropManager}
+     *
+     * @return wether the droppable is registered
+     */
+    public boolean isRegistered() {
+        return mRegistered;
+    }
+
+    /**
+     * Are moves applied once per frame
+     *
+     * @return wether frame pacing is enabled and supported
+     */
+    public boolean isFramePaced() {
+        return mFramePaced && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    }
+
+    /**
+     * Did the listener subscribe to a drag action
+     *
+     * @param action the drag action
+     * @return wether events with this action are received
+     */
+    @Override
+    public boolean subscribesTo(int action) {
+        return (mDragActionMask & DragAndDropEvent.maskOf(action)) != 0;
+    }
+
+    /**
+     * Is the pointer predicted to the display time of the next frame
+     *
+     * @return wether pointer prediction is enabled, by itself or by predictive hover
+     */
+    public boolean isPointerPrediction() {
+        return mPointerPrediction || mPredictiveHover;
+    }
+
+    /**
+     * Are droppables hit-tested at the predicted pointer
+     *
+     * @return wether predictive hover is enabled
+     */
+    public boolean isPredictiveHover() {
+        return mPredictiveHover && mPredictor != null;
+    }
+
+    /**
+     * Is a snapshot dragged instead of the view
+     *
+     * @return wether the drag shadow is enabled and supported
+     */
+    public boolean isDragShadow() {
+        return mDragShadowEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * Is the scrolling container auto-scrolled while dragging near its edges
+     *
+     * @return wether auto-scroll is enabled
+     */
+    public boolean isAutoScroll() {
+        return mAutoScroll;
+    }
+
+    /**
+     * Does this droppable have drop regions, then it's only hovered in its regions
+     *
+     * @return wether drop regions have been added
+     */
+    @Override
+    public boolean hasRegions() {
+        return mDropRegions != null;
+    }
+
+    /**
+     * Find the drop region at a point on the screen
+     *
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @return the id of the region or {@link DragAndDropEvent#NO_REGION} if there's none
+     */
+    @Override
+    public int findRegion(float x, float y) {
+        if (mDropRegions == null)
+            return NO_REGION;
+        mapToView(x, y);
+        return mDropRegions.find(mHitPoint[0], mHitPoint[1]);
+    }
+
+    /**
+     * Is this droppable hit-tested by the shape of its drawable
+     *
+     * @return wether shaped hit-testing is enabled
+     */
+    @Override
+    public boolean hasShape() {
+        return mShaped;
+    }
+
+    /**
+     * Does the shape of the drawable contain a point on the screen. Views without a
+     * drawable are hit like rects.
+     *
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     * @return wether the point hits an opaque part of the drawable
+     */
+    @Override
+    public boolean shapeContains(float x, float y) {
+        if (!mHitMaskValid)
+            updateHitMask();
+        if (mHitMask == null)
+            return true;
+        mapToView(x, y);
+        mHitMatrix.mapPoints(mHitPoint);
+        return mHitMask.contains(mHitPoint[0], mHitPoint[1]);
+    }
+
+    /**
+     * Maps a point on the screen to the coordinates of the view into mHitPoint
+     *
+     * @param x x coordinate on the screen
+     * @param y y coordinate on the screen
+     */
+    private void mapToView(float x, float y) {
+        if (!mBoundsValid)
+            updateBounds();
+        mHitPoint[0] = x;
+        mHitPoint[1] = y;
+        mScreenToView.mapPoints(mHitPoint);
+    }
+
+    /**
+     * Does the listener get the historical touch samples
+     *
+     * @return wether historical samples are delivered
+     */
+    public boolean receivesHistoricalPoints() {
+        return mReceiveHistoricalPoints;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the original Android View
+     *
+     * @return the original android view
+     */
+    public View getView() {
+        return mView;
+    }
+
+    /**
+     * Get the horizontal velocity the view has been released with at the end of the last drag
+     *
+     * @return the velocity in px per second on the screen
+     */
+    public float getReleaseVelocityX() {
+        return mReleaseVelocityX;
+    }
+
+    /**
+     * Get the vertical velocity the view has been released with at the end of the last drag
+     *
+     * @return the velocity in px per second on the screen
+     */
+    public float getReleaseVelocityY() {
+        return mReleaseVelocityY;
+    }
+
+    /**
+     * Get the predicted x coordinate of the pointer on the screen
+     *
+     * @return the x coordinate of the last prediction
+     */
+    float getPredictedRawX() {
+        return mPredictor.getPredictedX();
+    }
+
+    /**
+     * Get the predicted y coordinate of the pointer on the screen
+     *
+     * @return the y coordinate of the last prediction
+     */
+    float getPredictedRawY() {
+        return mPredictor.getPredictedY();
+    }
+
+    /**
+     * Get the group this object is dragged with
+     *
+     * @return the group or null if it's dragged alone
+     */
+    public DragGroup getDragGroup() {
+        return mDragGroup;
+    }
+
+    /**
+     * Get the container that's auto-scrolled
+     *
+     * @return the container or null if the nearest scrolling ancestor is used
+     */
+    public View getAutoScrollContainer() {
+        return mAutoScrollContainer;
+    }
+
+    /**
+     * Get the size of the auto-scroll edge zones
+     *
+     * @return the size in px
+     */
+    int getAutoScrollEdgePx() {
+        return getPx(mAutoScrollEdgeDp);
+    }
+
+    /**
+     * Get the auto-scroll velocity at the edge
+     *
+     * @return the velocity in px per second
+     */
+    int getAutoScrollMaxVelocityPx() {
+        return getPx(mAutoScrollMaxVelocityDp);
+    }
+
+    /**
+     * Get the cached bounds of the view on the screen, recalculated if they are outdated.
+     * The returned rect is owned by this object and must not be modified.
+     *
+     * @return the bounds of the view on the screen
+     */
+    @Override
+    public Bounds getBounds() {
+        if (!mBoundsValid)
+            updateBounds();
+        return mBounds;
+    }
+
+    /**
+     * Are the cached bounds up to date
+     *
+     * @return wether the cached bounds are valid
+     */
+    @Override
+    public boolean hasValidBounds() {
+        return mBoundsValid;
+    }
+
+    /**
+     * Get the scope this droppable is part of
+     *
+     * @return the scope or null if the droppable isn't registered or attached
+     */
+    public DragScope getScope() {
+        return mScope;
+    }
+
+    /**
+     * Get the touch samples in between the current and the previous drag event
+     *
+     * @return the drag history
+     */
+    DragHistory getHistory() {
+        return mHistory;
+    }
+
+    /**
+     * Get the drag actions the listener subscribed to
+     *
+     * @return bitmask of {@link DragAndDropEvent#maskOf(int)} for the actions
+     */
+    public int getDragActionMask() {
+        return mDragActionMask;
+    }
+
+    /**
+     * Get the on drag listener
+     * @return the on drag listener
+     */
+    public OnDragListener getOnDragListener() {
+        return mOnDragListener;
+    }
+
+    /**
+     * Get the number of ACTION_DRAG_LOCATION events the throttle of this droppable has
+     * suppressed during the running drags (summed up if several objects are dragged at once),
+     * or during the last drag if none is running
+     * @return the suppressed count
+     */
+    public int getSuppressedLocationCount() {
+        if (mLocationThrottles == null || mLocationThrottles.size() == 0)
+            return mEndedLocationThrottle == null ? 0 : mEndedLocationThrottle.getSuppressedCount();
+        int count = 0;
+        for (int i = 0; i < mLocationThrottles.size(); i++) {
+            count += mLocationThrottles.valueAt(i).getSuppressedCount();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of ACTION_DRAG_LOCATION events the throttle of this droppable has
+     * suppressed during the running drag of an object
+     * @param dragged the dragged object
+     * @return the suppressed count, 0 if the object isn't being dragged
+     */
+    public int getSuppressedLocationCount(DragAndDroppable dragged) {
+        DragSession session = DragAndDropManager.getSession(dragged);
+        if (session == null || mLocationThrottles == null)
+            return 0;
+        LocationThrottle throttle = mLocationThrottles.get(session.getDragId());
+        return throttle == null ? 0 : throttle.getSuppressedCount();
+    }
+
+    /**
+     * Get the on drag batch listener
+     * @return the on drag batch listener or null if there's none
+     */
+    public OnDragBatchListener getOnDragBatchListener() {
+        return mOnDragBatchListener;
+    }
+
+    /**
+     * Get the batch the events for the on drag batch listener are collected in
+     * @return the batch or null if there never has been a batch listener
+     */
+    DragAndDropBatch getDragBatch() {
+        return mDragBatch;
     }
 
     /**
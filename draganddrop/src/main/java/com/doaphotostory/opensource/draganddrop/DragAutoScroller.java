@@ -0,0 +1,253 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewParent;
+
+import com.doaphotostory.opensource.draganddrop.core.EdgeScroll;
+
+import java.util.ArrayList;
+
+/**
+ * DragAutoScroller scrolls the scrolling container of a dragged view (i.e. a ScrollView,
+ * HorizontalScrollView or RecyclerView) while the pointer is inside one of its edge zones,
+ * so droppables that are off-screen can be reached. It's driven by {@link Choreographer} and
+ * scrolls once per frame with a velocity that's proportional to how deep the pointer is inside
+ * the edge zone.
+ *
+ * The cached bounds of the droppables inside the container are moved by the scrolled distance
+ * instead of being measured again, so scrolling doesn't rescan the view hierarchy.
+ * Every {@link DragSession} owns a scroller, it's only used on the UI thread.
+ */
+class DragAutoScroller implements Choreographer.FrameCallback {
+
+    // Assumed duration of the first frame of a scroll
+    private static final long FIRST_FRAME_NANOS = 16666667L;
+
+    private DragSession mSession;
+    private DragAndDroppable mDragTarget;
+    // The scrolling container and its bounds on the screen, measured when the drag starts
+    private View mContainer;
+    private final int[] mLocation = new int[2];
+    private float mLeft, mTop, mRight, mBottom;
+    // Wether the dragged view is scrolled with the content of the container
+    private boolean mDragTargetInside;
+
+    // The latest move of the drag
+    private MotionEvent mLastMove;
+    private boolean mFrameScheduled = false;
+    private long mLastFrameNanos = 0;
+    // Sub pixel distances that are carried over to the next frame
+    private float mRemainderX, mRemainderY;
+
+    // The droppables inside the container, collected again when the scope changes
+    private final ArrayList<DragAndDroppable> mScrolledDroppables = new ArrayList<>();
+    private int mScopeModCount = -1;
+    // A droppable inside the container, used to measure how far content moved that doesn't use scrollX/Y
+    private DragAndDroppable mReference;
+
+    /**
+     * Starts auto-scrolling for a drag if the dragged object enabled it and has a scrolling container
+     * @param session the drag session
+     * @param dragTarget the dragged object
+     */
+    void start(DragSession session, DragAndDroppable dragTarget) {
+        stop();
+        if (!dragTarget.isAutoScroll())
+            return;
+        View container = dragTarget.getAutoScrollContainer();
+        if (container == null)
+            container = findScrollingContainer(dragTarget.getView());
+        if (container == null)
+            return;
+        mSession = session;
+        mDragTarget = dragTarget;
+        mContainer = container;
+        mContainer.getLocationOnScreen(mLocation);
+        mLeft = mLocation[0];
+        mTop = mLocation[1];
+        mRight = mLeft + mContainer.getWidth();
+        mBottom = mTop + mContainer.getHeight();
+        mDragTargetInside = DragScope.isDescendant(dragTarget.getView(), mContainer);
+        mScopeModCount = -1;
+    }
+
+    /**
+     * Called on every move of the drag, starts scrolling if the pointer is inside an edge zone
+     * @param event the move event
+     */
+    void onMove(MotionEvent event) {
+        if (mContainer == null)
+            return;
+        if (mLastMove != null)
+            mLastMove.recycle();
+        // The event is recycled after dispatching, keep a (pooled) copy for the following frames
+        mLastMove = MotionEvent.obtain(event);
+        if (!mFrameScheduled && (velocityX() != 0 || velocityY() != 0)) {
+            mFrameScheduled = true;
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stops scrolling, called when the drag ends
+     */
+    void stop() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        if (mLastMove != null) {
+            mLastMove.recycle();
+            mLastMove = null;
+        }
+        mSession = null;
+        mDragTarget = null;
+        mContainer = null;
+        mReference = null;
+        mScrolledDroppables.clear();
+        mRemainderX = mRemainderY = 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        if (mContainer == null || mLastMove == null)
+            return;
+        float vx = velocityX(), vy = velocityY();
+        if (vx == 0 && vy == 0)
+            return;
+        long frameNanos = mLastFrameNanos == 0 ? FIRST_FRAME_NANOS : frameTimeNanos - mLastFrameNanos;
+        mLastFrameNanos = frameTimeNanos;
+        float seconds = frameNanos / 1e9f;
+        float distanceX = vx * seconds + mRemainderX, distanceY = vy * seconds + mRemainderY;
+        int dx = canScroll(distanceX, true) ? (int) distanceX : 0;
+        int dy = canScroll(distanceY, false) ? (int) distanceY : 0;
+        mRemainderX = dx != 0 ? distanceX - dx : 0;
+        mRemainderY = dy != 0 ? distanceY - dy : 0;
+        if (dx != 0 || dy != 0) {
+            // The batches of the hit-test after the scroll are delivered in this frame
+            DragBatchDispatcher.beginFrame();
+            try {
+                scroll(dx, dy);
+            } finally {
+                DragBatchDispatcher.endFrame();
+            }
+        }
+        // Keep scrolling while the pointer stays in the edge zone, until the container reaches its end
+        if (canScroll(vx, true) || canScroll(vy, false)) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Scrolls the container and moves the cached bounds of its droppables along
+     */
+    private void scroll(int dx, int dy) {
+        DragScope scope = mSession.getScope();
+        collectScrolledDroppables(scope);
+        int scrollX = mContainer.getScrollX(), scrollY = mContainer.getScrollY();
+        float referenceX = 0, referenceY = 0;
+        if (mReference != null) {
+            mReference.getView().getLocationOnScreen(mLocation);
+            referenceX = mLocation[0];
+            referenceY = mLocation[1];
+        }
+        mContainer.scrollBy(dx, dy);
+        // Containers like ScrollView change their scroll position, others (like RecyclerView)
+        // move their children, then a droppable inside tells how far the content moved
+        float movedX = -(mContainer.getScrollX() - scrollX);
+        float movedY = -(mContainer.getScrollY() - scrollY);
+        if (movedX == 0 && movedY == 0 && mReference != null && mReference.getScope() == scope) {
+            mReference.getView().getLocationOnScreen(mLocation);
+            movedX = mLocation[0] - referenceX;
+            movedY = mLocation[1] - referenceY;
+        }
+        if (movedX == 0 && movedY == 0)
+            return;
+        for (int i = 0; i < mScrolledDroppables.size(); i++) {
+            scope.offsetBounds(mScrolledDroppables.get(i), movedX, movedY);
+        }
+        // The scroll has been accounted for, the scope doesn't need to measure these droppables again
+        scope.onAutoScrolled(mContainer);
+        if (mDragTargetInside)
+            mDragTarget.onAutoScrolled(movedX, movedY);
+        // Hit-test again, the content moved under the pointer
+        mSession.move(mLastMove);
+    }
+
+    /**
+     * Collects the droppables inside the container, only if droppables were added
+     * or removed since the last time
+     */
+    private void collectScrolledDroppables(DragScope scope) {
+        if (scope.getModCount() == mScopeModCount)
+            return;
+        mScopeModCount = scope.getModCount();
+        mScrolledDroppables.clear();
+        mReference = null;
+        for (int i = 0; i < scope.size(); i++) {
+            DragAndDroppable droppable = scope.get(i);
+            if (DragScope.isDescendant(droppable.getView(), mContainer)) {
+                mScrolledDroppables.add(droppable);
+                if (mReference == null)
+                    mReference = droppable;
+            }
+        }
+    }
+
+    /**
+     * Checks wether the container can scroll further in the direction of a distance
+     */
+    private boolean canScroll(float distance, boolean horizontal) {
+        int direction = distance < 0 ? -1 : 1;
+        if (distance == 0)
+            return false;
+        return horizontal ? mContainer.canScrollHorizontally(direction) : mContainer.canScrollVertically(direction);
+    }
+
+    private float velocityX() {
+        return EdgeScroll.velocity(mLastMove.getRawX(), mLeft, mRight,
+                mDragTarget.getAutoScrollEdgePx(), mDragTarget.getAutoScrollMaxVelocityPx());
+    }
+
+    private float velocityY() {
+        return EdgeScroll.velocity(mLastMove.getRawY(), mTop, mBottom,
+                mDragTarget.getAutoScrollEdgePx(), mDragTarget.getAutoScrollMaxVelocityPx());
+    }
+
+    /**
+     * Find the nearest ancestor of a view that can scroll
+     * @param view the view
+     * @return the scrolling container or null if there's none
+     */
+    private static View findScrollingContainer(View view) {
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            View candidate = (View) parent;
+            if (candidate.canScrollVertically(1) || candidate.canScrollVertically(-1)
+                    || candidate.canScrollHorizontally(1) || candidate.canScrollHorizontally(-1))
+                return candidate;
+            parent = candidate.getParent();
+        }
+        return null;
+    }
+}
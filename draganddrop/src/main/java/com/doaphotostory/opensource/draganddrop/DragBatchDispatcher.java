@@ -0,0 +1,157 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * DragBatchDispatcher collects the drag events of droppables with an
+ * {@link DragAndDroppable.OnDragBatchListener} and delivers them once per frame, synced to vsync
+ * by {@link Choreographer} so the listeners run before the next frame is drawn.
+ * Events that are added while a frame callback of the library runs (i.e. a paced move or an
+ * auto-scroll) are delivered when that callback is done, a new frame callback would only run
+ * with the following frame.
+ * On devices below API 16 the batches are posted to the UI thread instead.
+ * Must be used on the UI thread.
+ */
+final class DragBatchDispatcher {
+
+    // The droppables with events for the next frame and the ones that are being delivered
+    private static ArrayList<DragAndDroppable> PENDING = new ArrayList<>();
+    private static ArrayList<DragAndDroppable> DELIVERING = new ArrayList<>();
+    private static boolean FRAME_SCHEDULED = false;
+    // The number of frame callbacks of the library that are running
+    private static int FRAME_DEPTH = 0;
+    private static Choreographer.FrameCallback FRAME_CALLBACK;
+    private static Handler MAIN_HANDLER;
+    private static final Runnable DELIVER = new Runnable() {
+        @Override
+        public void run() {
+            deliver();
+        }
+    };
+
+    private DragBatchDispatcher() {
+    }
+
+    /**
+     * Adds an event to the batch of a droppable for the next frame
+     * @param droppable the droppable to inform
+     * @param dragAndDroppable the {@link DragAndDroppable} that is being dragged
+     * @param ev the event, it may be recycled once this returns
+     */
+    static void add(DragAndDroppable droppable, DragAndDroppable dragAndDroppable, DragAndDropEvent ev) {
+        DragAndDropBatch batch = droppable.getDragBatch();
+        if (batch.size() == 0)
+            PENDING.add(droppable);
+        batch.add(dragAndDroppable, ev);
+        // Within a frame callback the events are delivered when it's done
+        if (!FRAME_SCHEDULED && FRAME_DEPTH == 0) {
+            FRAME_SCHEDULED = true;
+            schedule();
+        }
+    }
+
+    /**
+     * Schedules the delivery with the next frame
+     */
+    private static void schedule() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (FRAME_CALLBACK == null) {
+                FRAME_CALLBACK = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        deliver();
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(FRAME_CALLBACK);
+        } else {
+            if (MAIN_HANDLER == null)
+                MAIN_HANDLER = new Handler(Looper.getMainLooper());
+            MAIN_HANDLER.post(DELIVER);
+        }
+    }
+
+    /**
+     * Called by a frame callback of the library before it may add events
+     */
+    static void beginFrame() {
+        FRAME_DEPTH++;
+    }
+
+    /**
+     * Called by a frame callback of the library when it's done, delivers the events it added
+     * within the current frame
+     */
+    static void endFrame() {
+        if (FRAME_DEPTH > 0)
+            FRAME_DEPTH--;
+        if (FRAME_DEPTH > 0 || PENDING.isEmpty())
+            return;
+        if (FRAME_SCHEDULED)
+            unschedule();
+        deliver();
+    }
+
+    /**
+     * Removes the scheduled delivery, the batches are delivered right away
+     */
+    private static void unschedule() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            Choreographer.getInstance().removeFrameCallback(FRAME_CALLBACK);
+        else
+            MAIN_HANDLER.removeCallbacks(DELIVER);
+    }
+
+    /**
+     * Delivers the batches of the frame
+     */
+    private static void deliver() {
+        FRAME_SCHEDULED = false;
+        ArrayList<DragAndDroppable> delivering = PENDING;
+        PENDING = DELIVERING;
+        DELIVERING = delivering;
+        for (int i = 0; i < delivering.size(); i++) {
+            DragAndDroppable droppable = delivering.get(i);
+            DragAndDropBatch batch = droppable.getDragBatch();
+            DragAndDroppable.OnDragBatchListener listener = droppable.getOnDragBatchListener();
+            if (listener != null) {
+                TraceSections.begin(TraceSections.DISPATCH);
+                try {
+                    listener.onDragBatch(droppable, batch);
+                } finally {
+                    TraceSections.end();
+                }
+            }
+            batch.clear();
+        }
+        delivering.clear();
+    }
+
+    /**
+     * Get the number of droppables with events for the next frame
+     * @return the number of pending batches
+     */
+    static int getPendingCount() {
+        return PENDING.size();
+    }
+}
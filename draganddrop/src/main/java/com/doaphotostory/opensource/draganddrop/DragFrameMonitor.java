@@ -0,0 +1,148 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+
+import com.doaphotostory.opensource.draganddrop.core.FrameStats;
+
+/**
+ * DragFrameMonitor records the frames of a drag session, so the {@link FrameStats} show how
+ * many frames the drag dropped. From API 24 on only the frames the window actually rendered
+ * are recorded, by their {@link FrameMetrics}. Below that (or outside of an activity) a
+ * {@link Choreographer} frame callback records every vsync, which keeps vsyncs coming even
+ * while nothing is drawn. Frames are only recorded on API 16 and above.
+ */
+final class DragFrameMonitor {
+
+    private final FrameStats mStats = new FrameStats();
+    private boolean mRunning = false;
+    private Choreographer.FrameCallback mFrameCallback;
+    // The window whose rendered frames are recorded, null while frames are recorded by vsync
+    private Window mWindow;
+    private Window.OnFrameMetricsAvailableListener mFrameMetricsListener;
+    private Handler mMainHandler;
+
+    /**
+     * Starts recording the frames of a drag
+     * @param view the dragged view, its display's refresh rate is the expected frame interval
+     */
+    void start(View view) {
+        long frameIntervalNanos = FrameStats.DEFAULT_FRAME_INTERVAL_NANOS;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            Display display = view.getDisplay();
+            if (display != null && display.getRefreshRate() > 0)
+                frameIntervalNanos = (long) (1000000000 / display.getRefreshRate());
+        }
+        mStats.reset(frameIntervalNanos);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN || mRunning)
+            return;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && startFrameMetrics(view))
+            return;
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    if (!mRunning)
+                        return;
+                    mStats.onFrame(frameTimeNanos);
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+        }
+        mRunning = true;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * Records the frames the window of a view renders by their frame metrics
+     * @param view the dragged view
+     * @return wether the view is part of an activity's window, false to record by vsync
+     */
+    private boolean startFrameMetrics(View view) {
+        Window window = windowOf(view.getContext());
+        if (window == null)
+            return false;
+        if (mFrameMetricsListener == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+            mFrameMetricsListener = new Window.OnFrameMetricsAvailableListener() {
+                @Override
+                public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+                    if (!mRunning)
+                        return;
+                    long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+                    // The vsync of the frame is only reported from API 26 on
+                    long start = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                            ? frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP)
+                            : System.nanoTime() - duration;
+                    mStats.onFrameRendered(start, duration);
+                }
+            };
+        }
+        mWindow = window;
+        mRunning = true;
+        window.addOnFrameMetricsAvailableListener(mFrameMetricsListener, mMainHandler);
+        return true;
+    }
+
+    /**
+     * Find the window of the activity a context belongs to
+     */
+    private static Window windowOf(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity)
+                return ((Activity) context).getWindow();
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * Stops recording
+     */
+    void stop() {
+        if (!mRunning)
+            return;
+        mRunning = false;
+        if (mWindow != null) {
+            mWindow.removeOnFrameMetricsAvailableListener(mFrameMetricsListener);
+            mWindow = null;
+        } else {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the frames of the drag
+     * @return the frame stats
+     */
+    FrameStats getStats() {
+        return mStats;
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DragGroup is a selection of {@link DragAndDroppable}s that are dragged together.
+ * Dragging any member moves every member by the same distance on the screen. The touched
+ * member is the anchor of the drag: only its pointer is hit-tested and droppables receive
+ * one event per action with the anchor as dragged object, {@link DragAndDropEvent#getDragGroup()}
+ * lists the members. Members are never dropped on each other.
+ * The position updates of all members are committed together once per frame.
+ * Must be used on the UI thread.
+ */
+public class DragGroup {
+
+    // The members in the order they've been added
+    private final ArrayList<DragAndDroppable> mMembers = new ArrayList<>();
+    // The member that's being dragged, null if the group isn't dragged
+    private DragAndDroppable mAnchor;
+    // The distance on the screen that hasn't been applied to the members yet
+    private float mPendingDx, mPendingDy;
+    // Commits the pending distance with the next frame
+    private boolean mFrameScheduled = false;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameScheduled = false;
+            commit();
+        }
+    };
+
+    /**
+     * Adds a member, a member of another group leaves that group
+     * @param dragAndDroppable the new member
+     * @return this for method chaining
+     */
+    public DragGroup add(DragAndDroppable dragAndDroppable) {
+        DragGroup group = dragAndDroppable.getDragGroup();
+        if (group == this)
+            return this;
+        if (group != null)
+            group.remove(dragAndDroppable);
+        mMembers.add(dragAndDroppable);
+        dragAndDroppable.setDragGroup(this);
+        return this;
+    }
+
+    /**
+     * Removes a member
+     * @param dragAndDroppable the member
+     * @return wether it has been a member of this group
+     */
+    public boolean remove(DragAndDroppable dragAndDroppable) {
+        if (!mMembers.remove(dragAndDroppable))
+            return false;
+        // The anchor ends the drag of the group, other members just stop following it
+        if (dragAndDroppable == mAnchor)
+            end();
+        else if (mAnchor != null)
+            dragAndDroppable.onGroupDragEnded();
+        dragAndDroppable.setDragGroup(null);
+        return true;
+    }
+
+    /**
+     * Removes all members
+     */
+    public void clear() {
+        for (int i = mMembers.size() - 1; i >= 0; i--) {
+            remove(mMembers.get(i));
+        }
+    }
+
+    /**
+     * Called when a member starts a drag, the members remember their start position
+     * @param anchor the dragged member
+     */
+    void start(DragAndDroppable anchor) {
+        mAnchor = anchor;
+        mPendingDx = mPendingDy = 0;
+        for (int i = 0; i < mMembers.size(); i++) {
+            mMembers.get(i).onGroupDragStarted();
+        }
+    }
+
+    /**
+     * Moves the group by a distance on the screen with the next frame
+     * @param dx the horizontal distance in px on the screen
+     * @param dy the vertical distance in px on the screen
+     */
+    void moveBy(float dx, float dy) {
+        mPendingDx += dx;
+        mPendingDy += dy;
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Applies the pending distance to all members at once
+     */
+    void commit() {
+        if (mFrameScheduled) {
+            mFrameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        if (mPendingDx == 0 && mPendingDy == 0)
+            return;
+        float dx = mPendingDx, dy = mPendingDy;
+        mPendingDx = mPendingDy = 0;
+        for (int i = 0; i < mMembers.size(); i++) {
+            mMembers.get(i).offsetOnScreen(dx, dy);
+        }
+    }
+
+    /**
+     * Called when the drag of the group ends, commits what's pending
+     */
+    void end() {
+        commit();
+        for (int i = 0; i < mMembers.size(); i++) {
+            mMembers.get(i).onGroupDragEnded();
+        }
+        mAnchor = null;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the member that's being dragged
+     * @return the anchor or null if the group isn't dragged
+     */
+    public DragAndDroppable getAnchor() {
+        return mAnchor;
+    }
+
+    /**
+     * Get the members
+     * @return the members in the order they've been added, must not be modified
+     */
+    public List<DragAndDroppable> getMembers() {
+        return mMembers;
+    }
+
+    /**
+     * Get the number of members
+     * @return the number of members
+     */
+    public int size() {
+        return mMembers.size();
+    }
+
+    /**
+     * Get a member
+     * @param index the position of the member
+     * @return the member
+     */
+    public DragAndDroppable get(int index) {
+        return mMembers.get(index);
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Is an object a member of this group
+     * @param dragAndDroppable the object
+     * @return wether it's a member
+     */
+    public boolean contains(DragAndDroppable dragAndDroppable) {
+        return dragAndDroppable.getDragGroup() == this;
+    }
+
+    /**
+     * Is the group being dragged
+     * @return wether a member is being dragged
+     */
+    public boolean isDragging() {
+        return mAnchor != null;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.MotionEvent;
+
+import java.util.Arrays;
+
+/**
+ * DragHistory holds the raw touch samples that happened in between two drag events
+ * (oldest first). The arrays are reused, so recording doesn't allocate once they're
+ * big enough.
+ */
+class DragHistory {
+
+    private float[] mRawX = new float[16];
+    private float[] mRawY = new float[16];
+    private long[] mEventTime = new long[16];
+    private int mSize = 0;
+
+    /**
+     * Removes all samples
+     */
+    void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Adds a sample
+     *
+     * @param rawX raw x coordinate on the screen
+     * @param rawY raw y coordinate on the screen
+     * @param eventTime time of the sample in {@link android.os.SystemClock#uptimeMillis()}
+     */
+    void add(float rawX, float rawY, long eventTime) {
+        if (mSize == mRawX.length) {
+            mRawX = Arrays.copyOf(mRawX, mSize * 2);
+            mRawY = Arrays.copyOf(mRawY, mSize * 2);
+            mEventTime = Arrays.copyOf(mEventTime, mSize * 2);
+        }
+        mRawX[mSize] = rawX;
+        mRawY[mSize] = rawY;
+        mEventTime[mSize] = eventTime;
+        mSize++;
+    }
+
+    /**
+     * Adds the current sample of a motion event
+     *
+     * @param event the motion event
+     */
+    void addCurrent(MotionEvent event) {
+        add(event.getRawX(), event.getRawY(), event.getEventTime());
+    }
+
+    /**
+     * Adds the historical samples batched into a motion event.
+     * MotionEvent only has view relative historical coordinates, they're shifted by the
+     * offset between the current raw and view relative coordinates.
+     *
+     * @param event the motion event
+     */
+    void addHistorical(MotionEvent event) {
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+            add(event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY,
+                    event.getHistoricalEventTime(i));
+        }
+    }
+
+    /**
+     * GETTERS
+     */
+    int size() {
+        return mSize;
+    }
+
+    float getRawX(int pos) {
+        return mRawX[pos];
+    }
+
+    float getRawY(int pos) {
+        return mRawY[pos];
+    }
+
+    long getEventTime(int pos) {
+        return mEventTime[pos];
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+
+import com.doaphotostory.opensource.draganddrop.core.DropTargetRegistry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * DragScope is the registry of the droppables inside a root view. By default every window
+ * (its root view) has its own scope, {@link DragAndDropManager#createDragScope(View)} creates
+ * scopes for smaller containers.
+ * A drag only hit-tests and informs the droppables in the scope of the dragged view.
+ * Droppables are part of a scope while their view is attached to it, so a scope only
+ * holds what's actually on screen.
+ */
+public class DragScope extends DropTargetRegistry<DragAndDroppable> {
+
+    // The root view of this scope, it holds this scope as a tag
+    private final View mRoot;
+
+    // The ancestors of the droppables with the number of droppables inside of each of them.
+    // Droppables notice their own layout changes, a layout that moves an ancestor moves
+    // the droppables inside of it as well.
+    private final IdentityHashMap<View, Integer> mAncestors = new IdentityHashMap<>();
+    private final View.OnLayoutChangeListener mOnAncestorLayoutChangeListener = new View.OnLayoutChangeListener() {
+        @Override
+        public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            // A resize of the ancestor moves its children by laying them out, they notice that themselves
+            if (left == oldLeft && top == oldTop)
+                return;
+            for (int i = 0; i < size(); i++) {
+                DragAndDroppable droppable = get(i);
+                if (isDescendant(droppable.getView(), view))
+                    droppable.invalidateBounds();
+            }
+        }
+    };
+    // Scroll changes anywhere in the window might move the droppables
+    private final ViewTreeObserver.OnScrollChangedListener mOnScrollChangedListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            if (mAutoScrolledContainers.isEmpty()) {
+                invalidateBounds();
+                return;
+            }
+            // Auto-scrolls moved the cached bounds of the droppables in their containers allready,
+            // only the others might have been moved by another scroll
+            for (int i = 0; i < size(); i++) {
+                DragAndDroppable droppable = get(i);
+                if (!isInAutoScrolledContainer(droppable.getView()))
+                    droppable.invalidateBounds();
+            }
+            mAutoScrolledContainers.clear();
+        }
+    };
+    // Set while the scroll changes of the window are observed, the observer is always the one
+    // of the attached root: one taken from a detached view would be dead once it's attached
+    private boolean mObservingScrolls = false;
+    // The containers an auto-scroll moved the cached bounds of since the last scroll change callback
+    private final ArrayList<View> mAutoScrolledContainers = new ArrayList<>();
+
+    /**
+     * Constructs a scope for a root view
+     * @param root the root view
+     */
+    DragScope(View root) {
+        mRoot = root;
+        mRoot.setTag(R.id.draganddrop_scope, this);
+    }
+
+    /**
+     * Get the scope a view belongs to: the scope of its nearest ancestor that's a scope root
+     * or the scope of its window. Scopes are only resolved for attached views, the topmost
+     * parent of a detached view isn't the root of its window.
+     * @param view the view
+     * @return the scope of the view or null if the view isn't attached
+     */
+    static DragScope of(View view) {
+        if (view.getWindowToken() == null)
+            return null;
+        View root = view;
+        while (true) {
+            Object scope = root.getTag(R.id.draganddrop_scope);
+            if (scope instanceof DragScope)
+                return (DragScope) scope;
+            ViewParent parent = root.getParent();
+            if (!(parent instanceof View))
+                break;
+            root = (View) parent;
+        }
+        return new DragScope(root);
+    }
+
+    /**
+     * Adds a droppable to this scope. The first droppable starts observing the window.
+     * @param dragAndDroppable the droppable
+     */
+    @Override
+    public void add(DragAndDroppable dragAndDroppable) {
+        if (!mObservingScrolls) {
+            mObservingScrolls = true;
+            mRoot.getViewTreeObserver().addOnScrollChangedListener(mOnScrollChangedListener);
+        }
+        observeAncestors(dragAndDroppable.getView());
+        dragAndDroppable.setScope(this);
+        super.add(dragAndDroppable);
+    }
+
+    /**
+     * Removes a droppable from this scope. Empty scopes stop observing their window.
+     * @param dragAndDroppable the droppable
+     * @return wether the droppable has been part of this scope
+     */
+    @Override
+    public boolean remove(DragAndDroppable dragAndDroppable) {
+        if (!super.remove(dragAndDroppable))
+            return false;
+        dragAndDroppable.setScope(null);
+        stopObservingAncestors(dragAndDroppable.getView());
+        // Droppables are removed while they're still attached, so the root is as well
+        if (size() == 0 && mObservingScrolls) {
+            mObservingScrolls = false;
+            ViewTreeObserver observer = mRoot.getViewTreeObserver();
+            if (observer.isAlive())
+                observer.removeOnScrollChangedListener(mOnScrollChangedListener);
+        }
+        return true;
+    }
+
+    /**
+     * Starts observing the layout changes of the ancestors of a droppable's view that
+     * aren't observed for another droppable allready
+     */
+    private void observeAncestors(View view) {
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            View ancestor = (View) parent;
+            Integer count = mAncestors.get(ancestor);
+            if (count == null)
+                ancestor.addOnLayoutChangeListener(mOnAncestorLayoutChangeListener);
+            mAncestors.put(ancestor, count == null ? 1 : count + 1);
+            parent = ancestor.getParent();
+        }
+    }
+
+    /**
+     * Stops observing the ancestors of a droppable's view that no other droppable is inside of.
+     * Views are detached before they're removed from their parent, so the ancestors are the
+     * same as when the droppable was added.
+     */
+    private void stopObservingAncestors(View view) {
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            View ancestor = (View) parent;
+            Integer count = mAncestors.get(ancestor);
+            if (count != null && count > 1) {
+                mAncestors.put(ancestor, count - 1);
+            } else if (count != null) {
+                mAncestors.remove(ancestor);
+                ancestor.removeOnLayoutChangeListener(mOnAncestorLayoutChangeListener);
+            }
+            parent = ancestor.getParent();
+        }
+    }
+
+    /**
+     * Called if a drag session in this scope is started. The first session also
+     * decodes the hover drawables of all droppables ahead of time.
+     */
+    @Override
+    public void onSessionStarted() {
+        boolean first = getSessionCount() == 0;
+        super.onSessionStarted();
+        if (!first)
+            return;
+        for (int i = 0; i < size(); i++) {
+            get(i).prefetchHoverDrawables();
+        }
+    }
+
+    /**
+     * Called by the {@link DragAutoScroller} after it moved the cached bounds of the droppables
+     * inside a container, so the following scroll change callback doesn't measure them again.
+     * Scroll change callbacks are coalesced to one per frame, the droppables outside of the
+     * container are measured again in case another container scrolled in the same frame.
+     * @param container the scrolled container
+     */
+    void onAutoScrolled(View container) {
+        if (!mAutoScrolledContainers.contains(container))
+            mAutoScrolledContainers.add(container);
+    }
+
+    /**
+     * Is a view inside of a container that has been auto-scrolled since the last scroll change callback
+     */
+    private boolean isInAutoScrolledContainer(View view) {
+        for (int i = 0; i < mAutoScrolledContainers.size(); i++) {
+            if (isDescendant(view, mAutoScrolledContainers.get(i)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the droppables that are inside of a new child scope to it
+     * @param child the child scope
+     */
+    void moveDescendantsTo(DragScope child) {
+        for (int i = size() - 1; i >= 0; i--) {
+            DragAndDroppable dragAndDroppable = get(i);
+            if (isDescendant(dragAndDroppable.getView(), child.getRoot())) {
+                remove(dragAndDroppable);
+                child.add(dragAndDroppable);
+            }
+        }
+    }
+
+    /**
+     * Checks wether a view is the ancestor itself or one of its descendants
+     */
+    static boolean isDescendant(View view, View ancestor) {
+        if (view == ancestor)
+            return true;
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            if (parent == ancestor)
+                return true;
+            parent = parent.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the root view of this scope
+     * @return the root view
+     */
+    public View getRoot() {
+        return mRoot;
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.MotionEvent;
+
+import com.doaphotostory.opensource.draganddrop.core.DragMetrics;
+import com.doaphotostory.opensource.draganddrop.core.DragStateMachine;
+import com.doaphotostory.opensource.draganddrop.core.FrameStats;
+
+import java.util.List;
+
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_ENDED;
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_ENTERED;
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_EXITED;
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_LOCATION;
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DRAG_STARTED;
+import static com.doaphotostory.opensource.draganddrop.DragAndDropEvent.ACTION_DROP;
+
+/**
+ * DragSession holds the state of one running drag: the {@link DragAndDroppable} that's being
+ * dragged and the droppable it's currently hovering.
+ * Every pointer that drags a view gets its own session, so several views may be dragged
+ * at the same time. Sessions are reused by the {@link DragAndDropManager}.
+ * The hover state machine lives in {@link DragStateMachine}, the session turns its
+ * transitions into {@link DragAndDropEvent}s and hover drawable changes.
+ * Only the droppables that {@link DragAndDroppable#accepts(DragAndDroppable)} the dragged
+ * object take part in its session.
+ */
+public class DragSession extends DragStateMachine<DragAndDroppable> {
+
+    // Counts the started drags, so per drag state of the droppables can tell them apart
+    private static int DRAG_COUNT = 0;
+
+    // The dragged object
+    private DragAndDroppable mDragTarget;
+    // The number of this drag
+    private int mDragId;
+    // The motion event that's being processed
+    private MotionEvent mEvent;
+    // The metrics of this session, created on first use and reused afterwards
+    private DragMetrics<DragAndDroppable> mMetrics;
+    // Scrolls the container of the dragged object near its edges
+    private final DragAutoScroller mAutoScroller = new DragAutoScroller();
+    // Records the frames of this session for the jank report, created on first use and reused afterwards
+    private DragFrameMonitor mFrameMonitor;
+    private boolean mJankReportEnabled = false;
+
+    /**
+     * Constructs an empty session, sessions are only created by the {@link DragAndDropManager}
+     */
+    DragSession() {
+    }
+
+    /**
+     * Enables or disables collecting the metrics of the next drag
+     * @param enabled wether metrics should be collected
+     */
+    void setMetricsEnabled(boolean enabled) {
+        if (enabled && mMetrics == null)
+            mMetrics = new DragMetrics<>();
+        if (enabled)
+            mMetrics.reset();
+        setMetrics(enabled ? mMetrics : null);
+    }
+
+    /**
+     * Enables or disables recording the frames of the next drag
+     * @param enabled wether the frames should be recorded
+     */
+    void setJankReportEnabled(boolean enabled) {
+        if (enabled && mFrameMonitor == null)
+            mFrameMonitor = new DragFrameMonitor();
+        mJankReportEnabled = enabled;
+    }
+
+    /**
+     * Starts the session for a dragged object
+     * @param dragTarget the dragged object
+     * @param scope the scope of the dragged object
+     * @param event the motion event that started the drag
+     */
+    void start(DragAndDroppable dragTarget, DragScope scope, MotionEvent event) {
+        mDragTarget = dragTarget;
+        mDragId = ++DRAG_COUNT;
+        mEvent = event;
+        start(scope);
+        mEvent = null;
+        mAutoScroller.start(this, dragTarget);
+        if (mJankReportEnabled)
+            mFrameMonitor.start(dragTarget.getView());
+    }
+
+    /**
+     * Moves the drag to the position of a motion event
+     * @param event the motion event of the drag
+     */
+    void move(MotionEvent event) {
+        mEvent = event;
+        if (mDragTarget.isPredictiveHover())
+            move((int) mDragTarget.getPredictedRawX(), (int) mDragTarget.getPredictedRawY());
+        else
+            move((int) (event.getRawX()), (int) (event.getRawY()));
+        mEvent = null;
+    }
+
+    /**
+     * Hit-tests the actual pointer of the drop if hovers have been predicted ahead of it,
+     * so the drop happens where the finger actually is
+     * @param event the motion event of the drop
+     */
+    void settlePrediction(MotionEvent event) {
+        if (!mDragTarget.isPredictiveHover())
+            return;
+        mEvent = event;
+        move((int) (event.getRawX()), (int) (event.getRawY()));
+        mEvent = null;
+    }
+
+    /**
+     * Drops on the hovered droppable (if any) and ends the session
+     * @param event the motion event of the drop
+     */
+    void drop(MotionEvent event) {
+        mAutoScroller.stop();
+        if (mFrameMonitor != null)
+            mFrameMonitor.stop();
+        mEvent = event;
+        drop();
+        mEvent = null;
+        mDragTarget = null;
+    }
+
+    /**
+     * Exits the hovered droppable (if any) and ends the session
+     * @param event the motion event of the cancel
+     */
+    void cancel(MotionEvent event) {
+        mAutoScroller.stop();
+        if (mFrameMonitor != null)
+            mFrameMonitor.stop();
+        mEvent = event;
+        cancel();
+        mEvent = null;
+        mDragTarget = null;
+    }
+
+    /**
+     * CALLBACKS
+     */
+    @Override
+    protected boolean accepts(DragAndDroppable droppable) {
+        // A selection isn't dropped on its own members
+        DragGroup dragGroup = mDragTarget.getDragGroup();
+        if (dragGroup != null && dragGroup.contains(droppable))
+            return false;
+        return droppable.accepts(mDragTarget);
+    }
+
+    @Override
+    protected void onDragStarted() {
+        DragAndDropManager.dispatchToAll(this, mEvent, ACTION_DRAG_STARTED);
+    }
+
+    @Override
+    protected void onDragEntered(DragAndDroppable droppable, int region) {
+        DragAndDropManager.dispatch(droppable, mDragTarget, mEvent, ACTION_DRAG_ENTERED, region, getMetrics());
+        TraceSections.begin(TraceSections.HOVER);
+        try {
+            droppable.onDragHover();
+            mDragTarget.onDragHover(droppable);
+        } finally {
+            TraceSections.end();
+        }
+    }
+
+    @Override
+    protected void onDragExited(DragAndDroppable droppable, int region) {
+        DragAndDropManager.dispatch(droppable, mDragTarget, mEvent, ACTION_DRAG_EXITED, region, getMetrics());
+        TraceSections.begin(TraceSections.HOVER);
+        try {
+            droppable.onDragExit();
+            mDragTarget.onDragExit(droppable);
+        } finally {
+            TraceSections.end();
+        }
+    }
+
+    @Override
+    protected void onDragRegionChanged(DragAndDroppable droppable, int exitedRegion, int enteredRegion) {
+        // The droppable stays hovered, so its hover drawables stay as they are
+        DragAndDropManager.dispatch(droppable, mDragTarget, mEvent, ACTION_DRAG_EXITED, exitedRegion, getMetrics());
+        DragAndDropManager.dispatch(droppable, mDragTarget, mEvent, ACTION_DRAG_ENTERED, enteredRegion, getMetrics());
+    }
+
+    @Override
+    protected void onDragLocation() {
+        DragAndDropManager.dispatchToAll(this, mEvent, ACTION_DRAG_LOCATION);
+    }
+
+    @Override
+    protected void onDrop(DragAndDroppable droppable, int region) {
+        DropTask<?> dropTask = DragAndDropManager.dispatch(droppable, mDragTarget, mEvent, ACTION_DROP, region, getMetrics());
+        droppable.onDragExit();
+        mDragTarget.onDragExit(droppable);
+        // The heavy part of the drop runs in the background and is committed later
+        if (dropTask != null)
+            DropPipeline.submit(dropTask, droppable, mDragTarget);
+    }
+
+    @Override
+    protected void onDragEnded() {
+        DragAndDropManager.dispatchToAll(this, mEvent, ACTION_DRAG_ENDED);
+        // The droppables keep the throttle of every running drag until it ends
+        List<DragAndDroppable> subscribers = getCandidates(ACTION_DRAG_LOCATION);
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).onLocationDragEnded(mDragId);
+        }
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of this drag, it's unique among the drags since the app started
+     * @return the drag id
+     */
+    int getDragId() {
+        return mDragId;
+    }
+
+    /**
+     * Get the frames of this session
+     * @return the frame stats or null if they aren't recorded
+     */
+    public FrameStats getFrameStats() {
+        return mJankReportEnabled ? mFrameMonitor.getStats() : null;
+    }
+
+    /**
+     * Get the auto-scroller of this session
+     * @return the auto-scroller
+     */
+    DragAutoScroller getAutoScroller() {
+        return mAutoScroller;
+    }
+
+    /**
+     * Get the object that's being dragged in this session
+     * @return the dragged object
+     */
+    public DragAndDroppable getDragTarget() {
+        return mDragTarget;
+    }
+
+    /**
+     * Get the droppable that's currently hovered in this session
+     * @return the hovered droppable or null if none is hovered
+     */
+    public DragAndDroppable getEnteredDroppable() {
+        return getEnteredTarget();
+    }
+
+    /**
+     * Get the drop region of the hovered droppable that's currently hovered
+     * @return the hovered region or {@link DragAndDropEvent#NO_REGION}
+     */
+    public int getEnteredRegionId() {
+        return getEnteredRegion();
+    }
+
+    /**
+     * Get the scope of the dragged object
+     * @return the scope whose droppables take part in this session
+     */
+    public DragScope getScope() {
+        return (DragScope) getRegistry();
+    }
+
+    /**
+     * Overrides the toString method for debugging purposes
+     * @return descriptive string for this object
+     */
+    @Override
+    public String toString() {
+        return "dragTarget " + mDragTarget + " / enteredDroppable " + getEnteredTarget();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+/**
+ * DragShadow is a snapshot of a dragged view that's moved instead of the view itself.
+ * The view is drawn once into a bitmap from the {@link BitmapPool} when the drag starts, the
+ * snapshot is shown in the overlay of the root view on a hardware layer and only translated
+ * while dragging, so every frame costs the same no matter how heavy the view is to draw.
+ * The snapshot is rotated and scaled like the view.
+ * Needs API 18 for the overlay.
+ */
+class DragShadow {
+
+    private final ImageView mShadowView;
+    private final Canvas mCanvas = new Canvas();
+    private final int[] mLocation = new int[2];
+    private final float[] mPoint = new float[2];
+    private ViewGroup mRoot;
+    private Bitmap mBitmap;
+
+    /**
+     * Constructs a shadow for a view
+     * @param view the view that's dragged
+     */
+    DragShadow(View view) {
+        mShadowView = new ImageView(view.getContext());
+    }
+
+    /**
+     * Snapshots a view and shows the snapshot above it
+     * @param view the view that's dragged
+     * @return wether the shadow is shown, false if the view has no size or the snapshot couldn't be
+     * attached to the overlay of its root
+     */
+    boolean show(View view) {
+        if (mBitmap != null)
+            hide();
+        int width = view.getWidth(), height = view.getHeight();
+        if (width <= 0 || height <= 0 || !(view.getRootView() instanceof ViewGroup))
+            return false;
+        mRoot = (ViewGroup) view.getRootView();
+        mBitmap = BitmapPool.getInstance().get(width, height);
+        mBitmap.eraseColor(0);
+        mCanvas.setBitmap(mBitmap);
+        view.draw(mCanvas);
+        mCanvas.setBitmap(null);
+        mShadowView.setImageBitmap(mBitmap);
+
+        // Lay the shadow out where the view would be without its rotation and scale,
+        // they're applied to the shadow the same way
+        view.getLocationInWindow(mLocation);
+        mPoint[0] = mPoint[1] = 0;
+        view.getMatrix().mapPoints(mPoint);
+        int left = Math.round(mLocation[0] - mPoint[0] + view.getTranslationX());
+        int top = Math.round(mLocation[1] - mPoint[1] + view.getTranslationY());
+        mRoot.getLocationInWindow(mLocation);
+        left -= mLocation[0];
+        top -= mLocation[1];
+        mShadowView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        mShadowView.layout(left, top, left + width, top + height);
+        mShadowView.setTranslationX(0);
+        mShadowView.setTranslationY(0);
+        mShadowView.setPivotX(view.getPivotX());
+        mShadowView.setPivotY(view.getPivotY());
+        mShadowView.setRotation(view.getRotation());
+        mShadowView.setRotationX(view.getRotationX());
+        mShadowView.setRotationY(view.getRotationY());
+        mShadowView.setScaleX(view.getScaleX());
+        mShadowView.setScaleY(view.getScaleY());
+        // Translating a hardware layer only changes a render property, the snapshot isn't drawn again
+        mShadowView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        mRoot.getOverlay().add(mShadowView);
+        if (mShadowView.getParent() == null) {
+            hide();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the shadow relative to the position of the view
+     * @param dx the horizontal distance on the screen
+     * @param dy the vertical distance on the screen
+     */
+    void moveTo(float dx, float dy) {
+        mShadowView.setTranslationX(dx);
+        mShadowView.setTranslationY(dy);
+    }
+
+    /**
+     * Removes the shadow and puts the snapshot back into the pool
+     */
+    void hide() {
+        if (mBitmap == null)
+            return;
+        mRoot.getOverlay().remove(mShadowView);
+        mShadowView.setLayerType(View.LAYER_TYPE_NONE, null);
+        mShadowView.setImageBitmap(null);
+        BitmapPool.getInstance().put(mBitmap);
+        mBitmap = null;
+        mRoot = null;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Is the shadow shown
+     * @return wether the shadow is shown
+     */
+    boolean isShown() {
+        return mBitmap != null;
+    }
+}
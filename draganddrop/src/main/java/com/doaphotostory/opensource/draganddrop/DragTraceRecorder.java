@@ -0,0 +1,139 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.view.MotionEvent;
+
+import com.doaphotostory.opensource.draganddrop.core.DragTraceWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * DragTraceRecorder captures the drags of the app in the compact binary
+ * {@link com.doaphotostory.opensource.draganddrop.core.DragTrace} format: every touch event
+ * of the draggable {@link DragAndDroppable}s (from the down event on, including the moves
+ * within the drag slop and the historical samples) and every {@link DragAndDropEvent} that's
+ * delivered to a droppable. Objects are identified by their view id, so give the recorded
+ * views ids. Recorded traces are replayed by a {@link DragTraceReplayer}.
+ *
+ * Only one recorder is active at a time, it's used on the UI thread.
+ */
+public class DragTraceRecorder {
+
+    private final DragTraceWriter mWriter;
+    // The first write error, recording stops after it
+    private IOException mError;
+    private boolean mRecording = false;
+
+    /**
+     * Constructs a recorder
+     * @param out the stream the trace is written to
+     * @throws IOException if the trace header can't be written
+     */
+    public DragTraceRecorder(OutputStream out) throws IOException {
+        mWriter = new DragTraceWriter(out);
+    }
+
+    /**
+     * Starts recording, replacing a recorder that's allready active
+     */
+    public void start() {
+        mRecording = true;
+        DragAndDropManager.setTraceRecorder(this);
+    }
+
+    /**
+     * Stops recording and closes the stream
+     * @throws IOException if the trace couldn't be written completely
+     */
+    public void stop() throws IOException {
+        mRecording = false;
+        DragAndDropManager.setTraceRecorder(null);
+        try {
+            mWriter.close();
+        } catch (IOException e) {
+            if (mError == null)
+                mError = e;
+        }
+        if (mError != null)
+            throw mError;
+    }
+
+    /**
+     * Records a touch event of a draggable object as its touch listener receives it, with the
+     * historical samples of moves. Only the actions a drag is made of are recorded.
+     * @param dragAndDroppable the touched object
+     * @param event the motion event
+     */
+    void onTouchEvent(DragAndDroppable dragAndDroppable, MotionEvent event) {
+        if (!mRecording)
+            return;
+        int action = event.getActionMasked();
+        if (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_MOVE
+                && action != MotionEvent.ACTION_UP && action != MotionEvent.ACTION_CANCEL)
+            return;
+        float offsetX = event.getRawX() - event.getX();
+        float offsetY = event.getRawY() - event.getY();
+        int historySize = event.getHistorySize();
+        try {
+            mWriter.writeMotion(action, event.getPointerId(event.getActionIndex()),
+                    dragAndDroppable.getView().getId(), historySize, offsetX, offsetY);
+            for (int i = 0; i < historySize; i++) {
+                mWriter.writeSample(event.getHistoricalEventTime(i),
+                        event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY);
+            }
+            mWriter.writeSample(event.getEventTime(), event.getRawX(), event.getRawY());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Records a drag event that's delivered to a droppable
+     * @param droppable the droppable
+     * @param ev the drag event
+     */
+    void onDispatch(DragAndDroppable droppable, DragAndDropEvent ev) {
+        if (!mRecording)
+            return;
+        try {
+            mWriter.writeDispatch(ev.getAction(), droppable.getView().getId(), ev.getRegionId(),
+                    ev.getMotionEvent().getEventTime());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Stops recording after a write error, it's thrown by {@link #stop()}
+     */
+    private void fail(IOException e) {
+        mError = e;
+        mRecording = false;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Is the recorder recording
+     * @return wether it's started and no write error occurred
+     */
+    public boolean isRecording() {
+        return mRecording;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.util.SparseArray;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.doaphotostory.opensource.draganddrop.core.DragTrace;
+import com.doaphotostory.opensource.draganddrop.core.DragTraceReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * DragTraceReplayer feeds a trace recorded by a {@link DragTraceRecorder} back through the
+ * touch handling of the recorded objects at full speed, so slow gestures can be reproduced and
+ * benchmarked deterministically. Every touch event is rebuilt with its recorded pointer id and
+ * historical samples and dispatched to the view with the recorded id, so concurrent drags are
+ * replayed on their own objects. The drags run as they did in the recording: the drag slop
+ * applies, the views move and the droppables are informed.
+ * The recorded dispatches are skipped, record the replay to compare them.
+ *
+ * Must be used on the UI thread.
+ */
+public class DragTraceReplayer {
+
+    private final DragTraceReader mReader;
+    // Number of dispatches in the trace
+    private int mRecordedDispatchCount = 0;
+    // The down time of the running drag of every view id
+    private final SparseArray<Long> mDownTimes = new SparseArray<>();
+    // The pointer of the rebuilt events, reused for every sample
+    private final MotionEvent.PointerProperties[] mPointerProperties = { new MotionEvent.PointerProperties() };
+    private final MotionEvent.PointerCoords[] mPointerCoords = { new MotionEvent.PointerCoords() };
+
+    /**
+     * Constructs a replayer
+     * @param in the stream to read the trace from
+     * @throws IOException if the stream doesn't contain a supported trace
+     */
+    public DragTraceReplayer(InputStream in) throws IOException {
+        mReader = new DragTraceReader(in);
+    }
+
+    /**
+     * Replays all touch events of the trace on the views with the recorded ids. Events of
+     * views that can't be found in the hierarchy are skipped. The trace is read to its end and closed.
+     * @param root the view the recorded views are looked up in (by {@link View#findViewById(int)})
+     * @return the number of replayed motion events
+     * @throws IOException if the trace can't be read
+     */
+    public int replay(View root) throws IOException {
+        int count = 0;
+        try {
+            while (mReader.next()) {
+                if (mReader.getType() == DragTrace.RECORD_DISPATCH) {
+                    mRecordedDispatchCount++;
+                    continue;
+                }
+                View view = root.findViewById(mReader.getTargetId());
+                if (view == null)
+                    continue;
+                MotionEvent event = obtainEvent(downTime(mReader.getTargetId()));
+                view.dispatchTouchEvent(event);
+                event.recycle();
+                if (mReader.getAction() == MotionEvent.ACTION_UP || mReader.getAction() == MotionEvent.ACTION_CANCEL)
+                    mDownTimes.remove(mReader.getTargetId());
+                count++;
+            }
+        } finally {
+            mDownTimes.clear();
+            mReader.close();
+        }
+        return count;
+    }
+
+    /**
+     * Get the down time of the drag the current record belongs to, a down record starts a new drag
+     */
+    private long downTime(int targetId) {
+        Long downTime = mDownTimes.get(targetId);
+        if (downTime == null || mReader.getAction() == MotionEvent.ACTION_DOWN) {
+            downTime = mReader.getSampleTime(0);
+            mDownTimes.put(targetId, downTime);
+        }
+        return downTime;
+    }
+
+    /**
+     * Rebuilds the motion event of the current record: the samples before the current one
+     * become its history, the raw and view relative coordinates are the recorded ones
+     */
+    private MotionEvent obtainEvent(long downTime) {
+        mPointerProperties[0].clear();
+        mPointerProperties[0].id = mReader.getPointerId();
+        mPointerProperties[0].toolType = MotionEvent.TOOL_TYPE_FINGER;
+        setCoords(0);
+        MotionEvent event = MotionEvent.obtain(downTime, mReader.getSampleTime(0), mReader.getAction(),
+                1, mPointerProperties, mPointerCoords, 0, 0, 1, 1, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int i = 1; i < mReader.getSampleCount(); i++) {
+            setCoords(i);
+            event.addBatch(mReader.getSampleTime(i), mPointerCoords, 0);
+        }
+        event.offsetLocation(-mReader.getOffsetX(), -mReader.getOffsetY());
+        return event;
+    }
+
+    private void setCoords(int sample) {
+        mPointerCoords[0].clear();
+        mPointerCoords[0].x = mReader.getSampleRawX(sample);
+        mPointerCoords[0].y = mReader.getSampleRawY(sample);
+        mPointerCoords[0].pressure = 1;
+        mPointerCoords[0].size = 1;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of drag events that have been delivered to droppables in the recording,
+     * it's known after {@link #replay(View)}
+     * @return the dispatch count
+     */
+    public int getRecordedDispatchCount() {
+        return mRecordedDispatchCount;
+    }
+}
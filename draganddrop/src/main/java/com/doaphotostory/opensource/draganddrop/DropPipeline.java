@@ -0,0 +1,154 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * DropPipeline runs the {@link DropTask}s of drops off the UI thread. The background work
+ * runs on the drop executor, the results are committed on the UI thread in drop order, even if
+ * the executor runs several tasks at the same time. While a task is pending its droppable shows
+ * its drop pending drawable.
+ * Must be used on the UI thread.
+ */
+final class DropPipeline {
+
+    // Runs the background work, by default on a single background thread
+    private static Executor EXECUTOR;
+    // Posts finished tasks back to the UI thread
+    private static Handler MAIN_HANDLER;
+    // The tasks that haven't been committed yet, in drop order
+    private static final ArrayDeque<DropTask<?>> PENDING = new ArrayDeque<>();
+
+    private DropPipeline() {
+    }
+
+    /**
+     * Submits the task of a drop
+     * @param task the task
+     * @param droppable the droppable the object has been dropped on
+     * @param dragged the dropped object
+     */
+    static void submit(final DropTask<?> task, DragAndDroppable droppable, DragAndDroppable dragged) {
+        task.submit(droppable, dragged);
+        PENDING.add(task);
+        droppable.onDropPending();
+        if (MAIN_HANDLER == null)
+            MAIN_HANDLER = new Handler(Looper.getMainLooper());
+        final Runnable onDone = new Runnable() {
+            @Override
+            public void run() {
+                task.onDone();
+                commitReady();
+            }
+        };
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // A task that never finishes would hold back all later drops
+                try {
+                    task.runInBackground();
+                } finally {
+                    MAIN_HANDLER.post(onDone);
+                }
+            }
+        });
+    }
+
+    /**
+     * Commits the finished tasks at the head of the queue, a task that's still running
+     * holds back the commits of all later drops
+     */
+    private static void commitReady() {
+        while (!PENDING.isEmpty() && PENDING.peek().isDone()) {
+            DropTask<?> task = PENDING.poll();
+            // The placeholder goes first, so the commit may set the final content
+            task.getDroppable().onDropFinished();
+            task.commit();
+        }
+    }
+
+    /**
+     * Cancels a task that hasn't been committed yet
+     * @param task the task
+     */
+    static void cancel(DropTask<?> task) {
+        if (!PENDING.remove(task))
+            return;
+        finishCanceled(task);
+        commitReady();
+    }
+
+    /**
+     * Cancels the pending tasks of all drops of an object, i.e. because it's dragged again
+     * @param dragged the dragged object
+     */
+    static void cancel(DragAndDroppable dragged) {
+        if (PENDING.isEmpty())
+            return;
+        boolean canceled = false;
+        for (Iterator<DropTask<?>> iterator = PENDING.iterator(); iterator.hasNext(); ) {
+            DropTask<?> task = iterator.next();
+            if (task.getDragged() != dragged)
+                continue;
+            iterator.remove();
+            finishCanceled(task);
+            canceled = true;
+        }
+        if (canceled)
+            commitReady();
+    }
+
+    /**
+     * Marks a task that has been removed from the queue as canceled and informs it
+     */
+    private static void finishCanceled(DropTask<?> task) {
+        task.markCanceled();
+        task.getDroppable().onDropFinished();
+        task.onCanceled();
+    }
+
+    /**
+     * Sets the executor the background work of drops runs on
+     * @param executor the executor or null for the default single background thread
+     */
+    static void setExecutor(Executor executor) {
+        EXECUTOR = executor;
+    }
+
+    /**
+     * Get the executor the background work of drops runs on
+     */
+    private static Executor getExecutor() {
+        if (EXECUTOR == null)
+            EXECUTOR = Executors.newSingleThreadExecutor();
+        return EXECUTOR;
+    }
+
+    /**
+     * Get the number of tasks that haven't been committed yet
+     * @return the number of pending tasks
+     */
+    static int getPendingCount() {
+        return PENDING.size();
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+/**
+ * DropTask is the heavy part of a drop (i.e. re-encoding an image or persisting the result)
+ * that shouldn't run on the UI thread. A listener sets it on the ACTION_DROP event with
+ * {@link DragAndDropEvent#setDropTask(DropTask)}, the library runs {@link #doInBackground()}
+ * on the drop executor (see {@link DragAndDropManager#setDropExecutor(java.util.concurrent.Executor)})
+ * and hands the result to {@link #onCommit(Object)} on the UI thread.
+ * Results are committed in drop order. A task is canceled when the object it's about
+ * is dragged again before the task has been committed.
+ *
+ * @param <R> the type of the result
+ */
+public abstract class DropTask<R> {
+
+    // Set from the UI thread, read by the background work to stop early
+    private volatile boolean mCanceled = false;
+    // The droppable and dragged object of the drop, set when the task is submitted
+    private DragAndDroppable mDroppable;
+    private DragAndDroppable mDragged;
+    // The outcome of the background work, handed over to the UI thread by a handler post.
+    // Only the background work writes it, the UI thread reads and clears it after onDone.
+    private R mResult;
+    private Throwable mError;
+    // Set on the UI thread when the background work has finished
+    private boolean mDone = false;
+
+    /**
+     * Called on the drop executor to do the heavy work of the drop. Check {@link #isCanceled()}
+     * in long running work to stop early.
+     * @return the result that's committed on the UI thread
+     * @throws Exception exceptions (and errors) are handed to {@link #onFailed(Throwable)}
+     */
+    protected abstract R doInBackground() throws Exception;
+
+    /**
+     * Called on the UI thread to apply the result of the task, after all tasks of earlier drops
+     * @param result the result of {@link #doInBackground()}
+     */
+    protected abstract void onCommit(R result);
+
+    /**
+     * Called on the UI thread instead of {@link #onCommit(Object)} if the task has been canceled
+     */
+    protected void onCanceled() {
+    }
+
+    /**
+     * Called on the UI thread instead of {@link #onCommit(Object)} if the background work failed
+     * @param error the exception or error thrown by {@link #doInBackground()}
+     */
+    protected void onFailed(Throwable error) {
+    }
+
+    /**
+     * Cancels the task if it hasn't been committed yet. Must be called on the UI thread.
+     */
+    public void cancel() {
+        DropPipeline.cancel(this);
+    }
+
+    /**
+     * Called by the {@link DropPipeline} when the task is submitted
+     */
+    void submit(DragAndDroppable droppable, DragAndDroppable dragged) {
+        mDroppable = droppable;
+        mDragged = dragged;
+    }
+
+    /**
+     * Runs the background work on the drop executor. Everything it throws is kept for
+     * {@link #onFailed(Throwable)}, so the task always finishes.
+     */
+    void runInBackground() {
+        if (mCanceled)
+            return;
+        try {
+            mResult = doInBackground();
+        } catch (Throwable e) {
+            mError = e;
+        }
+    }
+
+    /**
+     * Called on the UI thread when the background work has finished. The outcome of a task
+     * that has been canceled in the meantime is dropped.
+     */
+    void onDone() {
+        mDone = true;
+        if (mCanceled) {
+            mResult = null;
+            mError = null;
+        }
+    }
+
+    /**
+     * Hands the outcome of the background work to the callbacks on the UI thread
+     */
+    void commit() {
+        if (mError != null)
+            onFailed(mError);
+        else
+            onCommit(mResult);
+        mResult = null;
+    }
+
+    /**
+     * Marks the task as canceled, the background work might still be running
+     */
+    void markCanceled() {
+        mCanceled = true;
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the droppable the object has been dropped on
+     * @return the droppable
+     */
+    public DragAndDroppable getDroppable() {
+        return mDroppable;
+    }
+
+    /**
+     * Get the object that has been dropped
+     * @return the dropped object
+     */
+    public DragAndDroppable getDragged() {
+        return mDragged;
+    }
+
+    /**
+     * ISSERS
+     */
+    /**
+     * Has the task been canceled
+     * @return wether the task has been canceled
+     */
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Has the background work finished
+     * @return wether the task waits for its commit or has been committed
+     */
+    boolean isDone() {
+        return mDone;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import com.doaphotostory.opensource.draganddrop.core.AlphaMask;
+
+import java.util.WeakHashMap;
+
+/**
+ * HitMaskCache is the process wide cache for the {@link AlphaMask}s of shaped droppables.
+ * A mask is rendered once per drawable (drawables sharing a {@link Drawable.ConstantState},
+ * like the ones of the same resource, share it) at a small size and kept as long as the
+ * drawable is in use. Must be used on the UI thread.
+ */
+public class HitMaskCache {
+
+    // Masks are rendered with at most this many cells per side
+    public static final int MAX_MASK_SIZE = 64;
+
+    // The process wide instance
+    private static HitMaskCache INSTANCE;
+
+    // The masks by drawable state (or drawable if it has no state), dropped with the drawables
+    private final WeakHashMap<Object, Entry> mMasks = new WeakHashMap<>();
+    // Reused to read the pixels of the rendered masks
+    private int[] mPixels = new int[0];
+    private final Canvas mCanvas = new Canvas();
+
+    /**
+     * A mask and the size of the drawable it has been rendered for
+     */
+    private static final class Entry {
+        private final AlphaMask mMask;
+        private final int mWidth, mHeight;
+
+        Entry(AlphaMask mask, int width, int height) {
+            mMask = mask;
+            mWidth = width;
+            mHeight = height;
+        }
+    }
+
+    private HitMaskCache() {
+    }
+
+    /**
+     * Get the process wide cache
+     * @return the hit mask cache
+     */
+    public static HitMaskCache getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new HitMaskCache();
+        return INSTANCE;
+    }
+
+    /**
+     * Get the mask of a drawable at its current bounds, rendering it only if it isn't cached.
+     * The mask covers the bounds of the drawable with {@link AlphaMask#getWidth()} x
+     * {@link AlphaMask#getHeight()} cells.
+     * @param drawable the drawable
+     * @return the mask or null if the drawable has no size
+     */
+    public AlphaMask getMask(Drawable drawable) {
+        Rect bounds = drawable.getBounds();
+        int width = bounds.width(), height = bounds.height();
+        if (width <= 0 || height <= 0)
+            return null;
+        Drawable.ConstantState state = drawable.getConstantState();
+        Object key = state != null ? state : drawable;
+        Entry entry = mMasks.get(key);
+        // Vector and shape drawables look different at other sizes
+        if (entry != null && entry.mWidth == width && entry.mHeight == height)
+            return entry.mMask;
+        AlphaMask mask = render(drawable, bounds);
+        mMasks.put(key, new Entry(mask, width, height));
+        return mask;
+    }
+
+    /**
+     * Renders a drawable downsampled into a pooled bitmap and reads its alpha
+     */
+    private AlphaMask render(Drawable drawable, Rect bounds) {
+        float scale = Math.min(1f, (float) MAX_MASK_SIZE / Math.max(bounds.width(), bounds.height()));
+        int width = Math.max(1, Math.round(bounds.width() * scale));
+        int height = Math.max(1, Math.round(bounds.height() * scale));
+        Bitmap bitmap = BitmapPool.getInstance().get(width, height);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        mCanvas.setBitmap(bitmap);
+        mCanvas.save();
+        mCanvas.scale((float) width / bounds.width(), (float) height / bounds.height());
+        mCanvas.translate(-bounds.left, -bounds.top);
+        drawable.draw(mCanvas);
+        mCanvas.restore();
+        mCanvas.setBitmap(null);
+        if (mPixels.length < width * height)
+            mPixels = new int[width * height];
+        bitmap.getPixels(mPixels, 0, width, 0, 0, width, height);
+        BitmapPool.getInstance().put(bitmap);
+        return AlphaMask.fromArgb(mPixels, width, height, AlphaMask.DEFAULT_ALPHA_THRESHOLD);
+    }
+
+    /**
+     * Removes all cached masks
+     */
+    public void evictAll() {
+        mMasks.clear();
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of cached masks
+     * @return the number of masks
+     */
+    public int size() {
+        return mMasks.size();
+    }
+}
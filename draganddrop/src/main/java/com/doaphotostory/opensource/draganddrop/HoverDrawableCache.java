@@ -0,0 +1,305 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * HoverDrawableCache is the process wide cache for the hover drawables of
+ * {@link DragAndDroppable}s. Drawables are decoded once per resource id, target size,
+ * density and night mode and handed out as new drawables sharing the same
+ * {@link Drawable.ConstantState}, so many droppables with the same hover drawable only hold
+ * one bitmap. The cache is bounded by bytes and evicts the least recently used drawables.
+ * It's cleared when the configuration changes and when the system asks to trim memory.
+ * Must be used on the UI thread.
+ */
+public class HoverDrawableCache {
+
+    // Default size: 1/32 of the heap, but at most 8 MiB
+    private static final int DEFAULT_MAX_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8 * 1024 * 1024);
+
+    // The process wide instance
+    private static HoverDrawableCache INSTANCE;
+
+    // Clears the process wide instance, registered once with the application
+    private static Context CALLBACKS_CONTEXT;
+    private static final ComponentCallbacks2 CALLBACKS = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (INSTANCE != null && level >= TRIM_MEMORY_RUNNING_LOW)
+                INSTANCE.evictAll();
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // Drawables decoded for the previous density or night mode aren't looked up anymore
+            if (INSTANCE != null)
+                INSTANCE.evictAll();
+        }
+
+        @Override
+        public void onLowMemory() {
+            if (INSTANCE != null)
+                INSTANCE.evictAll();
+        }
+    };
+
+    // The cached drawables by resource id, target size and configuration
+    private final LruCache<Key, Entry> mCache;
+    // Reused for lookups, only cached entries get a key of their own
+    private final Key mLookupKey = new Key();
+
+    /**
+     * Constructs a cache with a maximum size
+     * @param maxBytes the maximum size of the cached drawables in bytes
+     */
+    private HoverDrawableCache(int maxBytes) {
+        mCache = new LruCache<Key, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return entry.mByteCount;
+            }
+        };
+    }
+
+    /**
+     * Get the process wide cache
+     * @return the hover drawable cache
+     */
+    public static HoverDrawableCache getInstance() {
+        if (INSTANCE == null)
+            INSTANCE = new HoverDrawableCache(DEFAULT_MAX_BYTES);
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the process wide cache by an empty one with a new maximum size
+     * @param maxBytes the maximum size of the cached drawables in bytes
+     */
+    public static void setMaxBytes(int maxBytes) {
+        if (INSTANCE != null)
+            INSTANCE.evictAll();
+        INSTANCE = new HoverDrawableCache(maxBytes);
+    }
+
+    /**
+     * Get a drawable for a resource, decoding it only if it isn't cached for the target size
+     * and the current configuration
+     * @param context the context to load the drawable from
+     * @param resID the drawable resource id
+     * @param width the width of the view the drawable is shown in, 0 if unknown
+     * @param height the height of the view the drawable is shown in, 0 if unknown
+     * @return a new drawable sharing the cached state
+     */
+    public Drawable getDrawable(Context context, int resID, int width, int height) {
+        Resources resources = context.getResources();
+        Drawable.ConstantState state = getConstantState(context, resID, width, height);
+        return state != null ? state.newDrawable(resources) : resources.getDrawable(resID);
+    }
+
+    /**
+     * Decodes and caches a drawable ahead of time (i.e. when a drag starts)
+     * so the first hover doesn't have to wait for it
+     * @param context the context to load the drawable from
+     * @param resID the drawable resource id
+     * @param width the width of the view the drawable is shown in, 0 if unknown
+     * @param height the height of the view the drawable is shown in, 0 if unknown
+     */
+    public void prefetch(Context context, int resID, int width, int height) {
+        getConstantState(context, resID, width, height);
+    }
+
+    /**
+     * Get the cached drawable state, decoding and caching it on a miss
+     * @return the drawable state or null if the drawable has none
+     */
+    private Drawable.ConstantState getConstantState(Context context, int resID, int width, int height) {
+        registerCallbacks(context);
+        Resources resources = context.getResources();
+        Configuration configuration = resources.getConfiguration();
+        mLookupKey.set(resID, width, height, resources.getDisplayMetrics().densityDpi,
+                configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK);
+        Entry entry = mCache.get(mLookupKey);
+        if (entry != null)
+            return entry.mState;
+        Drawable drawable = decode(resources, resID, width, height);
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (state != null) {
+            Key key = new Key();
+            key.set(mLookupKey);
+            mCache.put(key, new Entry(state, byteCountOf(drawable)));
+        }
+        return state;
+    }
+
+    /**
+     * Registers the callbacks that clear the cache with the application, once
+     */
+    private static void registerCallbacks(Context context) {
+        Context application = context.getApplicationContext();
+        if (application == null)
+            application = context;
+        if (application == CALLBACKS_CONTEXT)
+            return;
+        CALLBACKS_CONTEXT = application;
+        application.registerComponentCallbacks(CALLBACKS);
+    }
+
+    /**
+     * Decodes a drawable. Bitmaps are subsampled to the smallest power of two that still
+     * covers the target size, other drawables are loaded as they are.
+     */
+    private static Drawable decode(Resources resources, int resID, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resID, options);
+        // No bitmap resource (i.e. a vector or xml drawable)
+        if (options.outWidth <= 0 || options.outHeight <= 0)
+            return resources.getDrawable(resID);
+        int sampleSize = 1;
+        if (width > 0 && height > 0) {
+            while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height)
+                sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap = BitmapFactory.decodeResource(resources, resID, options);
+        if (bitmap == null)
+            return resources.getDrawable(resID);
+        return new BitmapDrawable(resources, bitmap);
+    }
+
+    /**
+     * Estimates the memory held by a decoded drawable in bytes
+     */
+    private static int byteCountOf(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() != null)
+            return ((BitmapDrawable) drawable).getBitmap().getByteCount();
+        // ARGB_8888 at intrinsic size for everything else
+        return Math.max(1, drawable.getIntrinsicWidth() * drawable.getIntrinsicHeight() * 4);
+    }
+
+    /**
+     * The cache key: resource id, target size and the parts of the configuration
+     * that select a different drawable
+     */
+    private static final class Key {
+
+        private int mResID, mWidth, mHeight, mDensityDpi, mNightMode;
+
+        void set(int resID, int width, int height, int densityDpi, int nightMode) {
+            mResID = resID;
+            mWidth = width;
+            mHeight = height;
+            mDensityDpi = densityDpi;
+            mNightMode = nightMode;
+        }
+
+        void set(Key key) {
+            set(key.mResID, key.mWidth, key.mHeight, key.mDensityDpi, key.mNightMode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return mResID == key.mResID && mWidth == key.mWidth && mHeight == key.mHeight
+                    && mDensityDpi == key.mDensityDpi && mNightMode == key.mNightMode;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = mResID;
+            hash = 31 * hash + mWidth;
+            hash = 31 * hash + mHeight;
+            hash = 31 * hash + mDensityDpi;
+            return 31 * hash + mNightMode;
+        }
+    }
+
+    /**
+     * A cached drawable state with the size of its decoded bitmap
+     */
+    private static final class Entry {
+
+        final Drawable.ConstantState mState;
+        final int mByteCount;
+
+        Entry(Drawable.ConstantState state, int byteCount) {
+            mState = state;
+            mByteCount = byteCount;
+        }
+    }
+
+    /**
+     * Removes all cached drawables
+     */
+    public void evictAll() {
+        mCache.evictAll();
+    }
+
+    /**
+     * GETTERS
+     */
+    /**
+     * Get the number of lookups that found a cached drawable
+     * @return the hit count
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Get the number of lookups that had to decode a drawable
+     * @return the miss count
+     */
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * Get the number of drawables that have been evicted to stay below the maximum size
+     * @return the eviction count
+     */
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * Get the size of the cached drawables
+     * @return the size in bytes
+     */
+    public int getSizeBytes() {
+        return mCache.size();
+    }
+
+    /**
+     * Get the maximum size of the cached drawables
+     * @return the maximum size in bytes
+     */
+    public int getMaxBytes() {
+        return mCache.maxSize();
+    }
+}
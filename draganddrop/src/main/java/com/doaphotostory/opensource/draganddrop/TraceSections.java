@@ -0,0 +1,59 @@
+/**
+ * Copyright 2018 Georg Wollmann
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doaphotostory.opensource.draganddrop;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * TraceSections marks the phases of a drag in systrace / Perfetto traces, so a stuttering drag
+ * shows where its time went. Sections are only written on API 18 and above and must be
+ * ended on the thread that began them.
+ */
+final class TraceSections {
+
+    // SECTIONS
+    // Touch handling of the dragged object
+    static final String TOUCH = "DragAndDrop:touch";
+    // Hit-testing the droppables (includes the transitions it causes)
+    static final String HIT_TEST = "DragAndDrop:hitTest";
+    // Calling the listener of a droppable
+    static final String DISPATCH = "DragAndDrop:dispatch";
+    // Hover drawable swaps and vibration
+    static final String HOVER = "DragAndDrop:hover";
+    // Dropping the dragged object and ending its session
+    static final String DROP = "DragAndDrop:drop";
+
+    private TraceSections() {
+    }
+
+    /**
+     * Begins a section
+     * @param name the section name
+     */
+    static void begin(String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+            Trace.beginSection(name);
+    }
+
+    /**
+     * Ends the section that has been begun last on this thread
+     */
+    static void end() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+            Trace.endSection();
+    }
+}
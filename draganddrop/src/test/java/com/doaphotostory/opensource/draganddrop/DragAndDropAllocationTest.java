@@ -0,0 +1,172 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.graphics.Matrix;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests asserting that a move of a drag doesn't allocate in steady state:
+ * DragAndDroppable's touch listener, DragAndDropManager.onDrag, the session's hit-test and
+ * the dispatch to registered droppables.
+ * The tests run without escape analysis (see build.gradle), like on ART.
+ * A single round may catch allocations of the JIT or of Robolectric itself, so the least
+ * of several rounds is measured.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DragAndDropAllocationTest {
+
+    private static final int MOVES = 2000;
+    private static final int WARM_UP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final int DROPPABLES = 40;
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+    private long mThreadId;
+
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        mThreadId = Thread.currentThread().getId();
+    }
+
+    @Test
+    public void move_throughSession_allocatesNothing() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        ImageView dragged = new ImageView(activity);
+        root.addView(dragged, new FrameLayout.LayoutParams(100, 100));
+        final int[] events = new int[1];
+        DragAndDroppable.OnDragListener listener = new DragAndDroppable.OnDragListener() {
+            @Override
+            public boolean onDrag(DragAndDroppable view, DragAndDropEvent dragEvent) {
+                events[0]++;
+                return true;
+            }
+        };
+        for (int i = 0; i < DROPPABLES; i++) {
+            ImageView droppable = new ImageView(activity);
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(90, 90);
+            params.leftMargin = (i % 10) * 100;
+            params.topMargin = 200 + (i / 10) * 100;
+            root.addView(droppable, params);
+        }
+        activity.setContentView(root);
+        for (int i = 1; i <= DROPPABLES; i++) {
+            DragAndDropManager.with(root.getChildAt(i)).makeDroppable().setOnDragListener(listener);
+        }
+        root.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 1000, 1000);
+        DragAndDroppable dragAndDroppable = DragAndDropManager.with(dragged).makeDraggable();
+
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 50, 50, 0);
+        dragged.dispatchTouchEvent(event);
+        event.setAction(MotionEvent.ACTION_MOVE);
+        event.setLocation(100, 100);
+        dragged.dispatchTouchEvent(event);
+        assertNotNull(DragAndDropManager.getSession(dragAndDroppable));
+
+        VelocityTracker velocityTracker = VelocityTracker.obtain();
+        Matrix matrix = new Matrix();
+        matrix.setTranslate(0, -1);
+        float[] point = new float[2];
+
+        // Warm up: builds the grid, fills the event pool and lets the JIT settle
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            move(dragged, event);
+            frameworkBaseline(event, velocityTracker, matrix, point);
+        }
+
+        long overhead = allocatedBytes() - allocatedBytes();
+        long allocated = Long.MAX_VALUE, baseline = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long before = allocatedBytes();
+            move(dragged, event);
+            allocated = Math.min(allocated, allocatedBytes() - before - overhead);
+            // Robolectric implements VelocityTracker and Matrix in Java (they're native on devices),
+            // what they allocate isn't part of the library's move path
+            before = allocatedBytes();
+            frameworkBaseline(event, velocityTracker, matrix, point);
+            baseline = Math.min(baseline, allocatedBytes() - before - overhead);
+        }
+
+        event.setAction(MotionEvent.ACTION_UP);
+        dragged.dispatchTouchEvent(event);
+        event.recycle();
+        velocityTracker.recycle();
+
+        assertNull(DragAndDropManager.getSession(dragAndDroppable));
+        assertTrue(events[0] > MOVES);
+        // Anything the library allocated per move would be at least 16 bytes per move,
+        // less than one byte per move is left for the accounting of the bean
+        assertTrue("allocated " + allocated + " bytes, baseline " + baseline, (allocated - baseline) / MOVES < 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycle_twice_throws() {
+        DragAndDropEvent ev = DragAndDropEvent.obtain(null, DragAndDropEvent.ACTION_DRAG_LOCATION);
+        ev.recycle();
+        ev.recycle();
+    }
+
+    @Test
+    public void obtain_reusesRecycledEvent() {
+        DragAndDropEvent ev = DragAndDropEvent.obtain(null, DragAndDropEvent.ACTION_DRAG_ENTERED);
+        ev.recycle();
+        DragAndDropEvent reused = DragAndDropEvent.obtain(null, DragAndDropEvent.ACTION_DROP);
+        assertSame(ev, reused);
+        assertEquals(DragAndDropEvent.ACTION_DROP, reused.getAction());
+        reused.recycle();
+    }
+
+    /**
+     * Drags across the droppables, entering and exiting them on the way
+     */
+    private static void move(View dragged, MotionEvent event) {
+        for (int i = 0; i < MOVES; i++) {
+            event.setLocation(50 + (i * 7) % 1000, 250 + (i * 13) % 400);
+            dragged.dispatchTouchEvent(event);
+        }
+    }
+
+    /**
+     * Makes the framework calls of a move: one velocity sample and one point mapping
+     */
+    private static void frameworkBaseline(MotionEvent event, VelocityTracker velocityTracker, Matrix matrix, float[] point) {
+        for (int i = 0; i < MOVES; i++) {
+            event.setLocation(50 + (i * 7) % 1000, 250 + (i * 13) % 400);
+            velocityTracker.addMovement(event);
+            point[0] = event.getRawX();
+            point[1] = event.getRawY();
+            matrix.mapPoints(point);
+        }
+    }
+
+    private long allocatedBytes() {
+        return mThreadBean.getThreadAllocatedBytes(mThreadId);
+    }
+}
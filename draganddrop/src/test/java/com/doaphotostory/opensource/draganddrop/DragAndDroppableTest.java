@@ -0,0 +1,193 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the touch handling of {@link DragAndDroppable}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DragAndDroppableTest {
+
+    private ImageView mDragged;
+    private DragAndDroppable mDragAndDroppable;
+    private long mDownTime;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        // The parent isn't at the origin of the screen
+        FrameLayout parent = new FrameLayout(activity);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(500, 500);
+        params.leftMargin = 300;
+        params.topMargin = 400;
+        root.addView(parent, params);
+        mDragged = new ImageView(activity);
+        parent.addView(mDragged, new FrameLayout.LayoutParams(100, 100));
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 1000, 1000);
+        mDragAndDroppable = DragAndDropManager.with(mDragged).makeDraggable();
+        mDownTime = SystemClock.uptimeMillis();
+    }
+
+    @Test
+    public void tap_inOffsetParent_doesntDrag() {
+        touch(MotionEvent.ACTION_DOWN, 400, 500);
+        touch(MotionEvent.ACTION_UP, 400, 500);
+
+        assertNull(DragAndDropManager.getSession(mDragAndDroppable));
+        assertEquals(0f, mDragged.getX(), 0f);
+        assertEquals(0f, mDragged.getY(), 0f);
+    }
+
+    @Test
+    public void moveWithinSlop_inOffsetParent_doesntDrag() {
+        touch(MotionEvent.ACTION_DOWN, 400, 500);
+        touch(MotionEvent.ACTION_MOVE, 402, 501);
+        touch(MotionEvent.ACTION_MOVE, 398, 497);
+
+        assertNull(DragAndDropManager.getSession(mDragAndDroppable));
+        assertEquals(0f, mDragged.getX(), 0f);
+        assertEquals(0f, mDragged.getY(), 0f);
+        touch(MotionEvent.ACTION_UP, 398, 497);
+    }
+
+    @Test
+    public void moveBeyondSlop_inOffsetParent_drags() {
+        touch(MotionEvent.ACTION_DOWN, 400, 500);
+        touch(MotionEvent.ACTION_MOVE, 420, 500);
+        assertNotNull(DragAndDropManager.getSession(mDragAndDroppable));
+        touch(MotionEvent.ACTION_MOVE, 440, 540);
+
+        assertEquals(40f, mDragged.getX(), 0.01f);
+        assertEquals(40f, mDragged.getY(), 0.01f);
+        touch(MotionEvent.ACTION_UP, 440, 540);
+        assertNull(DragAndDropManager.getSession(mDragAndDroppable));
+    }
+
+    @Test
+    public void dragShadow_movesTheViewAtTheDrop() {
+        mDragAndDroppable.setDragShadow(true);
+        mDragged.setRotation(30);
+        touch(MotionEvent.ACTION_DOWN, 400, 500);
+        touch(MotionEvent.ACTION_MOVE, 420, 500);
+        touch(MotionEvent.ACTION_MOVE, 440, 540);
+
+        // Only the snapshot is dragged
+        assertEquals(0f, mDragged.getX(), 0f);
+        assertEquals(0f, mDragged.getY(), 0f);
+        touch(MotionEvent.ACTION_UP, 440, 540);
+        assertEquals(40f, mDragged.getX(), 0.01f);
+        assertEquals(40f, mDragged.getY(), 0.01f);
+    }
+
+    @Test
+    public void dragShadow_notShown_dragsTheView() {
+        mDragAndDroppable.setDragShadow(true);
+        // A view without size can't be snapshot
+        mDragged.layout(0, 0, 0, 0);
+        touch(MotionEvent.ACTION_DOWN, 400, 500);
+        touch(MotionEvent.ACTION_MOVE, 420, 500);
+        touch(MotionEvent.ACTION_MOVE, 440, 540);
+
+        assertEquals(40f, mDragged.getX(), 0.01f);
+        assertEquals(40f, mDragged.getY(), 0.01f);
+        touch(MotionEvent.ACTION_UP, 440, 540);
+        assertEquals(40f, mDragged.getX(), 0.01f);
+        assertEquals(40f, mDragged.getY(), 0.01f);
+    }
+
+    @Test
+    public void snapBack_releasedAwayFromHome_startsSlowly() {
+        mDragAndDroppable.setSnapBack(true);
+        swipe(400, 20);
+        assertEquals(400, mDragged.animate().getDuration());
+    }
+
+    @Test
+    public void snapBack_releasedTowardsHome_carriesTheVelocityOver() {
+        mDragAndDroppable.setSnapBack(true);
+        swipe(600, -20);
+        assertTrue(mDragged.animate().getDuration() < 400);
+    }
+
+    @Test
+    public void predictiveHover_rendersAheadOfThePointer() {
+        mDragAndDroppable.setPredictiveHover(true);
+        moveSteadily();
+        assertTrue(mDragged.getX() > 100f);
+        touch(MotionEvent.ACTION_UP, 500, 500, mDownTime + 200);
+    }
+
+    @Test
+    public void predictiveHover_disabled_rendersAtThePointer() {
+        mDragAndDroppable.setPredictiveHover(true);
+        mDragAndDroppable.setPredictiveHover(false);
+        assertFalse(mDragAndDroppable.isPointerPrediction());
+        moveSteadily();
+        assertEquals(100f, mDragged.getX(), 0.01f);
+        touch(MotionEvent.ACTION_UP, 500, 500, mDownTime + 200);
+    }
+
+    @Test
+    public void pointerPrediction_disabledMidDrag_rendersAtThePointer() {
+        mDragAndDroppable.setPointerPrediction(true);
+        moveSteadily();
+        mDragAndDroppable.setPointerPrediction(false);
+        touch(MotionEvent.ACTION_MOVE, 520, 500, mDownTime + 192);
+        assertEquals(120f, mDragged.getX(), 0.01f);
+        touch(MotionEvent.ACTION_UP, 520, 500, mDownTime + 200);
+    }
+
+    /**
+     * Drags the view to the right at a steady 20px every 16ms, up to 100px
+     */
+    private void moveSteadily() {
+        touch(MotionEvent.ACTION_DOWN, 400, 500, mDownTime);
+        for (int i = 1; i <= 5; i++) {
+            touch(MotionEvent.ACTION_MOVE, 400 + i * 20, 500, mDownTime + 100 + i * 16);
+        }
+    }
+
+    /**
+     * Drags the view to the right, later moves on in steps of a distance every 16ms and releases it
+     */
+    private void swipe(float rawX, float step) {
+        touch(MotionEvent.ACTION_DOWN, 400, 500, mDownTime);
+        touch(MotionEvent.ACTION_MOVE, rawX, 500, mDownTime + 100);
+        for (int i = 1; i <= 5; i++) {
+            touch(MotionEvent.ACTION_MOVE, rawX + i * step, 500, mDownTime + 300 + i * 16);
+        }
+        touch(MotionEvent.ACTION_UP, rawX + 5 * step, 500, mDownTime + 380);
+    }
+
+    /**
+     * Sends a touch event to the dragged view, at a position on the screen
+     */
+    private void touch(int action, float rawX, float rawY) {
+        touch(action, rawX, rawY, SystemClock.uptimeMillis());
+    }
+
+    private void touch(int action, float rawX, float rawY, long eventTime) {
+        MotionEvent event = MotionEvent.obtain(mDownTime, eventTime, action, rawX, rawY, 0);
+        mDragged.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
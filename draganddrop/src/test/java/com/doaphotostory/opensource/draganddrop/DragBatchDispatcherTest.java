@@ -0,0 +1,92 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the delivery of drag batches within the frame of a paced move
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DragBatchDispatcherTest {
+
+    private ImageView mDragged;
+    private final ArrayList<Integer> mDelivered = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        mDragged = new ImageView(activity);
+        root.addView(mDragged, new FrameLayout.LayoutParams(100, 100));
+        ImageView droppable = new ImageView(activity);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 100);
+        params.leftMargin = params.topMargin = 500;
+        root.addView(droppable, params);
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 1000, 1000);
+        DragAndDropManager.with(mDragged).makeDraggable().setFramePaced(true);
+        DragAndDropManager.with(droppable).makeDroppable().setOnDragBatchListener(new DragAndDroppable.OnDragBatchListener() {
+            @Override
+            public void onDragBatch(DragAndDroppable droppable, DragAndDropBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    mDelivered.add(batch.getAction(i));
+                }
+            }
+        });
+        // Frame callbacks only run when the test says so
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    @Test
+    public void pacedMove_deliversItsBatchInTheSameFrame() {
+        long downTime = SystemClock.uptimeMillis();
+        touch(downTime, MotionEvent.ACTION_DOWN, 50, 50);
+        touch(downTime, MotionEvent.ACTION_MOVE, 100, 50);
+        touch(downTime, MotionEvent.ACTION_MOVE, 150, 50);
+        assertTrue(mDelivered.isEmpty());
+
+        // The frame callback of the paced move starts the drag, the batch isn't left for the next frame
+        ShadowLooper.getShadowMainLooper().runOneTask();
+        assertEquals(0, DragBatchDispatcher.getPendingCount());
+        assertEquals(1, mDelivered.size());
+        assertEquals(DragAndDropEvent.ACTION_DRAG_STARTED, (int) mDelivered.get(0));
+
+        touch(downTime, MotionEvent.ACTION_MOVE, 200, 50);
+        ShadowLooper.getShadowMainLooper().runOneTask();
+        assertEquals(0, DragBatchDispatcher.getPendingCount());
+        assertEquals(DragAndDropEvent.ACTION_DRAG_LOCATION, (int) mDelivered.get(mDelivered.size() - 1));
+        touch(downTime, MotionEvent.ACTION_UP, 200, 50);
+    }
+
+    private void touch(long downTime, int action, float rawX, float rawY) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, rawX, rawY, 0);
+        mDragged.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,100 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the bounds invalidation and the window observation of a {@link DragScope}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DragScopeTest {
+
+    private Activity mActivity;
+    private FrameLayout mRoot, mContainer;
+    private ImageView mSibling;
+    private DragAndDroppable mDroppable;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mRoot = new FrameLayout(mActivity);
+        mContainer = new FrameLayout(mActivity);
+        mRoot.addView(mContainer, new FrameLayout.LayoutParams(500, 500));
+        mSibling = new ImageView(mActivity);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 100);
+        params.leftMargin = 600;
+        mRoot.addView(mSibling, params);
+        ImageView droppable = new ImageView(mActivity);
+        mContainer.addView(droppable, new FrameLayout.LayoutParams(100, 100));
+        mActivity.setContentView(mRoot);
+        layout();
+        mDroppable = DragAndDropManager.with(droppable).makeDroppable();
+        mDroppable.setOnDragListener(new DragAndDroppable.OnDragListener() {
+            @Override
+            public boolean onDrag(DragAndDroppable view, DragAndDropEvent dragEvent) {
+                return true;
+            }
+        });
+        mDroppable.updateBounds();
+    }
+
+    @Test
+    public void layoutElsewhere_keepsTheBounds() {
+        mSibling.requestLayout();
+        layout();
+        mRoot.getViewTreeObserver().dispatchOnGlobalLayout();
+
+        assertTrue(mDroppable.hasValidBounds());
+    }
+
+    @Test
+    public void layoutMovingAnAncestor_invalidatesTheBounds() {
+        ((FrameLayout.LayoutParams) mContainer.getLayoutParams()).topMargin = 200;
+        mContainer.requestLayout();
+        layout();
+
+        assertFalse(mDroppable.hasValidBounds());
+        int[] location = new int[2];
+        mContainer.getLocationOnScreen(location);
+        mDroppable.updateBounds();
+        assertEquals(location[1], mDroppable.getBounds().top, 0f);
+    }
+
+    @Test
+    public void detachedDroppable_joinsTheWindowScopeOnceAttached() {
+        FrameLayout detached = new FrameLayout(mActivity);
+        ImageView view = new ImageView(mActivity);
+        detached.addView(view);
+        DragAndDroppable droppable = DragAndDropManager.with(view).makeDroppable();
+        droppable.setOnDragListener(mDroppable.getOnDragListener());
+
+        // The topmost parent of a detached view doesn't become a scope root
+        assertNull(droppable.getScope());
+        assertNull(detached.getTag(R.id.draganddrop_scope));
+
+        mRoot.addView(detached);
+        assertSame(mDroppable.getScope(), droppable.getScope());
+        assertNull(detached.getTag(R.id.draganddrop_scope));
+        mRoot.removeView(detached);
+        assertNull(droppable.getScope());
+        assertEquals(1, mDroppable.getScope().size());
+    }
+
+    private void layout() {
+        mRoot.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        mRoot.layout(0, 0, 1000, 1000);
+    }
+}
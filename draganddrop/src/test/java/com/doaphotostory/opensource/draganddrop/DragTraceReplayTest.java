@@ -0,0 +1,158 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.doaphotostory.opensource.draganddrop.core.DragTrace;
+import com.doaphotostory.opensource.draganddrop.core.DragTraceReader;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests recording drags at the touch listener and replaying them on the recorded views
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DragTraceReplayTest {
+
+    private static final int FIRST_ID = 1, SECOND_ID = 2;
+    private static final int MOVES = 10;
+
+    private FrameLayout mRoot;
+    private TouchCountingView mFirst, mSecond;
+
+    @Test
+    public void record_capturesEveryTouchOfConcurrentDrags() throws IOException {
+        setUpViews();
+        ByteArrayOutputStream out = record();
+        // The drags ended where the fingers were
+        assertEquals(100f, mFirst.getX(), 0.01f);
+        assertEquals(300f, mFirst.getY(), 0.01f);
+        assertEquals(300f, mSecond.getX(), 0.01f);
+        assertEquals(50f, mSecond.getY(), 0.01f);
+
+        DragTraceReader reader = new DragTraceReader(new ByteArrayInputStream(out.toByteArray()));
+        assertMotion(reader, MotionEvent.ACTION_DOWN, FIRST_ID, 0, 50, 50);
+        assertMotion(reader, MotionEvent.ACTION_DOWN, SECOND_ID, 1, 550, 50);
+        // The move within the drag slop never reached the manager, it's recorded anyway
+        assertMotion(reader, MotionEvent.ACTION_MOVE, FIRST_ID, 0, 52, 51);
+        for (int i = 1; i <= MOVES; i++) {
+            assertMotion(reader, MotionEvent.ACTION_MOVE, FIRST_ID, 0, 50 + i * 10, 50 + i * 30);
+            assertMotion(reader, MotionEvent.ACTION_MOVE, SECOND_ID, 1, 550 - i * 20, 50 + i * 5);
+        }
+        assertMotion(reader, MotionEvent.ACTION_UP, FIRST_ID, 0, 150, 350);
+        assertMotion(reader, MotionEvent.ACTION_UP, SECOND_ID, 1, 350, 100);
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void replay_dispatchesToTheRecordedViews() throws IOException {
+        setUpViews();
+        ByteArrayOutputStream out = record();
+        mFirst.mTouchEvents = mSecond.mTouchEvents = 0;
+
+        // Robolectric's MotionEvent drops the pointers of events built from PointerCoords,
+        // so only the routing of the replayed events is checked here
+        DragTraceReplayer replayer = new DragTraceReplayer(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(2 * MOVES + 5, replayer.replay(mRoot));
+        assertEquals(MOVES + 3, mFirst.mTouchEvents);
+        assertEquals(MOVES + 2, mSecond.mTouchEvents);
+    }
+
+    /**
+     * Drags both views at the same time, the first one with a move within the drag slop
+     */
+    private ByteArrayOutputStream record() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DragTraceRecorder recorder = new DragTraceRecorder(out);
+        recorder.start();
+        long downTime = SystemClock.uptimeMillis();
+        touch(mFirst, downTime, MotionEvent.ACTION_DOWN, 0, 50, 50);
+        touch(mSecond, downTime + 1, MotionEvent.ACTION_DOWN, 1, 550, 50);
+        touch(mFirst, downTime + 2, MotionEvent.ACTION_MOVE, 0, 52, 51);
+        for (int i = 1; i <= MOVES; i++) {
+            touch(mFirst, downTime + 2 + i * 16, MotionEvent.ACTION_MOVE, 0, 50 + i * 10, 50 + i * 30);
+            touch(mSecond, downTime + 3 + i * 16, MotionEvent.ACTION_MOVE, 1, 550 - i * 20, 50 + i * 5);
+        }
+        touch(mFirst, downTime + 200, MotionEvent.ACTION_UP, 0, 150, 350);
+        touch(mSecond, downTime + 201, MotionEvent.ACTION_UP, 1, 350, 100);
+        recorder.stop();
+        return out;
+    }
+
+    private void setUpViews() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRoot = new FrameLayout(activity);
+        mFirst = new TouchCountingView(activity);
+        mFirst.setId(FIRST_ID);
+        mRoot.addView(mFirst, new FrameLayout.LayoutParams(100, 100));
+        mSecond = new TouchCountingView(activity);
+        mSecond.setId(SECOND_ID);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 100);
+        params.leftMargin = 500;
+        mRoot.addView(mSecond, params);
+        activity.setContentView(mRoot);
+        mRoot.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        mRoot.layout(0, 0, 1000, 1000);
+        DragAndDropManager.with(mFirst).makeDraggable();
+        DragAndDropManager.with(mSecond).makeDraggable();
+    }
+
+    private static void assertMotion(DragTraceReader reader, int action, int targetId, int pointerId, float rawX, float rawY)
+            throws IOException {
+        assertTrue(reader.next());
+        assertEquals(DragTrace.RECORD_MOTION, reader.getType());
+        assertEquals(action, reader.getAction());
+        assertEquals(targetId, reader.getTargetId());
+        assertEquals(pointerId, reader.getPointerId());
+        int current = reader.getSampleCount() - 1;
+        assertEquals(rawX, reader.getSampleRawX(current), 0.1f);
+        assertEquals(rawY, reader.getSampleRawY(current), 0.1f);
+    }
+
+    /**
+     * Sends a touch event of one pointer to a view, at a position on the screen
+     */
+    private static void touch(View view, long time, int action, int pointerId, float rawX, float rawY) {
+        MotionEvent event = MotionEvent.obtain(time, time, action, rawX, rawY, 0);
+        // The pointer at index 0 gets the id
+        Shadows.shadowOf(event).setPointerIds(pointerId, pointerId + 1);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * Counts the touch events that are dispatched to it
+     */
+    private static class TouchCountingView extends ImageView {
+        int mTouchEvents = 0;
+
+        TouchCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(MotionEvent event) {
+            mTouchEvents++;
+            return super.dispatchTouchEvent(event);
+        }
+    }
+}
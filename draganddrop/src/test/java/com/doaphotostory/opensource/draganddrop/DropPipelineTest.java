@@ -0,0 +1,131 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.widget.ImageView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the {@link DropPipeline}, the background work runs when the test says so
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DropPipelineTest {
+
+    private final ArrayList<Runnable> mQueued = new ArrayList<>();
+    private DragAndDroppable mDroppable, mDragged;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mDroppable = DragAndDropManager.with(new ImageView(activity)).makeDroppable();
+        mDragged = DragAndDropManager.with(new ImageView(activity)).makeDraggable();
+        DragAndDropManager.setDropExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mQueued.add(command);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        DragAndDropManager.setDropExecutor(null);
+    }
+
+    @Test
+    public void error_failsTheTaskAndReleasesLaterDrops() {
+        RecordingTask failing = new RecordingTask(new StackOverflowError());
+        RecordingTask later = new RecordingTask(null);
+        DropPipeline.submit(failing, mDroppable, mDragged);
+        DropPipeline.submit(later, mDroppable, mDragged);
+
+        runQueued();
+
+        assertTrue(failing.mError instanceof StackOverflowError);
+        assertFalse(failing.mCommitted);
+        assertTrue(later.mCommitted);
+        assertEquals(0, DropPipeline.getPendingCount());
+    }
+
+    @Test
+    public void cancelWhileRunning_dropsTheResult() {
+        RecordingTask task = new RecordingTask(null);
+        task.mCancelWhileRunning = true;
+        DropPipeline.submit(task, mDroppable, mDragged);
+
+        runQueued();
+
+        // The background work finished, its result isn't committed
+        assertTrue(task.mRan);
+        assertFalse(task.mCommitted);
+        assertEquals(1, task.mCanceledCalls);
+        assertEquals(0, DropPipeline.getPendingCount());
+    }
+
+    /**
+     * Runs the queued background work and the commits it posts to the UI thread
+     */
+    private void runQueued() {
+        for (int i = 0; i < mQueued.size(); i++) {
+            mQueued.get(i).run();
+        }
+        mQueued.clear();
+        ShadowLooper.idleMainLooper();
+    }
+
+    /**
+     * A task that throws a given error or returns a result
+     */
+    private static class RecordingTask extends DropTask<String> {
+        private final Error mThrown;
+        private boolean mRan = false;
+        // Cancels the task from the background work, as if the UI thread canceled it meanwhile
+        private boolean mCancelWhileRunning = false;
+        private boolean mCommitted = false;
+        private int mCanceledCalls = 0;
+        private Throwable mError;
+
+        RecordingTask(Error thrown) {
+            mThrown = thrown;
+        }
+
+        @Override
+        protected String doInBackground() {
+            mRan = true;
+            if (mCancelWhileRunning)
+                cancel();
+            if (mThrown != null)
+                throw mThrown;
+            return "result";
+        }
+
+        @Override
+        protected void onCommit(String result) {
+            assertEquals("result", result);
+            mCommitted = true;
+        }
+
+        @Override
+        protected void onCanceled() {
+            mCanceledCalls++;
+        }
+
+        @Override
+        protected void onFailed(Throwable error) {
+            mError = error;
+        }
+    }
+}
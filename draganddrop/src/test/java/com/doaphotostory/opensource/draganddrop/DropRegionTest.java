@@ -0,0 +1,93 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Matrix;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the drop regions of a droppable in a scaled host
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class DropRegionTest {
+
+    private DragAndDroppable mDroppable;
+    // The screen position of the root
+    private final int[] mOrigin = new int[2];
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        // The host is at 100,100 and drawn at twice its size (i.e. a zoomed canvas)
+        FrameLayout host = new ScaledLayout(activity, 2);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(400, 400);
+        params.leftMargin = params.topMargin = 100;
+        root.addView(host, params);
+        ImageView droppable = new ImageView(activity);
+        params = new FrameLayout.LayoutParams(100, 100);
+        params.leftMargin = params.topMargin = 50;
+        host.addView(droppable, params);
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 1000, 1000);
+        root.getLocationOnScreen(mOrigin);
+        mDroppable = DragAndDropManager.with(droppable).makeDroppable()
+                .addDropRegion(1, 0, 0, 50, 100)
+                .addDropRegion(2, 50, 0, 100, 100);
+    }
+
+    @Test
+    public void scaledHost_boundsAreDrawnBounds() {
+        // The droppable is drawn at 200,200 in the root with a size of 200x200
+        assertEquals(mOrigin[0] + 200, mDroppable.getBounds().left, 0.01f);
+        assertEquals(mOrigin[1] + 200, mDroppable.getBounds().top, 0.01f);
+        assertEquals(mOrigin[0] + 400, mDroppable.getBounds().right, 0.01f);
+        assertEquals(mOrigin[1] + 400, mDroppable.getBounds().bottom, 0.01f);
+    }
+
+    @Test
+    public void scaledHost_regionsAreFoundInViewCoordinates() {
+        // 50px on the screen are 25px in the view
+        assertEquals(1, mDroppable.findRegion(mOrigin[0] + 250, mOrigin[1] + 250));
+        assertEquals(1, mDroppable.findRegion(mOrigin[0] + 298, mOrigin[1] + 390));
+        assertEquals(2, mDroppable.findRegion(mOrigin[0] + 302, mOrigin[1] + 250));
+        assertEquals(2, mDroppable.findRegion(mOrigin[0] + 390, mOrigin[1] + 390));
+    }
+
+    /**
+     * A layout scaled around its top left corner. Robolectric doesn't apply the scale of a view
+     * to its matrix, so the layout returns the matrix a device would.
+     */
+    private static class ScaledLayout extends FrameLayout {
+
+        private final Matrix mMatrix = new Matrix();
+
+        ScaledLayout(Context context, float scale) {
+            super(context);
+            setPivotX(0);
+            setPivotY(0);
+            setScaleX(scale);
+            setScaleY(scale);
+            mMatrix.setScale(scale, scale);
+        }
+
+        @Override
+        public Matrix getMatrix() {
+            return mMatrix;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the configuration handling of the {@link HoverDrawableCache}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class HoverDrawableCacheTest {
+
+    private static final int DRAWABLE = android.R.drawable.btn_star_big_on;
+
+    private Activity mActivity;
+    private HoverDrawableCache mCache;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        HoverDrawableCache.setMaxBytes(1024 * 1024);
+        mCache = HoverDrawableCache.getInstance();
+        mCache.getDrawable(mActivity, DRAWABLE, 100, 100);
+    }
+
+    @Test
+    public void sameConfiguration_hitsTheCache() {
+        mCache.getDrawable(mActivity, DRAWABLE, 100, 100);
+
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(1, mCache.getMissCount());
+        assertTrue(mCache.getSizeBytes() > 0);
+    }
+
+    @Test
+    public void nightMode_decodesAgain() {
+        setNightMode(Configuration.UI_MODE_NIGHT_YES);
+        mCache.getDrawable(mActivity, DRAWABLE, 100, 100);
+
+        assertEquals(0, mCache.getHitCount());
+        assertEquals(2, mCache.getMissCount());
+    }
+
+    @Test
+    public void configurationChange_clearsTheCache() {
+        RuntimeEnvironment.application.onConfigurationChanged(mActivity.getResources().getConfiguration());
+
+        assertEquals(0, mCache.getSizeBytes());
+    }
+
+    @Test
+    public void trimMemory_clearsTheCache() {
+        RuntimeEnvironment.application.onTrimMemory(Activity.TRIM_MEMORY_UI_HIDDEN);
+
+        assertEquals(0, mCache.getSizeBytes());
+    }
+
+    /**
+     * Switches the night mode of the activity's resources
+     */
+    private void setNightMode(int nightMode) {
+        Resources resources = mActivity.getResources();
+        Configuration configuration = new Configuration(resources.getConfiguration());
+        configuration.uiMode = (configuration.uiMode & ~Configuration.UI_MODE_NIGHT_MASK) | nightMode;
+        resources.updateConfiguration(configuration, resources.getDisplayMetrics());
+    }
+}
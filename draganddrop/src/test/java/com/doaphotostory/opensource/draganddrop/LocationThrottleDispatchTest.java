@@ -0,0 +1,116 @@
+package com.doaphotostory.opensource.draganddrop;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the location throttle of a droppable while several objects are dragged
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class LocationThrottleDispatchTest {
+
+    private static final int MOVES = 12;
+
+    private ImageView mFirst, mSecond;
+    private DragAndDroppable mFirstDraggable, mSecondDraggable, mDroppable;
+    private int mLocations = 0;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout root = new FrameLayout(activity);
+        mFirst = new ImageView(activity);
+        root.addView(mFirst, new FrameLayout.LayoutParams(100, 100));
+        mSecond = new ImageView(activity);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(100, 100);
+        params.topMargin = 200;
+        root.addView(mSecond, params);
+        ImageView droppable = new ImageView(activity);
+        params = new FrameLayout.LayoutParams(100, 100);
+        params.leftMargin = params.topMargin = 800;
+        root.addView(droppable, params);
+        activity.setContentView(root);
+        root.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, 1000, 1000);
+        mFirstDraggable = DragAndDropManager.with(mFirst).makeDraggable();
+        mSecondDraggable = DragAndDropManager.with(mSecond).makeDraggable();
+        mDroppable = DragAndDropManager.with(droppable).makeDroppable().setLocationThrottle(0, 100);
+        mDroppable.setOnDragListener(new DragAndDroppable.OnDragListener() {
+            @Override
+            public boolean onDrag(DragAndDroppable view, DragAndDropEvent dragEvent) {
+                if (dragEvent.getAction() == DragAndDropEvent.ACTION_DRAG_LOCATION)
+                    mLocations++;
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void interleavedDrags_throttleEachDragOnItsOwn() {
+        long downTime = SystemClock.uptimeMillis();
+        touch(mFirst, downTime, downTime, MotionEvent.ACTION_DOWN, 50, 50);
+        touch(mSecond, downTime + 1, downTime + 1, MotionEvent.ACTION_DOWN, 50, 250);
+        // The first move starts the drag, every following one is a location 16ms after the previous
+        for (int i = 1; i <= MOVES; i++) {
+            touch(mFirst, downTime, downTime + i * 16, MotionEvent.ACTION_MOVE, 50 + i * 20, 50);
+            touch(mSecond, downTime + 1, downTime + 1 + i * 16, MotionEvent.ACTION_MOVE, 50 + i * 20, 250);
+        }
+
+        // Every drag passes its first location and the one 112ms later
+        assertEquals(4, mLocations);
+        assertEquals(MOVES - 3, mDroppable.getSuppressedLocationCount(mFirstDraggable));
+        assertEquals(MOVES - 3, mDroppable.getSuppressedLocationCount(mSecondDraggable));
+        assertEquals(2 * (MOVES - 3), mDroppable.getSuppressedLocationCount());
+
+        touch(mFirst, downTime, downTime + 300, MotionEvent.ACTION_UP, 50 + MOVES * 20, 50);
+        assertEquals(0, mDroppable.getSuppressedLocationCount(mFirstDraggable));
+        assertEquals(MOVES - 3, mDroppable.getSuppressedLocationCount());
+        touch(mSecond, downTime + 1, downTime + 301, MotionEvent.ACTION_UP, 50 + MOVES * 20, 250);
+        // The count of the last drag is kept
+        assertEquals(MOVES - 3, mDroppable.getSuppressedLocationCount());
+    }
+
+    @Test
+    public void nextDrag_startsOver() {
+        long downTime = SystemClock.uptimeMillis();
+        touch(mFirst, downTime, downTime, MotionEvent.ACTION_DOWN, 50, 50);
+        for (int i = 1; i <= MOVES; i++) {
+            touch(mFirst, downTime, downTime + i * 16, MotionEvent.ACTION_MOVE, 50 + i * 20, 50);
+        }
+        touch(mFirst, downTime, downTime + 300, MotionEvent.ACTION_UP, 50 + MOVES * 20, 50);
+        assertEquals(MOVES - 3, mDroppable.getSuppressedLocationCount());
+
+        downTime += 1000;
+        touch(mSecond, downTime, downTime, MotionEvent.ACTION_DOWN, 50, 250);
+        touch(mSecond, downTime, downTime + 16, MotionEvent.ACTION_MOVE, 70, 250);
+        touch(mSecond, downTime, downTime + 32, MotionEvent.ACTION_MOVE, 90, 250);
+        assertEquals(0, mDroppable.getSuppressedLocationCount());
+        touch(mSecond, downTime, downTime + 48, MotionEvent.ACTION_MOVE, 110, 250);
+        assertEquals(1, mDroppable.getSuppressedLocationCount(mSecondDraggable));
+        touch(mSecond, downTime, downTime + 100, MotionEvent.ACTION_UP, 110, 250);
+    }
+
+    /**
+     * Sends a touch event to a dragged view, at a position on the screen
+     */
+    private static void touch(View view, long downTime, long eventTime, int action, float rawX, float rawY) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, rawX, rawY, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}